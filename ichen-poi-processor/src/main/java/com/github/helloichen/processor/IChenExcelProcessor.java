@@ -0,0 +1,414 @@
+package com.github.helloichen.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * {@code @IChenExcelField}注解处理器<br>
+ * 为每个带{@code @IChenExcelField}属性的类生成{@code ExcelRowMapper}子类，并登记到
+ * {@code META-INF/services}。列的顺序、类型和getter/setter的匹配规则与运行时反射解析一致：
+ * 只处理类自身声明的属性，按{@code order()}排序，相同时按声明顺序；导入需要公共的set方法，导出需要公共的get方法。<br>
+ * 有属性匹配不到getter/setter时不生成映射器，运行时使用反射解析。与Lombok一起使用时，需要把Lombok放在处理器路径的前面，
+ * 否则看不到Lombok生成的getter/setter，所有类都会退回反射
+ */
+@SupportedAnnotationTypes(IChenExcelProcessor.ANNOTATION)
+public class IChenExcelProcessor extends AbstractProcessor {
+
+    static final String ANNOTATION = "com.github.helloichen.annotation.IChenExcelField";
+    private static final String MAPPER = "com.github.helloichen.excel.metadata.ExcelRowMapper";
+    private static final String SERVICE_FILE = "META-INF/services/" + MAPPER;
+    private static final String MAPPER_SUFFIX = "_ExcelRowMapper";
+
+    /**
+     * 本次编译生成的映射器全名，最后一轮写入services文件
+     */
+    private final Set<String> mappers = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeServiceFile();
+            return false;
+        }
+        Set<TypeElement> types = new LinkedHashSet<>();
+        for (TypeElement annotation : annotations) {
+            for (Element field : roundEnv.getElementsAnnotatedWith(annotation)) {
+                Element owner = field.getEnclosingElement();
+                if (owner.getKind() == ElementKind.CLASS) {
+                    types.add((TypeElement) owner);
+                }
+            }
+        }
+        for (TypeElement type : types) {
+            if (isAccessible(type)) {
+                generate(type);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 生成的映射器与类在同一个包，类不能是私有类、内部类或局部类
+     */
+    private boolean isAccessible(TypeElement type) {
+        for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            TypeElement current = (TypeElement) element;
+            if (current.getModifiers().contains(Modifier.PRIVATE)
+                    || current.getNestingKind() == NestingKind.LOCAL
+                    || current.getNestingKind() == NestingKind.ANONYMOUS
+                    || current.getNestingKind() == NestingKind.MEMBER && !current.getModifiers().contains(Modifier.STATIC)) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                        type.getQualifiedName() + "类无法在同包中访问，运行时使用反射解析", type);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void generate(TypeElement type) {
+        Messager messager = processingEnv.getMessager();
+        // 按方法名和参数个数查找，重载的方法互不覆盖
+        Map<String, ExecutableElement> methodMap = new LinkedHashMap<>();
+        boolean constructor = false;
+        for (Element member : type.getEnclosedElements()) {
+            if (!member.getModifiers().contains(Modifier.PUBLIC)) {
+                continue;
+            }
+            if (member.getKind() == ElementKind.METHOD && !member.getModifiers().contains(Modifier.STATIC)) {
+                ExecutableElement method = (ExecutableElement) member;
+                methodMap.putIfAbsent(methodKey(method.getSimpleName().toString(), method.getParameters().size()),
+                        method);
+            } else if (member.getKind() == ElementKind.CONSTRUCTOR
+                    && ((ExecutableElement) member).getParameters().isEmpty()) {
+                constructor = !type.getModifiers().contains(Modifier.ABSTRACT);
+            }
+        }
+
+        // 按order排序，相同时保持声明顺序
+        List<FieldInfo> fields = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            AnnotationMirror mirror = findAnnotation(field);
+            if (mirror != null) {
+                fields.add(new FieldInfo(field, mirror));
+            }
+        }
+        fields.sort(Comparator.comparingInt(field -> field.order));
+
+        List<Column> importColumns = new ArrayList<>();
+        List<Column> exportColumns = new ArrayList<>();
+        for (FieldInfo field : fields) {
+            String suffix = Character.toUpperCase(field.name.charAt(0)) + field.name.substring(1);
+            if (field.importField) {
+                ExecutableElement method = methodMap.get(methodKey("set" + suffix, 1));
+                if (method == null) {
+                    // 可能是getter/setter由之后的处理器生成，缺少列的映射器会静默丢失数据，交给运行时反射解析
+                    messager.printMessage(Diagnostic.Kind.NOTE, type.getQualifiedName() + "类" + field.name
+                            + "属性无setter方法，不生成映射器，运行时使用反射解析", field.element);
+                    return;
+                }
+                importColumns.add(new Column(field, method));
+            }
+            if (field.exportField) {
+                ExecutableElement method = methodMap.get(methodKey("get" + suffix, 0));
+                if (method == null) {
+                    messager.printMessage(Diagnostic.Kind.NOTE, type.getQualifiedName() + "类" + field.name
+                            + "属性无getter方法，不生成映射器，运行时使用反射解析", field.element);
+                    return;
+                }
+                exportColumns.add(new Column(field, method));
+            }
+        }
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String mapperName = mapperSimpleName(type);
+        String qualifiedMapperName = packageName.isEmpty() ? mapperName : packageName + "." + mapperName;
+        String source = render(type, packageName, mapperName, constructor, importColumns, exportColumns);
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedMapperName, type);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source);
+            }
+            mappers.add(qualifiedMapperName);
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "生成" + qualifiedMapperName + "失败：" + e.getMessage(), type);
+        }
+    }
+
+    private static String methodKey(String name, int parameterCount) {
+        return name + '/' + parameterCount;
+    }
+
+    private String render(TypeElement type, String packageName, String mapperName, boolean constructor,
+                          List<Column> importColumns, List<Column> exportColumns) {
+        String typeName = type.getQualifiedName().toString();
+        StringBuilder out = new StringBuilder(2048);
+        if (!packageName.isEmpty()) {
+            out.append("package ").append(packageName).append(";\n\n");
+        }
+        out.append("/**\n")
+                .append(" * ").append(typeName).append("的Excel行映射器，由IChenExcelProcessor生成，请勿修改\n")
+                .append(" */\n")
+                .append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})\n")
+                .append("public final class ").append(mapperName).append(" extends ").append(MAPPER)
+                .append('<').append(typeName).append("> {\n\n");
+
+        out.append("    public ").append(mapperName).append("() {\n")
+                .append("        super(").append(typeName).append(".class);\n");
+        for (Column column : importColumns) {
+            appendRegistration(out, "importColumn", column);
+        }
+        for (Column column : exportColumns) {
+            appendRegistration(out, "exportColumn", column);
+        }
+        out.append("    }\n\n");
+
+        out.append("    @Override\n")
+                .append("    public ").append(typeName).append(" newInstance() {\n");
+        if (constructor) {
+            out.append("        return new ").append(typeName).append("();\n");
+        } else {
+            out.append("        throw new IllegalStateException(").append(literal(typeName + "类无公共的无参构造方法"))
+                    .append(");\n");
+        }
+        out.append("    }\n\n");
+
+        out.append("    @Override\n")
+                .append("    public void set(").append(typeName).append(" target, int column, Object value) {\n")
+                .append("        switch (column) {\n");
+        for (int i = 0; i < importColumns.size(); i++) {
+            Column column = importColumns.get(i);
+            TypeMirror parameter = column.method.getParameters().get(0).asType();
+            out.append("            case ").append(i).append(":\n")
+                    .append("                target.").append(column.method.getSimpleName())
+                    .append("((").append(typeName(boxed(parameter))).append(") value);\n")
+                    .append("                return;\n");
+        }
+        out.append("            default:\n")
+                .append("                throw new IndexOutOfBoundsException(String.valueOf(column));\n")
+                .append("        }\n")
+                .append("    }\n\n");
+
+        out.append("    @Override\n")
+                .append("    public Object get(").append(typeName).append(" target, int column) {\n")
+                .append("        switch (column) {\n");
+        for (int i = 0; i < exportColumns.size(); i++) {
+            Column column = exportColumns.get(i);
+            out.append("            case ").append(i).append(":\n")
+                    .append("                return target.").append(column.method.getSimpleName()).append("();\n");
+        }
+        out.append("            default:\n")
+                .append("                throw new IndexOutOfBoundsException(String.valueOf(column));\n")
+                .append("        }\n")
+                .append("    }\n")
+                .append("}\n");
+        return out.toString();
+    }
+
+    private void appendRegistration(StringBuilder out, String method, Column column) {
+        out.append("        ").append(method).append('(')
+                .append(literal(column.field.name)).append(", ")
+                .append(literal(column.field.title)).append(", ")
+                .append(literal(column.field.format)).append(", ")
+                .append(typeName(column.field.element.asType())).append(".class);\n");
+    }
+
+    /**
+     * 合并已有的services文件后写入本次生成的映射器，增量编译时保留未重新生成的映射器
+     */
+    private void writeServiceFile() {
+        if (mappers.isEmpty()) {
+            return;
+        }
+        Filer filer = processingEnv.getFiler();
+        Set<String> services = new TreeSet<>();
+        try {
+            FileObject existing = filer.getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (!line.isEmpty() && !line.startsWith("#")) {
+                        services.add(line);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // 首次编译时文件不存在
+        }
+        services.addAll(mappers);
+        try {
+            FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (String service : services) {
+                    writer.write(service);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "写入" + SERVICE_FILE + "失败：" + e.getMessage());
+        }
+    }
+
+    private static AnnotationMirror findAnnotation(Element element) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement annotation = (TypeElement) mirror.getAnnotationType().asElement();
+            if (annotation.getQualifiedName().contentEquals(ANNOTATION)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 嵌套类的映射器名称用下划线连接外部类名，如Outer_Inner_ExcelRowMapper
+     */
+    private static String mapperSimpleName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        for (Element element = type.getEnclosingElement(); element instanceof TypeElement;
+             element = element.getEnclosingElement()) {
+            name.insert(0, '_').insert(0, element.getSimpleName());
+        }
+        return name.append(MAPPER_SUFFIX).toString();
+    }
+
+    private TypeMirror boxed(TypeMirror type) {
+        Types types = processingEnv.getTypeUtils();
+        return type.getKind().isPrimitive() ? types.boxedClass((PrimitiveType) type).asType() : type;
+    }
+
+    /**
+     * 擦除泛型和类型注解后的源码类型名
+     */
+    private String typeName(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case CHAR:
+            case FLOAT:
+            case DOUBLE:
+                return type.getKind().name().toLowerCase();
+            case ARRAY:
+                return typeName(((ArrayType) type).getComponentType()) + "[]";
+            case DECLARED:
+                return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+            case TYPEVAR:
+                return typeName(processingEnv.getTypeUtils().erasure(type));
+            default:
+                return "java.lang.Object";
+        }
+    }
+
+    /**
+     * 转为Java字符串字面量，非ASCII字符转义，生成的源码与编译编码无关
+     */
+    private static String literal(String value) {
+        StringBuilder out = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        return out.append('"').toString();
+    }
+
+    /**
+     * 注解属性值，未指定的属性取默认值
+     */
+    private static final class FieldInfo {
+        final VariableElement element;
+        final String name;
+        final String title;
+        final String format;
+        final boolean importField;
+        final boolean exportField;
+        final int order;
+
+        FieldInfo(VariableElement element, AnnotationMirror mirror) {
+            this.element = element;
+            this.name = element.getSimpleName().toString();
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                    : withDefaults(mirror).entrySet()) {
+                values.put(entry.getKey().getSimpleName().toString(), entry.getValue().getValue());
+            }
+            this.title = (String) values.getOrDefault("value", "");
+            this.format = (String) values.getOrDefault("format", "");
+            this.importField = (Boolean) values.getOrDefault("importField", Boolean.TRUE);
+            this.exportField = (Boolean) values.getOrDefault("exportField", Boolean.TRUE);
+            this.order = (Integer) values.getOrDefault("order", 0);
+        }
+
+        private static Map<ExecutableElement, AnnotationValue> withDefaults(AnnotationMirror mirror) {
+            Map<ExecutableElement, AnnotationValue> values = new LinkedHashMap<>();
+            TypeElement annotation = (TypeElement) mirror.getAnnotationType().asElement();
+            for (ExecutableElement method : ElementFilter.methodsIn(annotation.getEnclosedElements())) {
+                if (method.getDefaultValue() != null) {
+                    values.put(method, method.getDefaultValue());
+                }
+            }
+            values.putAll(mirror.getElementValues());
+            return values;
+        }
+    }
+
+    private static final class Column {
+        final FieldInfo field;
+        final ExecutableElement method;
+
+        Column(FieldInfo field, ExecutableElement method) {
+            this.field = field;
+            this.method = method;
+        }
+    }
+}
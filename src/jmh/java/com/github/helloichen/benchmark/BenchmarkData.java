@@ -0,0 +1,179 @@
+package com.github.helloichen.benchmark;
+
+import com.github.helloichen.excel.metadata.ExcelClassMeta;
+import com.github.helloichen.excel.metadata.ExcelColumn;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试数据，固定随机种子，每次运行生成相同的数据
+ */
+public final class BenchmarkData {
+
+    /**
+     * 数据形状
+     */
+    public enum Shape {
+        /**
+         * 6列
+         */
+        NARROW(NarrowRow.class),
+        /**
+         * 40列
+         */
+        WIDE(WideRow.class);
+
+        private final Class<?> type;
+
+        Shape(Class<?> type) {
+            this.type = type;
+        }
+
+        public Class<?> getType() {
+            return type;
+        }
+    }
+
+    private static final long SEED = 20210405L;
+    private static final long BASE_TIME = 1617552000000L;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * 生成导出数据
+     *
+     * @param shape 数据形状
+     * @param rows  行数
+     * @return 对象列表
+     */
+    public static List<Object> rows(Shape shape, int rows) throws ReflectiveOperationException {
+        Random random = new Random(SEED);
+        List<Field> fields = new ArrayList<>();
+        for (ExcelColumn column : ExcelClassMeta.of(shape.getType()).getExportColumns()) {
+            Field field = shape.getType().getDeclaredField(column.getName());
+            field.setAccessible(true);
+            fields.add(field);
+        }
+        List<Object> list = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Object row = shape.getType().getDeclaredConstructor().newInstance();
+            for (Field field : fields) {
+                field.set(row, value(field.getType(), i, random));
+            }
+            list.add(row);
+        }
+        return list;
+    }
+
+    /**
+     * 生成导入用的文件，单元格按类型写入，时间使用日期格式
+     *
+     * @param shape 数据形状
+     * @param rows  行数
+     * @return 临时文件，退出时删除
+     */
+    public static File xlsx(Shape shape, int rows) throws IOException, ReflectiveOperationException {
+        File file = File.createTempFile("ichen-poi-" + shape.name().toLowerCase() + "-" + rows + "-", ".xlsx");
+        file.deleteOnExit();
+        try (OutputStream out = new FileOutputStream(file)) {
+            writeTyped(shape, rows, out);
+        }
+        return file;
+    }
+
+    private static void writeTyped(Shape shape, int rows, OutputStream out)
+            throws IOException, ReflectiveOperationException {
+        ExcelColumn[] columns = ExcelClassMeta.of(shape.getType()).getExportColumns();
+        SXSSFWorkbook workbook = new SXSSFWorkbook(100);
+        try {
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+            Sheet sheet = workbook.createSheet();
+            Row header = sheet.createRow(0);
+            for (ExcelColumn column : columns) {
+                header.createCell(column.getIndex()).setCellValue(column.getTitle());
+            }
+            Random random = new Random(SEED);
+            for (int i = 0; i < rows; i++) {
+                Row row = sheet.createRow(i + 1);
+                for (ExcelColumn column : columns) {
+                    Cell cell = row.createCell(column.getIndex());
+                    Object value = value(column.getType(), i, random);
+                    if (value instanceof Number) {
+                        cell.setCellValue(((Number) value).doubleValue());
+                    } else if (value instanceof Date) {
+                        cell.setCellValue((Date) value);
+                        cell.setCellStyle(dateStyle);
+                    } else if (value instanceof Boolean) {
+                        cell.setCellValue((Boolean) value);
+                    } else {
+                        cell.setCellValue(String.valueOf(value));
+                    }
+                }
+            }
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    /**
+     * 生成时间字符串，混合常见的几种格式
+     *
+     * @param rows 行数
+     * @return 时间字符串
+     */
+    public static String[] dateStrings(int rows) {
+        Random random = new Random(SEED);
+        String[] patterns = {"%1$tY-%1$tm-%1$td %1$tH:%1$tM:%1$tS", "%1$tY%1$tm%1$td", "%1$tY-%1$tm-%1$td",
+                "%1$tY%1$tm%1$td%1$tH%1$tM%1$tS"};
+        String[] values = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            Date date = new Date(BASE_TIME + random.nextInt(Integer.MAX_VALUE) * 1000L);
+            values[i] = String.format(patterns[i % patterns.length], date);
+        }
+        return values;
+    }
+
+    private static Object value(Class<?> type, int i, Random random) {
+        if (type == String.class) {
+            // 约1/4的文本重复，接近真实数据中的枚举值、地区名等
+            return (i & 3) == 0 ? "类别" + random.nextInt(32) : "文本" + Long.toString(random.nextLong(), 36);
+        }
+        if (type == Integer.class) {
+            return random.nextInt(100000);
+        }
+        if (type == Long.class) {
+            return (long) i;
+        }
+        if (type == Double.class) {
+            return random.nextDouble() * 1000;
+        }
+        if (type == BigDecimal.class) {
+            return BigDecimal.valueOf(random.nextInt(10000000), 2);
+        }
+        if (type == Date.class) {
+            return new Date(BASE_TIME + random.nextInt(Integer.MAX_VALUE) * 1000L);
+        }
+        if (type == Boolean.class) {
+            return random.nextBoolean();
+        }
+        throw new IllegalArgumentException("不支持的类型" + type);
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.helloichen.benchmark;
+
+import com.github.helloichen.util.DateUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DateUtils时间转换基准，每次操作转换rows个时间字符串
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DateUtilsBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    private String[] dates;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dates = BenchmarkData.dateStrings(rows);
+    }
+
+    @Benchmark
+    public void string2Date(Blackhole blackhole) {
+        for (String date : dates) {
+            blackhole.consume(DateUtils.string2Date(date, "yyyy-MM-dd HH:mm:ss"));
+        }
+    }
+
+    @Benchmark
+    public void formatDate(Blackhole blackhole) {
+        for (String date : dates) {
+            blackhole.consume(DateUtils.formatDate(date, "yyyy/MM/dd HH:mm"));
+        }
+    }
+}
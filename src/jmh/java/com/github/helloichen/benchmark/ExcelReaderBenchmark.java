@@ -0,0 +1,87 @@
+package com.github.helloichen.benchmark;
+
+import com.github.helloichen.excel.ExcelColumnBatch;
+import com.github.helloichen.excel.ExcelReadOptions;
+import com.github.helloichen.excel.ExcelReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ExcelReader导入基准，每次操作解析一个完整文件
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class ExcelReaderBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"NARROW", "WIDE"})
+    private BenchmarkData.Shape shape;
+
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        file = BenchmarkData.xlsx(shape, rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * 流式解析，逐行回调
+     */
+    @Benchmark
+    public void streaming(Blackhole blackhole) throws Exception {
+        ExcelReader.read(file, shape.getType(), blackhole::consume);
+    }
+
+    /**
+     * 流式解析，并行映射
+     */
+    @Benchmark
+    public List<?> parallel() throws Exception {
+        return ExcelReader.read(file, shape.getType(), ExcelReadOptions.parallel());
+    }
+
+    /**
+     * 按列读取，不为每一行创建对象
+     */
+    @Benchmark
+    public ExcelColumnBatch columnar() throws Exception {
+        return ExcelReader.readColumns(file, shape.getType());
+    }
+
+    /**
+     * 构建整个工作簿后解析，100万行的宽表会超出堆大小，运行时可以用-p rows=10000,100000排除
+     */
+    @Benchmark
+    public List<?> workbook() throws Exception {
+        return ExcelReader.read(file, shape.getType());
+    }
+}
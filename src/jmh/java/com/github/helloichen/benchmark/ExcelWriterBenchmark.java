@@ -0,0 +1,70 @@
+package com.github.helloichen.benchmark;
+
+import com.github.helloichen.excel.ExcelWriteOptions;
+import com.github.helloichen.excel.ExcelWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ExcelWriter导出基准，每次操作把全部数据导出到内存
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class ExcelWriterBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"NARROW", "WIDE"})
+    private BenchmarkData.Shape shape;
+
+    private List<Object> data;
+    private ByteArrayOutputStream out;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        data = BenchmarkData.rows(shape, rows);
+        out = new ByteArrayOutputStream(rows * 64);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetOutput() {
+        out.reset();
+    }
+
+    /**
+     * 流式导出
+     */
+    @Benchmark
+    public int streaming() throws Exception {
+        ExcelWriter.write(out, data, shape.getType(), ExcelWriteOptions.streaming());
+        return out.size();
+    }
+
+    /**
+     * 流式导出，并行压缩
+     */
+    @Benchmark
+    public int streamingParallelCompression() throws Exception {
+        ExcelWriter.write(out, data, shape.getType(), ExcelWriteOptions.streaming().setParallelCompression(true));
+        return out.size();
+    }
+}
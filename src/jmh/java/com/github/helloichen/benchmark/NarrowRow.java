@@ -0,0 +1,26 @@
+package com.github.helloichen.benchmark;
+
+import com.github.helloichen.annotation.IChenExcelField;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * 窄表：常见的订单类导入，列少、类型混合
+ */
+@Data
+public class NarrowRow {
+    @IChenExcelField("编号")
+    private Long id;
+    @IChenExcelField("名称")
+    private String name;
+    @IChenExcelField("数量")
+    private Integer quantity;
+    @IChenExcelField("金额")
+    private BigDecimal amount;
+    @IChenExcelField("创建时间")
+    private Date createTime;
+    @IChenExcelField("启用")
+    private Boolean enabled;
+}
@@ -0,0 +1,94 @@
+package com.github.helloichen.benchmark;
+
+import com.github.helloichen.annotation.IChenExcelField;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * 宽表：40列，文本、数字、金额和时间交替出现
+ */
+@Data
+public class WideRow {
+    @IChenExcelField("文本1")
+    private String f00;
+    @IChenExcelField("整数1")
+    private Integer f01;
+    @IChenExcelField("长整数1")
+    private Long f02;
+    @IChenExcelField("小数1")
+    private Double f03;
+    @IChenExcelField("金额1")
+    private BigDecimal f04;
+    @IChenExcelField("时间1")
+    private Date f05;
+    @IChenExcelField("文本2")
+    private String f06;
+    @IChenExcelField("整数2")
+    private Integer f07;
+    @IChenExcelField("长整数2")
+    private Long f08;
+    @IChenExcelField("小数2")
+    private Double f09;
+    @IChenExcelField("金额2")
+    private BigDecimal f10;
+    @IChenExcelField("时间2")
+    private Date f11;
+    @IChenExcelField("文本3")
+    private String f12;
+    @IChenExcelField("整数3")
+    private Integer f13;
+    @IChenExcelField("长整数3")
+    private Long f14;
+    @IChenExcelField("小数3")
+    private Double f15;
+    @IChenExcelField("金额3")
+    private BigDecimal f16;
+    @IChenExcelField("时间3")
+    private Date f17;
+    @IChenExcelField("文本4")
+    private String f18;
+    @IChenExcelField("整数4")
+    private Integer f19;
+    @IChenExcelField("长整数4")
+    private Long f20;
+    @IChenExcelField("小数4")
+    private Double f21;
+    @IChenExcelField("金额4")
+    private BigDecimal f22;
+    @IChenExcelField("时间4")
+    private Date f23;
+    @IChenExcelField("文本5")
+    private String f24;
+    @IChenExcelField("整数5")
+    private Integer f25;
+    @IChenExcelField("长整数5")
+    private Long f26;
+    @IChenExcelField("小数5")
+    private Double f27;
+    @IChenExcelField("金额5")
+    private BigDecimal f28;
+    @IChenExcelField("时间5")
+    private Date f29;
+    @IChenExcelField("文本6")
+    private String f30;
+    @IChenExcelField("整数6")
+    private Integer f31;
+    @IChenExcelField("长整数6")
+    private Long f32;
+    @IChenExcelField("小数6")
+    private Double f33;
+    @IChenExcelField("金额6")
+    private BigDecimal f34;
+    @IChenExcelField("时间6")
+    private Date f35;
+    @IChenExcelField("文本7")
+    private String f36;
+    @IChenExcelField("整数7")
+    private Integer f37;
+    @IChenExcelField("长整数7")
+    private Long f38;
+    @IChenExcelField("小数7")
+    private Double f39;
+}
@@ -0,0 +1,47 @@
+package com.github.helloichen.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 导入校验的约束，与{@code @IChenExcelField}一起声明在属性上<br>
+ * 仅在{@code ExcelReader.validate}校验导入时生效，普通导入不检查
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface IChenExcelConstraint {
+    /**
+     * 是否必填，空单元格和只有空白字符的单元格视为未填
+     */
+    boolean required() default false;
+
+    /**
+     * 数字的最小值(包含)，适用于数字类型的属性
+     */
+    double min() default Double.NEGATIVE_INFINITY;
+
+    /**
+     * 数字的最大值(包含)，适用于数字类型的属性
+     */
+    double max() default Double.POSITIVE_INFINITY;
+
+    /**
+     * 单元格文本需要完整匹配的正则表达式，为空时不检查
+     */
+    String pattern() default "";
+
+    /**
+     * 单元格文本的最小长度
+     */
+    int minLength() default 0;
+
+    /**
+     * 单元格文本的最大长度
+     */
+    int maxLength() default Integer.MAX_VALUE;
+
+    /**
+     * 约束不满足时的错误原因，为空时使用默认描述。转换失败(如格式不正确)时不使用
+     */
+    String message() default "";
+}
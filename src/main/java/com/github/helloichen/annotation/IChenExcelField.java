@@ -26,7 +26,14 @@ public @interface IChenExcelField {
     boolean exportField() default true;
 
     /**
-     * todo 导出时字段顺序 待开发。。。
+     * 字段顺序，数值小的在前，相同时按声明顺序<br>
+     * 导出时决定列的顺序；导入时按标题匹配列，表头中找不到标题的字段按该顺序对应的列位置读取
      */
     int order() default 0;
+
+    /**
+     * 导出时的单元格格式，如yyyy-MM-dd、#,##0.00，为空时时间类型使用yyyy-MM-dd HH:mm:ss(LocalDate为yyyy-MM-dd)，
+     * 其余类型使用常规格式
+     */
+    String format() default "";
 }
@@ -0,0 +1,374 @@
+package com.github.helloichen.excel;
+
+import com.alibaba.fastjson.JSON;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于AsyncContext和WriteListener的异步导出<br>
+ * 导出线程把工作簿写入一个有界的字节块队列，容器线程在输出流可写时从队列取出写给客户端，
+ * 队列满时导出线程等待，客户端慢不会占用请求线程，导出线程也不会无限制地占用内存。<br>
+ * 已经写出部分内容后导出失败时，不能再正常结束响应(客户端会收到一个被截断的文件)，
+ * 而是在容器线程的onWritePossible中抛出异常，由容器按写出失败中止连接；
+ * 此时没有待触发的onWritePossible时不结束请求，由容器在异步超时后按错误处理中止连接
+ */
+@Slf4j
+class AsyncExcelExport implements WriteListener, AsyncListener {
+
+    /**
+     * 每个字节块的大小
+     */
+    private static final int CHUNK_SIZE = 32 * 1024;
+    /**
+     * 队列中最多缓存的字节块数
+     */
+    private static final int MAX_PENDING_CHUNKS = 16;
+    private static final byte[] END = new byte[0];
+    /**
+     * 已写出部分内容后导出失败，只能由容器线程处理
+     */
+    private static final byte[] ABORT = new byte[0];
+
+    /**
+     * 导出任务
+     */
+    interface ExportTask {
+        /**
+         * 把工作簿写入输出流
+         *
+         * @param outputStream 输出流
+         * @throws Exception 导出失败
+         */
+        void write(OutputStream outputStream) throws Exception;
+    }
+
+    private final HttpServletRequest request;
+    private final HttpServletResponse response;
+    private final ExcelWriteOptions options;
+    private final ExecutorService executor;
+    private final ExportTask task;
+    /**
+     * 设置下载响应头，在写出第一个字节块前调用，导出失败时可以改为返回失败信息
+     */
+    private final Runnable downloadHeaders;
+
+    private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(MAX_PENDING_CHUNKS);
+    private final AtomicBoolean completed = new AtomicBoolean();
+    private final Object writeLock = new Object();
+    private volatile boolean cancelled;
+    /**
+     * 已写出部分内容后导出失败，不能再正常结束响应
+     */
+    private volatile boolean failed;
+    private volatile Future<?> future;
+
+    private AsyncContext asyncContext;
+    private ServletOutputStream outputStream;
+
+    AsyncExcelExport(HttpServletRequest request, HttpServletResponse response, ExcelWriteOptions options,
+                     ExecutorService executor, ExportTask task, Runnable downloadHeaders) {
+        this.request = request;
+        this.response = response;
+        this.options = options;
+        this.executor = executor;
+        this.task = task;
+        this.downloadHeaders = downloadHeaders;
+    }
+
+    /**
+     * 开启异步并提交导出任务，在请求线程中调用，调用后立即返回
+     */
+    void start() {
+        asyncContext = request.startAsync();
+        asyncContext.setTimeout(options.getAsyncTimeout());
+        asyncContext.addListener(this);
+        try {
+            outputStream = response.getOutputStream();
+        } catch (IOException e) {
+            log.error("导出文件失败,错误信息：{}", e.getMessage());
+            complete();
+            return;
+        }
+        // 必须先设置WriteListener，之后才能调用isReady
+        outputStream.setWriteListener(this);
+        try {
+            future = executor.submit(this::produce);
+        } catch (RejectedExecutionException e) {
+            log.warn("导出线程池已满，拒绝导出");
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            complete();
+        }
+    }
+
+    /**
+     * 在导出线程中构建工作簿
+     */
+    private void produce() {
+        ChunkOutputStream chunkStream = new ChunkOutputStream();
+        try {
+            task.write(chunkStream);
+            chunkStream.flush();
+        } catch (Exception | Error e) {
+            if (cancelled) {
+                log.info("导出已取消");
+                return;
+            }
+            log.error("导出文件失败,错误信息：{}", e.getMessage());
+            if (chunkStream.produced > 0) {
+                // 响应已提交，不能发送结束块，交给容器线程中止连接
+                failed = true;
+                enqueue(ABORT);
+                return;
+            }
+            // 还没有写出任何字节，响应头也未设置，可以改为返回失败信息
+            response.setContentType("application/json");
+            response.setCharacterEncoding("utf-8");
+            Map<String, String> map = new HashMap<>(8);
+            map.put("code", "-1");
+            map.put("data", "下载文件失败");
+            map.put("message", "操作失败");
+            enqueue(JSON.toJSONString(map).getBytes(StandardCharsets.UTF_8));
+        }
+        if (!cancelled) {
+            enqueue(END);
+        }
+    }
+
+    /**
+     * 字节块放入队列，队列满时等待，取消后放弃
+     */
+    private void enqueue(byte[] chunk) {
+        try {
+            while (!cancelled) {
+                if (chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                    drain(false);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 在输出流可写时把队列中的字节块写给客户端，容器线程和导出线程都会调用
+     *
+     * @param callback 是否在容器的onWritePossible中调用
+     * @return 是否需要中止连接，只在容器线程中返回true
+     */
+    private boolean drain(boolean callback) {
+        synchronized (writeLock) {
+            try {
+                while (!cancelled && outputStream.isReady()) {
+                    byte[] chunk = chunks.peek();
+                    if (chunk == null) {
+                        return false;
+                    }
+                    if (chunk == ABORT) {
+                        // 导出线程无法让容器中止连接，留给下一次onWritePossible或异步超时处理
+                        if (!callback) {
+                            return false;
+                        }
+                        cancelled = true;
+                        chunks.clear();
+                        return true;
+                    }
+                    chunks.poll();
+                    if (chunk == END) {
+                        complete();
+                        return false;
+                    }
+                    outputStream.write(chunk);
+                }
+            } catch (IOException | IllegalStateException e) {
+                cancel(e);
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public void onWritePossible() throws IOException {
+        if (drain(true)) {
+            // 由容器按写出失败处理，已提交的响应直接中止连接，客户端不会收到完整的响应
+            throw new IOException("导出文件失败，已写出的内容不完整");
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        if (failed) {
+            // 容器正在中止连接，由AsyncListener.onError结束请求
+            return;
+        }
+        // 客户端断开等写出错误
+        cancel(t);
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        if (failed) {
+            // 不结束请求，容器按超时错误处理，已提交的响应直接中止连接
+            log.warn("导出失败，异步超时后中止连接");
+            cancel(null, false);
+            return;
+        }
+        log.warn("导出超时，已取消");
+        cancel(null);
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        cancel(event.getThrowable());
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        // 请求结束，确保导出线程退出
+        if (completed.compareAndSet(false, true)) {
+            cancel(null, false);
+        }
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+        // 不会再次开启异步
+    }
+
+    /**
+     * 取消导出并结束请求
+     */
+    private void cancel(Throwable cause) {
+        cancel(cause, true);
+    }
+
+    /**
+     * 取消导出
+     *
+     * @param complete 是否结束请求，导出失败后需要容器中止连接时不结束
+     */
+    private void cancel(Throwable cause, boolean complete) {
+        if (!cancelled) {
+            cancelled = true;
+            if (cause != null) {
+                log.warn("导出已取消：{}", cause.getMessage());
+            }
+            Future<?> running = future;
+            if (running != null) {
+                running.cancel(true);
+            }
+            chunks.clear();
+        }
+        if (complete) {
+            complete();
+        }
+    }
+
+    private void complete() {
+        if (completed.compareAndSet(false, true)) {
+            asyncContext.complete();
+        }
+    }
+
+    /**
+     * 默认的导出线程池，线程数与CPU核数相同，等待队列有界
+     */
+    static ExecutorService defaultExecutor() {
+        return DefaultExecutorHolder.EXECUTOR;
+    }
+
+    private static class DefaultExecutorHolder {
+        private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+        private static final ExecutorService EXECUTOR;
+
+        static {
+            int threads = Runtime.getRuntime().availableProcessors();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(threads * 16), runnable -> {
+                Thread thread = new Thread(runnable, "ichen-excel-export-" + THREAD_NUMBER.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+            EXECUTOR = executor;
+        }
+    }
+
+    /**
+     * 把写入的字节切分为固定大小的块放入队列
+     */
+    private class ChunkOutputStream extends OutputStream {
+        private byte[] buffer = new byte[CHUNK_SIZE];
+        private int count;
+        private long produced;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                flushChunk();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    flushChunk();
+                }
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (count > 0) {
+                flushChunk();
+            }
+        }
+
+        private void flushChunk() throws IOException {
+            if (cancelled) {
+                throw new InterruptedIOException("导出已取消");
+            }
+            if (produced == 0) {
+                downloadHeaders.run();
+            }
+            byte[] chunk = buffer.length == count ? buffer : Arrays.copyOf(buffer, count);
+            produced += count;
+            enqueue(chunk);
+            if (cancelled) {
+                throw new InterruptedIOException("导出已取消");
+            }
+            buffer = new byte[CHUNK_SIZE];
+            count = 0;
+        }
+    }
+}
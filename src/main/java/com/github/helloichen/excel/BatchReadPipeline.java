@@ -0,0 +1,212 @@
+package com.github.helloichen.excel;
+
+import com.github.helloichen.excel.metrics.ExcelTrace;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * 批量读取的生产者/消费者流水线<br>
+ * 调用线程流式解析Excel，每满一批就放入有界队列，由消费线程交给consumer处理(如批量入库)，
+ * 解析和处理同时进行。队列满时解析线程等待；任何一方失败时另一方尽快停止，异常在调用线程抛出
+ */
+@Slf4j
+class BatchReadPipeline<T> {
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+    private static final long POLL_MILLIS = 100L;
+
+    private final int batchSize;
+    private final Consumer<List<T>> consumer;
+    private final BlockingQueue<List<T>> queue;
+    private final Thread[] workers;
+    /**
+     * 队列中的结束标记，每个消费线程取到一个后退出
+     */
+    private final List<T> end = new ArrayList<>(0);
+    /**
+     * 第一个处理失败的异常
+     */
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean aborted;
+    private List<T> batch;
+
+    private BatchReadPipeline(int batchSize, Consumer<List<T>> consumer, ExcelReadOptions options) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize必须大于0");
+        }
+        this.batchSize = batchSize;
+        this.consumer = consumer;
+        this.queue = new ArrayBlockingQueue<>(Math.max(options.getBatchQueueSize(), 1));
+        this.workers = new Thread[Math.max(options.getConsumerThreads(), 1)];
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    /**
+     * 逐行产生对象的流式解析
+     */
+    interface RowSource<T> {
+        /**
+         * 解析Excel，每一行对象交给consumer
+         *
+         * @param consumer 每一行对象的处理逻辑
+         * @throws Exception 解析失败
+         */
+        void read(Consumer<T> consumer) throws Exception;
+    }
+
+    /**
+     * 流式解析并分批处理
+     *
+     * @param source    流式解析
+     * @param batchSize 每批的行数
+     * @param consumer  每一批对象的处理逻辑，可能在多个线程中同时调用
+     * @param options   导入配置
+     * @param trace     埋点
+     */
+    static <T> void read(RowSource<T> source, int batchSize, Consumer<List<T>> consumer,
+                         ExcelReadOptions options, ExcelTrace trace) throws Exception {
+        BatchReadPipeline<T> pipeline = new BatchReadPipeline<>(batchSize, consumer, options);
+        // 队列中的批次、每个处理线程正在处理的批次以及正在收集的批次
+        trace.bufferedRows((long) batchSize * (pipeline.queue.remainingCapacity() + pipeline.workers.length + 1));
+        pipeline.start();
+        try {
+            source.read(pipeline::add);
+            pipeline.finish();
+        } catch (Exception | Error e) {
+            pipeline.abort();
+            Throwable cause = pipeline.failure.get();
+            if (cause == null) {
+                throw e;
+            }
+            // 处理失败导致解析中止时，抛出处理时的异常
+            if (!(e instanceof PipelineAbortedException)) {
+                cause.addSuppressed(e);
+            }
+            throwFailure(cause);
+        }
+        Throwable cause = pipeline.failure.get();
+        if (cause != null) {
+            throwFailure(cause);
+        }
+    }
+
+    private void start() {
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Thread(this::consume, "ichen-excel-batch-" + THREAD_NUMBER.incrementAndGet());
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * 解析线程收集一行
+     */
+    private void add(T item) {
+        batch.add(item);
+        if (batch.size() >= batchSize) {
+            put(batch);
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    /**
+     * 放入队列，队列满时等待，处理失败时中止解析
+     */
+    private void put(List<T> items) {
+        try {
+            do {
+                if (failure.get() != null) {
+                    throw new PipelineAbortedException();
+                }
+            } while (!queue.offer(items, POLL_MILLIS, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("批量读取被中断", e);
+        }
+    }
+
+    /**
+     * 解析完成，提交最后一批并等待全部处理完成
+     */
+    private void finish() throws InterruptedException {
+        if (!batch.isEmpty()) {
+            put(batch);
+        }
+        for (int i = 0; i < workers.length; i++) {
+            put(end);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    /**
+     * 解析失败，通知消费线程停止并等待其退出，正在处理的批次会处理完
+     */
+    private void abort() {
+        aborted = true;
+        queue.clear();
+        boolean interrupted = false;
+        for (Thread worker : workers) {
+            while (worker.isAlive()) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 消费线程逻辑
+     */
+    private void consume() {
+        try {
+            while (!aborted && failure.get() == null) {
+                List<T> items = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (items == end) {
+                    return;
+                }
+                if (items != null) {
+                    consumer.accept(items);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        } catch (Throwable e) {
+            log.error("批量处理失败,错误信息：{}", e.getMessage());
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    private static void throwFailure(Throwable cause) throws Exception {
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        throw (Exception) cause;
+    }
+
+    /**
+     * 处理失败时用于中止解析
+     */
+    private static class PipelineAbortedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        PipelineAbortedException() {
+            super("批量处理失败，解析中止", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.github.helloichen.excel;
+
+import com.github.helloichen.excel.metadata.ExcelColumn;
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.VerticalAlignment;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFColor;
+import org.apache.poi.xssf.usermodel.extensions.XSSFCellBorder;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 工作簿级别的样式池<br>
+ * 字体和样式在工作簿中的数量有上限，并且每个样式都会写入styles.xml，
+ * 因此同一个工作簿中表头样式只创建一次，数据样式按单元格格式各创建一次，所有列和行共用
+ */
+class CellStylePool {
+
+    private static final String DATE_TIME_FORMAT = "yyyy-MM-dd HH:mm:ss";
+    private static final String DATE_FORMAT = "yyyy-MM-dd";
+
+    private final Workbook workbook;
+    private final DataFormat dataFormat;
+    private final Font dataFont;
+    private final XSSFCellStyle dataStyle;
+    private XSSFCellStyle titleStyle;
+    private XSSFCellStyle errorStyle;
+    /**
+     * 按单元格格式缓存的数据样式
+     */
+    private final Map<String, CellStyle> formatStyles = new HashMap<>(8);
+
+    CellStylePool(Workbook workbook) {
+        this.workbook = workbook;
+        this.dataFormat = workbook.createDataFormat();
+        this.dataFont = workbook.createFont();
+        dataFont.setFontName("simsun");
+        dataFont.setFontHeightInPoints((short) 14);
+        dataFont.setColor(IndexedColors.BLACK.index);
+        this.dataStyle = createDataStyle();
+    }
+
+    /**
+     * 表头样式
+     */
+    CellStyle titleStyle() {
+        if (titleStyle != null) {
+            return titleStyle;
+        }
+        Font titleFont = workbook.createFont();
+        //设置字体
+        titleFont.setFontName("黑体");
+        //设置粗体
+        titleFont.setBold(true);
+        //设置字号
+        titleFont.setFontHeightInPoints((short) 14);
+        //设置颜色
+        titleFont.setColor(IndexedColors.BLACK.index);
+        // XSSF与SXSSF创建的样式均为XSSFCellStyle
+        titleStyle = (XSSFCellStyle) workbook.createCellStyle();
+        //水平居中
+        titleStyle.setAlignment(HorizontalAlignment.CENTER);
+        //垂直居中
+        titleStyle.setVerticalAlignment(VerticalAlignment.CENTER);
+        //设置图案颜色
+        titleStyle.setFillForegroundColor(new XSSFColor(new java.awt.Color(255, 255, 0)));
+        //设置图案样式
+        titleStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        titleStyle.setFont(titleFont);
+        setBorder(titleStyle, new XSSFColor(new java.awt.Color(0, 0, 0)));
+        return titleStyle;
+    }
+
+    /**
+     * 常规格式的数据样式
+     */
+    CellStyle dataStyle() {
+        return dataStyle;
+    }
+
+    /**
+     * 错误报告中校验失败的单元格样式，红色背景
+     */
+    CellStyle errorStyle() {
+        if (errorStyle == null) {
+            errorStyle = createDataStyle();
+            errorStyle.setFillForegroundColor(new XSSFColor(new java.awt.Color(255, 199, 206)));
+            errorStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        }
+        return errorStyle;
+    }
+
+    /**
+     * 列的数据样式，指定了格式时使用该格式，否则时间类型使用默认的时间格式
+     *
+     * @param column 导出列
+     * @return 数据样式
+     */
+    CellStyle dataStyle(ExcelColumn column) {
+        String format = format(column);
+        if (format == null) {
+            return dataStyle;
+        }
+        return formatStyles.computeIfAbsent(format, key -> {
+            XSSFCellStyle style = createDataStyle();
+            style.setDataFormat(dataFormat.getFormat(key));
+            return style;
+        });
+    }
+
+    /**
+     * 列的单元格格式，未指定时时间类型使用默认的时间格式
+     *
+     * @param column 导出列
+     * @return 单元格格式，常规格式返回null
+     */
+    static String format(ExcelColumn column) {
+        String format = column.getFormat();
+        return format.isEmpty() ? defaultFormat(column.getType()) : format;
+    }
+
+    private static String defaultFormat(Class<?> type) {
+        if (type == Date.class || type == Timestamp.class || type == LocalDateTime.class) {
+            return DATE_TIME_FORMAT;
+        }
+        if (type == LocalDate.class) {
+            return DATE_FORMAT;
+        }
+        return null;
+    }
+
+    private XSSFCellStyle createDataStyle() {
+        XSSFCellStyle style = (XSSFCellStyle) workbook.createCellStyle();
+        style.setAlignment(HorizontalAlignment.CENTER);
+        style.setVerticalAlignment(VerticalAlignment.CENTER);
+        style.setFont(dataFont);
+        setBorder(style, new XSSFColor(new java.awt.Color(0, 0, 0)));
+        return style;
+    }
+
+    /**
+     * 设置边框
+     *
+     * @param style XSSFCellStyle
+     * @param color XSSFColor
+     */
+    private static void setBorder(XSSFCellStyle style, XSSFColor color) {
+        style.setBorderTop(BorderStyle.THIN);
+        style.setBorderLeft(BorderStyle.THIN);
+        style.setBorderRight(BorderStyle.THIN);
+        style.setBorderBottom(BorderStyle.THIN);
+
+        style.setBorderColor(XSSFCellBorder.BorderSide.TOP, color);
+        style.setBorderColor(XSSFCellBorder.BorderSide.LEFT, color);
+        style.setBorderColor(XSSFCellBorder.BorderSide.RIGHT, color);
+        style.setBorderColor(XSSFCellBorder.BorderSide.BOTTOM, color);
+    }
+}
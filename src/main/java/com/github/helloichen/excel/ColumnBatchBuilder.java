@@ -0,0 +1,146 @@
+package com.github.helloichen.excel;
+
+import com.github.helloichen.excel.convert.CellData;
+import com.github.helloichen.excel.metadata.ExcelColumn;
+import com.github.helloichen.excel.metadata.ExcelColumnSchema;
+import com.github.helloichen.excel.metrics.ExcelTrace;
+import com.github.helloichen.util.DateUtils;
+import org.apache.poi.ss.usermodel.CellType;
+
+/**
+ * 按列读取的行回调<br>
+ * 单元格的原始值直接追加到对应列的基本类型数组中，数字单元格不经过转换器和装箱；
+ * 文本形式的数字和时间按{@link com.github.helloichen.excel.convert.CellConverters}相同的规则解析。
+ * 与按对象读取一样跳过空行，转换失败时通知埋点并中止解析
+ */
+final class ColumnBatchBuilder implements XlsxSheetHandler.RowCallback {
+
+    private final ExcelColumn[] columns;
+    private final ExcelColumnSchema.Type[] types;
+    private final ExcelColumnBatch.Column[] batchColumns;
+    private final ExcelTrace trace;
+    private int rowCount;
+
+    ColumnBatchBuilder(ExcelColumnSchema schema, ExcelTrace trace) {
+        this.columns = schema.getColumns();
+        this.types = schema.getTypes();
+        this.trace = trace;
+        this.batchColumns = new ExcelColumnBatch.Column[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            batchColumns[i] = new ExcelColumnBatch.Column(columns[i].getName(), types[i]);
+        }
+    }
+
+    ExcelColumn[] getColumns() {
+        return columns;
+    }
+
+    @Override
+    public void onRow(int rowNum, CellData[] values) {
+        //谨防中间空一行
+        if (ExcelReader.isBlankRow(values)) {
+            return;
+        }
+        for (int i = 0; i < values.length; i++) {
+            try {
+                append(batchColumns[i], types[i], values[i]);
+            } catch (RuntimeException e) {
+                trace.conversionFailure(columns[i].getName(), e);
+                throw e;
+            }
+        }
+        rowCount++;
+    }
+
+    /**
+     * 读取完成，生成结果
+     */
+    ExcelColumnBatch build() {
+        for (ExcelColumnBatch.Column column : batchColumns) {
+            column.finish();
+        }
+        return new ExcelColumnBatch(batchColumns, rowCount);
+    }
+
+    private static void append(ExcelColumnBatch.Column column, ExcelColumnSchema.Type type, CellData cell) {
+        if (cell.isBlank()) {
+            column.appendNull();
+            return;
+        }
+        if (type == ExcelColumnSchema.Type.STRING) {
+            column.appendString(cell.getText());
+            return;
+        }
+        String text = null;
+        if (cell.getType() == CellType.STRING) {
+            text = cell.getStringValue().trim();
+            if (text.isEmpty()) {
+                column.appendNull();
+                return;
+            }
+        }
+        switch (type) {
+            case INT:
+                column.appendInt(text != null ? parseInt(text) : Math.toIntExact(integral(cell)));
+                break;
+            case LONG:
+                column.appendLong(text != null ? Long.parseLong(text) : integral(cell));
+                break;
+            case DOUBLE:
+                column.appendDouble(text != null ? Double.parseDouble(text) : numeric(cell));
+                break;
+            default:
+                column.appendLong(epochMillis(cell, text));
+        }
+    }
+
+    /**
+     * 文本形式的整数，布尔列导出的true/false按1/0
+     */
+    private static int parseInt(String text) {
+        if ("true".equalsIgnoreCase(text)) {
+            return 1;
+        }
+        if ("false".equalsIgnoreCase(text)) {
+            return 0;
+        }
+        return Integer.parseInt(text);
+    }
+
+    private static double numeric(CellData cell) {
+        if (cell.getType() == CellType.BOOLEAN) {
+            return cell.getBooleanValue() ? 1 : 0;
+        }
+        return cell.getNumericValue();
+    }
+
+    private static long integral(CellData cell) {
+        double value = numeric(cell);
+        long longValue = (long) value;
+        if (longValue != value) {
+            throw new NumberFormatException(cell.getText() + "不是整数");
+        }
+        return longValue;
+    }
+
+    /**
+     * 日期格式的单元格直接换算，数字和文本形式的时间(如20210405、2021-04-05 12:00:00)先解析为yyyyMMddHHmmss
+     */
+    private static long epochMillis(CellData cell, String text) {
+        if (cell.isDateFormatted()) {
+            return DateUtils.excelToEpochMillis(cell.getNumericValue());
+        }
+        long compact;
+        if (text != null) {
+            compact = DateUtils.parseCompact(text);
+        } else if (cell.getType() == CellType.NUMERIC) {
+            compact = DateUtils.parseCompact(integral(cell));
+        } else {
+            compact = DateUtils.INVALID;
+        }
+        if (compact == DateUtils.INVALID) {
+            throw new RuntimeException("时间格式转换失败");
+        }
+        return DateUtils.toEpochMillis(compact);
+    }
+}
@@ -0,0 +1,122 @@
+package com.github.helloichen.excel;
+
+import com.github.helloichen.annotation.IChenExcelConstraint;
+import com.github.helloichen.excel.convert.CellData;
+import com.github.helloichen.excel.metadata.ExcelColumn;
+
+import java.lang.reflect.Field;
+import java.util.regex.Pattern;
+
+/**
+ * 一个导入列的校验约束，由{@link IChenExcelConstraint}生成<br>
+ * 正则表达式预先编译，错误原因预先生成，校验时不再拼接字符串
+ */
+final class ColumnConstraint {
+
+    private final boolean required;
+    private final double min;
+    private final double max;
+    private final Pattern pattern;
+    private final int minLength;
+    private final int maxLength;
+    /**
+     * 是否有长度或正则约束
+     */
+    private final boolean checksText;
+    private final String requiredMessage;
+    private final String rangeMessage;
+    private final String patternMessage;
+    private final String lengthMessage;
+
+    private ColumnConstraint(IChenExcelConstraint constraint) {
+        this.required = constraint.required();
+        this.min = constraint.min();
+        this.max = constraint.max();
+        this.pattern = constraint.pattern().isEmpty() ? null : Pattern.compile(constraint.pattern());
+        this.minLength = constraint.minLength();
+        this.maxLength = constraint.maxLength();
+        String message = constraint.message();
+        this.requiredMessage = message.isEmpty() ? "不能为空" : message;
+        this.rangeMessage = message.isEmpty() ? bounds(min != Double.NEGATIVE_INFINITY, format(min),
+                max != Double.POSITIVE_INFINITY, format(max)) : message;
+        this.patternMessage = message.isEmpty() ? "格式不正确" : message;
+        this.lengthMessage = message.isEmpty() ? "长度" + bounds(minLength > 0, String.valueOf(minLength),
+                maxLength != Integer.MAX_VALUE, String.valueOf(maxLength)) : message;
+        this.checksText = pattern != null || minLength > 0 || maxLength != Integer.MAX_VALUE;
+    }
+
+    /**
+     * 读取每个导入列属性上的约束
+     *
+     * @param type    导入的类
+     * @param columns 导入列
+     * @return 按导入列下标存放的约束，没有约束的列为null
+     */
+    static ColumnConstraint[] of(Class<?> type, ExcelColumn[] columns) {
+        ColumnConstraint[] constraints = new ColumnConstraint[columns.length];
+        for (ExcelColumn column : columns) {
+            Field field;
+            try {
+                field = type.getDeclaredField(column.getName());
+            } catch (NoSuchFieldException e) {
+                continue;
+            }
+            IChenExcelConstraint constraint = field.getAnnotation(IChenExcelConstraint.class);
+            if (constraint != null) {
+                constraints[column.getIndex()] = new ColumnConstraint(constraint);
+            }
+        }
+        return constraints;
+    }
+
+    /**
+     * 空单元格的校验结果
+     *
+     * @return 错误原因，通过时为null
+     */
+    String checkBlank() {
+        return required ? requiredMessage : null;
+    }
+
+    /**
+     * 校验转换后的值，只有长度和正则约束需要把数字单元格转换为文本
+     *
+     * @param value 转换后的值，可以为null
+     * @param cell  单元格的值
+     * @return 错误原因，通过时为null
+     */
+    String check(Object value, CellData cell) {
+        if (value == null || value instanceof String && ((String) value).trim().isEmpty()) {
+            return checkBlank();
+        }
+        if (value instanceof Number) {
+            double number = ((Number) value).doubleValue();
+            if (number < min || number > max) {
+                return rangeMessage;
+            }
+        }
+        if (!checksText) {
+            return null;
+        }
+        String text = value instanceof String ? (String) value : cell.getText();
+        if (text.length() < minLength || text.length() > maxLength) {
+            return lengthMessage;
+        }
+        if (pattern != null && !pattern.matcher(text).matches()) {
+            return patternMessage;
+        }
+        return null;
+    }
+
+    private static String bounds(boolean hasMin, String min, boolean hasMax, String max) {
+        if (hasMin && hasMax) {
+            return "应在" + min + "到" + max + "之间";
+        }
+        return hasMin ? "不能小于" + min : "不能大于" + max;
+    }
+
+    private static String format(double value) {
+        long longValue = (long) value;
+        return longValue == value ? String.valueOf(longValue) : String.valueOf(value);
+    }
+}
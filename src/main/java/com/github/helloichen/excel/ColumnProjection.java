@@ -0,0 +1,117 @@
+package com.github.helloichen.excel;
+
+import com.github.helloichen.excel.metadata.ExcelColumn;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 工作表列与导入列的对应关系<br>
+ * 每个工作表根据标题行计算一次：导入列按{@code @IChenExcelField.value()}匹配标题，没有标题的导入列，
+ * 以及标题行一个标题都匹配不到时(如没有标题行的旧文件)，按{@code order()}排序后的位置读取。
+ * 没有对应导入列的工作表列在解析时直接跳过，不读取也不转换。
+ * 工作表列与导入列一一对应，DOM解析按导入列取单元格、事件解析按工作表列分发单元格，结果一致
+ */
+@Slf4j
+final class ColumnProjection {
+
+    private static final int UNMAPPED = -1;
+
+    /**
+     * 按工作表列下标存放对应的导入列下标
+     */
+    private final int[] columnBySheet;
+    /**
+     * 按导入列下标存放对应的工作表列下标
+     */
+    private final int[] sheetByColumn;
+
+    private ColumnProjection(int[] columnBySheet, int[] sheetByColumn) {
+        this.columnBySheet = columnBySheet;
+        this.sheetByColumn = sheetByColumn;
+    }
+
+    /**
+     * 根据标题行计算对应关系
+     *
+     * @param columns 导入列
+     * @param headers 按工作表列下标存放的标题，没有标题行时为空
+     * @return 对应关系
+     */
+    static ColumnProjection resolve(ExcelColumn[] columns, List<String> headers) {
+        // 相同标题可能出现多次，按出现顺序保存
+        Map<String, Deque<Integer>> headerIndex = new HashMap<>(headers.size() * 2);
+        for (int i = 0; i < headers.size(); i++) {
+            String header = headers.get(i);
+            if (header != null && !header.trim().isEmpty()) {
+                headerIndex.computeIfAbsent(header.trim(), key -> new ArrayDeque<>(1)).add(i);
+            }
+        }
+
+        int[] sheetByColumn = new int[columns.length];
+        boolean[] claimed = new boolean[Math.max(headers.size(), columns.length)];
+        boolean matched = false;
+        // 先按标题匹配，第k个该标题的导入列对应第k个该标题的工作表列，保证一列只对应一个导入列
+        for (ExcelColumn column : columns) {
+            Deque<Integer> sheetColumns = headerIndex.get(column.getTitle().trim());
+            Integer sheetColumn = sheetColumns == null ? null : sheetColumns.poll();
+            sheetByColumn[column.getIndex()] = sheetColumn == null ? UNMAPPED : sheetColumn;
+            if (sheetColumn != null) {
+                claimed[sheetColumn] = true;
+                matched = true;
+            }
+        }
+        // 匹配不到标题的列按位置读取，该位置已被其他列按标题占用时不读取
+        for (ExcelColumn column : columns) {
+            int index = column.getIndex();
+            if (sheetByColumn[index] != UNMAPPED) {
+                continue;
+            }
+            boolean positional = !matched || column.getTitle().trim().isEmpty();
+            if (!positional || claimed[index]) {
+                log.warn("表头中没有找到{}列，该列不导入", column.getTitle());
+                continue;
+            }
+            sheetByColumn[index] = index;
+            claimed[index] = true;
+        }
+
+        int width = 0;
+        for (int sheetColumn : sheetByColumn) {
+            width = Math.max(width, sheetColumn + 1);
+        }
+        int[] columnBySheet = new int[width];
+        Arrays.fill(columnBySheet, UNMAPPED);
+        for (int i = 0; i < sheetByColumn.length; i++) {
+            if (sheetByColumn[i] != UNMAPPED) {
+                columnBySheet[sheetByColumn[i]] = i;
+            }
+        }
+        return new ColumnProjection(columnBySheet, sheetByColumn);
+    }
+
+    /**
+     * 工作表列对应的导入列下标
+     *
+     * @param sheetColumn 工作表列下标
+     * @return 导入列下标，不需要读取时返回负数
+     */
+    int columnOf(int sheetColumn) {
+        return sheetColumn >= 0 && sheetColumn < columnBySheet.length ? columnBySheet[sheetColumn] : UNMAPPED;
+    }
+
+    /**
+     * 导入列对应的工作表列下标
+     *
+     * @param column 导入列下标
+     * @return 工作表列下标，该列不读取时返回负数
+     */
+    int sheetColumnOf(int column) {
+        return sheetByColumn[column];
+    }
+}
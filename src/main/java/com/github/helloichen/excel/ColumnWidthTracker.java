@@ -0,0 +1,209 @@
+package com.github.helloichen.excel;
+
+import com.github.helloichen.excel.metadata.ExcelColumn;
+import org.apache.poi.ss.usermodel.Sheet;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+
+/**
+ * 导出时增量计算列宽<br>
+ * 写入单元格时按字符数估算显示宽度(ASCII字符为1，中文等全角字符为2)，记录每列的最大值，
+ * 写完后一次性设置到工作表，不使用POI的autoSizeColumn逐行扫描和AWT字体渲染，流式导出也可以使用。
+ * 时间等有固定格式的列按格式长度计算，不逐个单元格估算。不是线程安全的，每个工作表写入器使用各自的实例
+ */
+final class ColumnWidthTracker {
+
+    /**
+     * 列宽上限，单位为1/256个字符
+     */
+    private static final int MAX_WIDTH = 255 * 256;
+    /**
+     * 导出使用14号字体，列宽按默认的11号字体计算
+     */
+    private static final double FONT_SCALE = 14 / 11.0;
+    /**
+     * 单元格两侧的留白，单位为字符
+     */
+    private static final int PADDING = 2;
+    /**
+     * 常规格式下小数最多显示的字符数
+     */
+    private static final int GENERAL_NUMBER_WIDTH = 11;
+
+    /**
+     * 每列的最大显示宽度，单位为字符
+     */
+    private final int[] widths;
+    /**
+     * 宽度固定的列，不需要逐个单元格估算
+     */
+    private final boolean[] fixed;
+    /**
+     * 数字格式的小数位数，常规格式为-1
+     */
+    private final int[] decimals;
+    private final long sampleRows;
+    private final int sampleRate;
+    private long rowCount;
+
+    ColumnWidthTracker(ExcelColumn[] columns, ExcelWriteOptions options) {
+        this.widths = new int[columns.length];
+        this.fixed = new boolean[columns.length];
+        this.decimals = new int[columns.length];
+        this.sampleRows = options.getAutoWidthSampleRows();
+        this.sampleRate = Math.max(options.getAutoWidthSampleRate(), 1);
+        for (ExcelColumn column : columns) {
+            int index = column.getIndex();
+            widths[index] = width(column.getTitle());
+            String format = CellStylePool.format(column);
+            decimals[index] = -1;
+            if (format == null) {
+                continue;
+            }
+            if (isTemporal(column.getType())) {
+                fixed[index] = true;
+                widths[index] = Math.max(widths[index], format.length());
+            } else {
+                int point = format.indexOf('.');
+                decimals[index] = point < 0 ? 0 : format.length() - point - 1;
+            }
+        }
+    }
+
+    /**
+     * 下一行是否参与计算，每行调用一次
+     */
+    boolean sampleRow() {
+        long row = rowCount++;
+        if (sampleRows > 0 && row >= sampleRows) {
+            return false;
+        }
+        return row % sampleRate == 0;
+    }
+
+    /**
+     * 记录单元格的显示宽度
+     *
+     * @param column 列下标
+     * @param value  属性值，不为null
+     */
+    void track(int column, Object value) {
+        if (fixed[column]) {
+            return;
+        }
+        int current = widths[column];
+        int width;
+        if (value instanceof String) {
+            String text = (String) value;
+            // 每个字符最多占2个宽度，不可能超过当前最大值时不需要逐个字符计算
+            if (text.length() * 2 <= current) {
+                return;
+            }
+            width = width(text);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short
+                || value instanceof Byte) {
+            width = numberWidth(digits(((Number) value).longValue()), 0, column);
+        } else if (value instanceof Double || value instanceof Float) {
+            width = doubleWidth(((Number) value).doubleValue(), column);
+        } else if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) value;
+            int integerDigits = Math.max(decimal.precision() - decimal.scale(), 1);
+            int unsigned = numberWidth(integerDigits, Math.max(decimal.scale(), 0), column);
+            width = decimal.signum() < 0 ? unsigned + 1 : unsigned;
+        } else if (value instanceof BigInteger) {
+            BigInteger integer = (BigInteger) value;
+            // 十进制位数约为二进制位数乘以log10(2)
+            int digits = (int) (integer.bitLength() * 0.30103) + 1;
+            width = numberWidth(integer.signum() < 0 ? digits + 1 : digits, 0, column);
+        } else if (value instanceof Boolean) {
+            width = 5;
+        } else if (value instanceof Enum) {
+            width = ((Enum<?>) value).name().length();
+        } else if (value instanceof Date || value instanceof TemporalAccessor) {
+            // 未登记格式的时间类型按默认格式的长度
+            width = 19;
+        } else {
+            width = width(value.toString());
+        }
+        if (width > current) {
+            widths[column] = width;
+        }
+    }
+
+    /**
+     * 把列宽设置到工作表
+     *
+     * @param sheet 工作表
+     */
+    void apply(Sheet sheet) {
+        for (int i = 0; i < widths.length; i++) {
+            long width = Math.round((widths[i] * FONT_SCALE + PADDING) * 256);
+            sheet.setColumnWidth(i, (int) Math.min(width, MAX_WIDTH));
+        }
+    }
+
+    private int doubleWidth(double value, int column) {
+        double abs = Math.abs(value);
+        int integerDigits = abs < 1 ? 1 : digits((long) Math.min(abs, Long.MAX_VALUE));
+        int sign = value < 0 ? 1 : 0;
+        if (decimals[column] >= 0) {
+            return numberWidth(integerDigits, 0, column) + sign;
+        }
+        if (abs == Math.rint(abs) && integerDigits <= GENERAL_NUMBER_WIDTH) {
+            return integerDigits + sign;
+        }
+        // 常规格式的小数最多显示11个字符
+        return GENERAL_NUMBER_WIDTH;
+    }
+
+    /**
+     * 数字的显示宽度，指定了格式时按格式的小数位数，千分位按每3位一个分隔符估算
+     */
+    private int numberWidth(int integerDigits, int scale, int column) {
+        int format = decimals[column];
+        if (format < 0) {
+            return scale > 0 ? integerDigits + scale + 1 : integerDigits;
+        }
+        int width = integerDigits + (integerDigits - 1) / 3;
+        return format > 0 ? width + format + 1 : width;
+    }
+
+    /**
+     * 整数的十进制位数，负数包含符号
+     */
+    private static int digits(long value) {
+        int digits = value < 0 ? 2 : 1;
+        long abs = value < 0 ? -(value / 10) : value / 10;
+        while (abs > 0) {
+            digits++;
+            abs /= 10;
+        }
+        return digits;
+    }
+
+    /**
+     * 文本的显示宽度，多行文本取最长的一行
+     */
+    private static int width(String text) {
+        int max = 0;
+        int line = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                max = Math.max(max, line);
+                line = 0;
+            } else {
+                // 韩文、中日文、全角符号等显示为两个字符宽
+                line += c < 0x1100 ? 1 : 2;
+            }
+        }
+        return Math.max(max, line);
+    }
+
+    private static boolean isTemporal(Class<?> type) {
+        return Date.class.isAssignableFrom(type) || TemporalAccessor.class.isAssignableFrom(type);
+    }
+}
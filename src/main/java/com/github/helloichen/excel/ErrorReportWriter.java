@@ -0,0 +1,129 @@
+package com.github.helloichen.excel;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * 把错误报告写出为标注了错误的Excel<br>
+ * 每一行为一个校验失败的行：导入列的原始文本，之后是所在工作表、行号和全部错误原因；
+ * 出错的单元格标红并添加批注说明原因。报告保留的明细有上限，流式写出
+ */
+@Slf4j
+final class ErrorReportWriter {
+
+    private static final String SHEET_NAME = "错误报告";
+    private static final int WINDOW_SIZE = 100;
+    private static final int VALUE_WIDTH = 20 * 256;
+    private static final int REASON_WIDTH = 60 * 256;
+
+    private ErrorReportWriter() {
+    }
+
+    /**
+     * 写出错误报告
+     *
+     * @param report       错误报告
+     * @param outputStream 输出流
+     */
+    static void write(ExcelErrorReport report, OutputStream outputStream) throws Exception {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(WINDOW_SIZE);
+        try {
+            CellStylePool stylePool = new CellStylePool(workbook);
+            CreationHelper helper = workbook.getCreationHelper();
+            Sheet sheet = workbook.createSheet(SHEET_NAME);
+            Drawing<?> drawing = sheet.createDrawingPatriarch();
+
+            List<String> titles = report.getTitles();
+            int sheetColumn = titles.size();
+            int rowColumn = sheetColumn + 1;
+            int reasonColumn = sheetColumn + 2;
+            writeTitles(sheet, titles, stylePool.titleStyle());
+            for (int i = 0; i < reasonColumn; i++) {
+                sheet.setColumnWidth(i, VALUE_WIDTH);
+            }
+            sheet.setColumnWidth(reasonColumn, REASON_WIDTH);
+
+            int rowNum = 1;
+            for (ExcelErrorReport.InvalidRow invalidRow : report.getInvalidRows()) {
+                Row row = sheet.createRow(rowNum);
+                List<String> values = invalidRow.getValues();
+                for (int i = 0; i < values.size(); i++) {
+                    Cell cell = row.createCell(i);
+                    cell.setCellValue(values.get(i));
+                    cell.setCellStyle(stylePool.dataStyle());
+                }
+                StringBuilder reasons = new StringBuilder();
+                for (ExcelCellError error : invalidRow.getErrors()) {
+                    Cell cell = row.getCell(error.getColumn());
+                    cell.setCellStyle(stylePool.errorStyle());
+                    cell.setCellComment(comment(drawing, helper, rowNum, error.getColumn(), error.getReason()));
+                    if (reasons.length() > 0) {
+                        reasons.append('；');
+                    }
+                    reasons.append(error.getTitle()).append('：').append(error.getReason());
+                }
+                setCell(row, sheetColumn, invalidRow.getSheetIndex() + 1, stylePool.dataStyle());
+                setCell(row, rowColumn, invalidRow.getRowNum() + 1, stylePool.dataStyle());
+                Cell reasonCell = row.createCell(reasonColumn);
+                reasonCell.setCellValue(reasons.toString());
+                reasonCell.setCellStyle(stylePool.dataStyle());
+                rowNum++;
+            }
+            if (report.isTruncated()) {
+                sheet.createRow(rowNum).createCell(0).setCellValue("共" + report.getInvalidRowCount() + "行、"
+                        + report.getErrorCount() + "个错误，只列出前" + report.getRetainedErrorCount() + "个错误");
+            }
+            workbook.write(outputStream);
+        } finally {
+            // 删除流式导出产生的临时文件
+            if (!workbook.dispose()) {
+                log.warn("导出临时文件删除失败");
+            }
+            workbook.close();
+        }
+    }
+
+    private static void writeTitles(Sheet sheet, List<String> titles, CellStyle titleStyle) {
+        Row titleRow = sheet.createRow(0);
+        titleRow.setHeightInPoints(25);
+        int column = 0;
+        for (String title : titles) {
+            setTitle(titleRow, column++, title, titleStyle);
+        }
+        setTitle(titleRow, column++, "工作表", titleStyle);
+        setTitle(titleRow, column++, "行号", titleStyle);
+        setTitle(titleRow, column, "错误原因", titleStyle);
+    }
+
+    private static void setTitle(Row row, int column, String title, CellStyle style) {
+        Cell cell = row.createCell(column);
+        cell.setCellValue(title);
+        cell.setCellStyle(style);
+    }
+
+    private static void setCell(Row row, int column, int value, CellStyle style) {
+        Cell cell = row.createCell(column);
+        cell.setCellValue(value);
+        cell.setCellStyle(style);
+    }
+
+    /**
+     * 单元格批注，显示在单元格右下方
+     */
+    private static Comment comment(Drawing<?> drawing, CreationHelper helper, int row, int column, String text) {
+        ClientAnchor anchor = helper.createClientAnchor();
+        anchor.setCol1(column + 1);
+        anchor.setCol2(column + 4);
+        anchor.setRow1(row);
+        anchor.setRow2(row + 3);
+        Comment comment = drawing.createCellComment(anchor);
+        // 批注默认属于显示位置左上角的单元格，流式写出时setCellComment不会修正，需要指定所属单元格
+        comment.setAddress(row, column);
+        comment.setString(helper.createRichTextString(text));
+        return comment;
+    }
+}
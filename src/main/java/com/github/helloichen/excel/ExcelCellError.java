@@ -0,0 +1,101 @@
+package com.github.helloichen.excel;
+
+import org.apache.poi.ss.util.CellReference;
+
+/**
+ * 校验导入时一个单元格的错误，创建后不可变
+ *
+ * @see ExcelErrorReport
+ */
+public final class ExcelCellError {
+
+    private final int sheetIndex;
+    private final int rowNum;
+    private final int columnIndex;
+    /**
+     * 导入列下标
+     */
+    private final int column;
+    private final String title;
+    private final String field;
+    private final String value;
+    private final String reason;
+
+    ExcelCellError(int sheetIndex, int rowNum, int columnIndex, int column, String title, String field, String value,
+                   String reason) {
+        this.sheetIndex = sheetIndex;
+        this.rowNum = rowNum;
+        this.columnIndex = columnIndex;
+        this.column = column;
+        this.title = title;
+        this.field = field;
+        this.value = value;
+        this.reason = reason;
+    }
+
+    /**
+     * 工作表下标，从0开始
+     */
+    public int getSheetIndex() {
+        return sheetIndex;
+    }
+
+    /**
+     * 行下标，从0开始，标题行为0，比Excel显示的行号小1
+     */
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    /**
+     * 工作表中的列下标，从0开始，表头中没有该列时为-1
+     */
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
+    /**
+     * 单元格位置，如B12，表头中没有该列时只有行号
+     */
+    public String getCellReference() {
+        String row = String.valueOf(rowNum + 1);
+        return columnIndex < 0 ? row : CellReference.convertNumToColString(columnIndex) + row;
+    }
+
+    int getColumn() {
+        return column;
+    }
+
+    /**
+     * 列的表头
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * 对应的属性名
+     */
+    public String getField() {
+        return field;
+    }
+
+    /**
+     * 单元格的文本
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * 错误原因
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return "工作表" + (sheetIndex + 1) + " " + getCellReference() + "[" + title + "]：" + reason;
+    }
+}
@@ -0,0 +1,302 @@
+package com.github.helloichen.excel;
+
+import com.github.helloichen.excel.metadata.ExcelColumnSchema;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按列读取的结果<br>
+ * 每一列的值存放在基本类型数组中：整数和小数不装箱，字符串按字典编码只保留不重复的值，时间存放为毫秒数。
+ * 空单元格在数组中为0，通过{@link Column#isNull(int)}区分。数组直接返回内部数组，不要修改
+ *
+ * @see ExcelReader#readColumns(java.io.File, ExcelColumnSchema)
+ */
+public final class ExcelColumnBatch {
+
+    private final List<Column> columns;
+    private final Map<String, Column> columnsByName;
+    private final int rowCount;
+
+    ExcelColumnBatch(Column[] columns, int rowCount) {
+        this.columns = Collections.unmodifiableList(Arrays.asList(columns));
+        this.columnsByName = new HashMap<>(columns.length * 2);
+        for (Column column : columns) {
+            columnsByName.putIfAbsent(column.name, column);
+        }
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * 行数，不含标题行和空行
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    /**
+     * 按列定义的下标获取列
+     */
+    public Column getColumn(int index) {
+        return columns.get(index);
+    }
+
+    /**
+     * 按列名获取列，由类生成的列定义为属性名，按表头声明的为表头
+     *
+     * @param name 列名
+     * @return 列，不存在时为null
+     */
+    public Column getColumn(String name) {
+        return columnsByName.get(name);
+    }
+
+    /**
+     * 一列的值
+     */
+    public static final class Column {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private final String name;
+        private final ExcelColumnSchema.Type type;
+        private int size;
+        /**
+         * INT列的值，STRING列的字典下标
+         */
+        private int[] ints;
+        /**
+         * LONG列的值，DATE列的毫秒数
+         */
+        private long[] longs;
+        private double[] doubles;
+        private final BitSet nulls = new BitSet();
+        private List<String> dictionary;
+        private Map<String, Integer> codes;
+
+        Column(String name, ExcelColumnSchema.Type type) {
+            this.name = name;
+            this.type = type;
+            switch (type) {
+                case INT:
+                    ints = new int[INITIAL_CAPACITY];
+                    break;
+                case STRING:
+                    ints = new int[INITIAL_CAPACITY];
+                    dictionary = new ArrayList<>();
+                    codes = new HashMap<>();
+                    break;
+                case LONG:
+                case DATE:
+                    longs = new long[INITIAL_CAPACITY];
+                    break;
+                default:
+                    doubles = new double[INITIAL_CAPACITY];
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public ExcelColumnSchema.Type getType() {
+            return type;
+        }
+
+        /**
+         * 该列的行数，与{@link ExcelColumnBatch#getRowCount()}相同
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * 该行的单元格是否为空
+         */
+        public boolean isNull(int row) {
+            checkRow(row);
+            return nulls.get(row);
+        }
+
+        /**
+         * 空单元格的个数
+         */
+        public int getNullCount() {
+            return nulls.cardinality();
+        }
+
+        public int getInt(int row) {
+            return getInts()[checkRow(row)];
+        }
+
+        public long getLong(int row) {
+            return getLongs()[checkRow(row)];
+        }
+
+        public double getDouble(int row) {
+            return getDoubles()[checkRow(row)];
+        }
+
+        /**
+         * 单元格显示时间按UTC换算的毫秒数
+         */
+        public long getEpochMillis(int row) {
+            checkType(ExcelColumnSchema.Type.DATE);
+            return longs[checkRow(row)];
+        }
+
+        /**
+         * 单元格显示的时间，空单元格返回null
+         */
+        public LocalDateTime getLocalDateTime(int row) {
+            long millis = getEpochMillis(row);
+            if (nulls.get(row)) {
+                return null;
+            }
+            return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L),
+                    (int) Math.floorMod(millis, 1000L) * 1000000, ZoneOffset.UTC);
+        }
+
+        /**
+         * 字符串的值，空单元格返回null
+         */
+        public String getString(int row) {
+            checkType(ExcelColumnSchema.Type.STRING);
+            return nulls.get(checkRow(row)) ? null : dictionary.get(ints[row]);
+        }
+
+        /**
+         * INT列的值
+         */
+        public int[] getInts() {
+            checkType(ExcelColumnSchema.Type.INT);
+            return ints;
+        }
+
+        /**
+         * LONG列的值，DATE列的毫秒数
+         */
+        public long[] getLongs() {
+            if (type != ExcelColumnSchema.Type.DATE) {
+                checkType(ExcelColumnSchema.Type.LONG);
+            }
+            return longs;
+        }
+
+        public double[] getDoubles() {
+            checkType(ExcelColumnSchema.Type.DOUBLE);
+            return doubles;
+        }
+
+        /**
+         * STRING列每一行的字典下标，空单元格为-1
+         */
+        public int[] getCodes() {
+            checkType(ExcelColumnSchema.Type.STRING);
+            return ints;
+        }
+
+        /**
+         * STRING列的字典，按第一次出现的顺序
+         */
+        public List<String> getDictionary() {
+            checkType(ExcelColumnSchema.Type.STRING);
+            return dictionary;
+        }
+
+        void appendNull() {
+            int row = grow();
+            nulls.set(row);
+            if (type == ExcelColumnSchema.Type.STRING) {
+                ints[row] = -1;
+            }
+        }
+
+        void appendInt(int value) {
+            ints[grow()] = value;
+        }
+
+        void appendLong(long value) {
+            longs[grow()] = value;
+        }
+
+        void appendDouble(double value) {
+            doubles[grow()] = value;
+        }
+
+        void appendString(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(value);
+                codes.put(value, code);
+            }
+            ints[grow()] = code;
+        }
+
+        /**
+         * 读取完成，数组裁剪到实际行数，释放编码用的查找表
+         */
+        void finish() {
+            if (ints != null) {
+                ints = Arrays.copyOf(ints, size);
+            }
+            if (longs != null) {
+                longs = Arrays.copyOf(longs, size);
+            }
+            if (doubles != null) {
+                doubles = Arrays.copyOf(doubles, size);
+            }
+            if (dictionary != null) {
+                dictionary = Collections.unmodifiableList(dictionary);
+                codes = null;
+            }
+        }
+
+        /**
+         * 增加一行，容量不足时按1.5倍扩容
+         *
+         * @return 新行的下标
+         */
+        private int grow() {
+            int capacity = ints != null ? ints.length : longs != null ? longs.length : doubles.length;
+            if (size == capacity) {
+                int newCapacity = capacity + (capacity >> 1);
+                if (ints != null) {
+                    ints = Arrays.copyOf(ints, newCapacity);
+                }
+                if (longs != null) {
+                    longs = Arrays.copyOf(longs, newCapacity);
+                }
+                if (doubles != null) {
+                    doubles = Arrays.copyOf(doubles, newCapacity);
+                }
+            }
+            return size++;
+        }
+
+        private int checkRow(int row) {
+            if (row < 0 || row >= size) {
+                throw new IndexOutOfBoundsException("行下标" + row + "超出范围，共" + size + "行");
+            }
+            return row;
+        }
+
+        private void checkType(ExcelColumnSchema.Type expected) {
+            if (type != expected) {
+                throw new IllegalStateException(name + "列的类型为" + type + "，不是" + expected);
+            }
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.github.helloichen.excel;
+
+import com.github.helloichen.excel.convert.CellData;
+import com.github.helloichen.excel.metadata.ExcelColumn;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 校验导入的错误报告<br>
+ * 错误数和行数始终完整统计；错误明细最多保留maxErrors个，按所在行保留，超出后不再保留，内存占用有上限。
+ * 需要全部明细时可以传入listener，每个错误解析到时立即回调，不经过报告保留。
+ * 不需要明细时(已达上限且没有listener)不创建错误对象，脏数据很多的文件也按正常速度解析。
+ * 保留的明细可以通过{@link ExcelWriter#writeErrorReport(java.io.OutputStream, ExcelErrorReport)}写出为标注了错误的Excel。
+ * 一个报告只用于一次校验，不是线程安全的
+ *
+ * @see ExcelReader#validate(java.io.File, Class, Consumer, ExcelErrorReport)
+ */
+public final class ExcelErrorReport {
+
+    private final int maxErrors;
+    private final Consumer<ExcelCellError> listener;
+    /**
+     * 导入列的表头，开始校验时记录
+     */
+    private List<String> titles = Collections.emptyList();
+    private final List<InvalidRow> invalidRows = new ArrayList<>();
+    /**
+     * 当前行已保留的错误
+     */
+    private final List<ExcelCellError> pending = new ArrayList<>();
+    private int retainedErrors;
+    private long errorCount;
+    private long invalidRowCount;
+    private long validRowCount;
+
+    /**
+     * @param maxErrors 最多保留的错误明细个数
+     */
+    public ExcelErrorReport(int maxErrors) {
+        this(maxErrors, null);
+    }
+
+    /**
+     * @param maxErrors 最多保留的错误明细个数，只通过listener处理时可以为0
+     * @param listener  每个错误的回调，在解析线程中调用，可以为null
+     */
+    public ExcelErrorReport(int maxErrors, Consumer<ExcelCellError> listener) {
+        if (maxErrors < 0) {
+            throw new IllegalArgumentException("maxErrors不能小于0");
+        }
+        this.maxErrors = maxErrors;
+        this.listener = listener;
+    }
+
+    /**
+     * 是否没有错误
+     */
+    public boolean isValid() {
+        return errorCount == 0;
+    }
+
+    /**
+     * 错误明细是否因为超出上限没有全部保留
+     */
+    public boolean isTruncated() {
+        return retainedErrors < errorCount;
+    }
+
+    /**
+     * 错误总数
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * 保留了明细的错误数
+     */
+    public int getRetainedErrorCount() {
+        return retainedErrors;
+    }
+
+    /**
+     * 有错误的行数
+     */
+    public long getInvalidRowCount() {
+        return invalidRowCount;
+    }
+
+    /**
+     * 校验通过并交给consumer的行数
+     */
+    public long getValidRowCount() {
+        return validRowCount;
+    }
+
+    /**
+     * 导入列的表头，与{@link InvalidRow#getValues()}一一对应
+     */
+    public List<String> getTitles() {
+        return titles;
+    }
+
+    /**
+     * 保留了错误明细的行，按解析顺序
+     */
+    public List<InvalidRow> getInvalidRows() {
+        return Collections.unmodifiableList(invalidRows);
+    }
+
+    /**
+     * 保留的全部错误明细
+     */
+    public List<ExcelCellError> getErrors() {
+        List<ExcelCellError> errors = new ArrayList<>(retainedErrors);
+        for (InvalidRow row : invalidRows) {
+            errors.addAll(row.errors);
+        }
+        return errors;
+    }
+
+    /**
+     * 开始校验，记录导入列的表头，没有表头的列使用属性名
+     */
+    void start(ExcelColumn[] columns) {
+        String[] names = new String[columns.length];
+        for (ExcelColumn column : columns) {
+            String title = column.getTitle().trim();
+            names[column.getIndex()] = title.isEmpty() ? column.getName() : title;
+        }
+        titles = Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    /**
+     * 记录一个单元格的错误
+     *
+     * @param sheetIndex  工作表下标
+     * @param rowNum      行下标
+     * @param columnIndex 工作表列下标
+     * @param column      导入列
+     * @param cell        单元格的值
+     * @param reason      错误原因
+     */
+    void addError(int sheetIndex, int rowNum, int columnIndex, ExcelColumn column, CellData cell, String reason) {
+        errorCount++;
+        boolean retain = retainedErrors < maxErrors;
+        if (!retain && listener == null) {
+            return;
+        }
+        ExcelCellError error = new ExcelCellError(sheetIndex, rowNum, columnIndex, column.getIndex(),
+                titles.get(column.getIndex()), column.getName(), cell.getText(), reason);
+        if (listener != null) {
+            listener.accept(error);
+        }
+        if (retain) {
+            pending.add(error);
+            retainedErrors++;
+        }
+    }
+
+    /**
+     * 一行校验失败，保留了错误明细时记录该行所有导入列的文本
+     *
+     * @param sheetIndex 工作表下标
+     * @param rowNum     行下标
+     * @param values     按导入列下标存放的单元格值
+     */
+    void invalidRow(int sheetIndex, int rowNum, CellData[] values) {
+        invalidRowCount++;
+        if (pending.isEmpty()) {
+            return;
+        }
+        String[] texts = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            texts[i] = values[i].getText();
+        }
+        invalidRows.add(new InvalidRow(sheetIndex, rowNum, texts, new ArrayList<>(pending)));
+        pending.clear();
+    }
+
+    void validRow() {
+        validRowCount++;
+    }
+
+    /**
+     * 校验失败的一行
+     */
+    public static final class InvalidRow {
+
+        private final int sheetIndex;
+        private final int rowNum;
+        private final List<String> values;
+        private final List<ExcelCellError> errors;
+
+        InvalidRow(int sheetIndex, int rowNum, String[] values, List<ExcelCellError> errors) {
+            this.sheetIndex = sheetIndex;
+            this.rowNum = rowNum;
+            this.values = Collections.unmodifiableList(Arrays.asList(values));
+            this.errors = Collections.unmodifiableList(errors);
+        }
+
+        /**
+         * 工作表下标，从0开始
+         */
+        public int getSheetIndex() {
+            return sheetIndex;
+        }
+
+        /**
+         * 行下标，从0开始，比Excel显示的行号小1
+         */
+        public int getRowNum() {
+            return rowNum;
+        }
+
+        /**
+         * 按导入列下标存放的单元格文本
+         */
+        public List<String> getValues() {
+            return values;
+        }
+
+        /**
+         * 该行保留的错误，达到上限的那一行可能不完整
+         */
+        public List<ExcelCellError> getErrors() {
+            return errors;
+        }
+    }
+}
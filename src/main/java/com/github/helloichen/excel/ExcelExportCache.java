@@ -0,0 +1,212 @@
+package com.github.helloichen.excel;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 导出结果缓存<br>
+ * 按调用方提供的key和数据版本缓存生成好的工作簿，每个key只保留最新的版本，总大小超过上限时淘汰最久未使用的。
+ * 同一个key和版本的并发导出只构建一次，其余请求等待构建结果。
+ * 工作簿可以缓存在堆内存中，也可以缓存在本地磁盘目录中，一个缓存实例可以被多个导出共用
+ *
+ * @see ExcelWriter#write(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, String,
+ * ExcelExportCache, String, String, java.util.function.Supplier, Class, ExcelWriteOptions)
+ */
+@Slf4j
+public class ExcelExportCache {
+
+    /**
+     * ETag取摘要的前16个字节
+     */
+    private static final int ETAG_BYTES = 16;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * 缓存目录，为null时缓存在堆内存中
+     */
+    private final File directory;
+    /**
+     * key到最新版本的缓存
+     */
+    private final RefCountedCache<Entry> entries;
+
+    /**
+     * 缓存在堆内存中
+     *
+     * @param maxBytes 缓存的最大字节数
+     */
+    public ExcelExportCache(long maxBytes) {
+        this(null, maxBytes);
+    }
+
+    /**
+     * 缓存在本地磁盘目录中，目录不存在时创建
+     *
+     * @param directory 缓存目录，为null时缓存在堆内存中
+     * @param maxBytes  缓存的最大字节数
+     */
+    public ExcelExportCache(File directory, long maxBytes) {
+        this.entries = new RefCountedCache<>("导出结果", maxBytes);
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalArgumentException(directory + "目录创建失败");
+        }
+        this.directory = directory;
+    }
+
+    /**
+     * 清空缓存，正在写出的文件在写出完成后删除
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * 当前缓存的字节数
+     */
+    public long size() {
+        return entries.size();
+    }
+
+    /**
+     * 根据key和版本计算ETag，同一个key和版本的ETag不变，不需要读取缓存
+     *
+     * @param key     缓存key
+     * @param version 数据版本
+     * @return 带引号的强ETag
+     */
+    static String etag(String key, String version) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(key.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        byte[] hash = digest.digest(version.getBytes(StandardCharsets.UTF_8));
+        char[] chars = new char[ETAG_BYTES * 2 + 2];
+        chars[0] = '"';
+        for (int i = 0; i < ETAG_BYTES; i++) {
+            chars[i * 2 + 1] = HEX[(hash[i] >> 4) & 0xF];
+            chars[i * 2 + 2] = HEX[hash[i] & 0xF];
+        }
+        chars[chars.length - 1] = '"';
+        return new String(chars);
+    }
+
+    /**
+     * If-None-Match是否与ETag匹配，按弱比较处理
+     *
+     * @param ifNoneMatch If-None-Match请求头，可以为null
+     * @param etag        当前的ETag
+     * @return 匹配时返回true，应当返回304
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if ("*".equals(tag) || etag.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取缓存的工作簿，未命中时构建，相同key和版本的并发请求只构建一次<br>
+     * 返回的缓存项使用后必须调用{@link Entry#release()}
+     *
+     * @param key     缓存key
+     * @param version 数据版本
+     * @param task    构建工作簿的任务
+     * @return 缓存项
+     * @throws Exception 构建失败，等待同一次构建的请求都会收到该异常
+     */
+    Entry acquire(String key, String version, AsyncExcelExport.ExportTask task) throws Exception {
+        return entries.acquire(key, entry -> entry.version.equals(version), key + '\0' + version,
+                () -> build(version, task));
+    }
+
+    /**
+     * 构建工作簿，不超过上限时由缓存替换该key的旧版本
+     */
+    private Entry build(String version, AsyncExcelExport.ExportTask task) throws Exception {
+        long start = System.nanoTime();
+        Entry entry;
+        if (directory == null) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+            task.write(out);
+            entry = new Entry(version, out.toByteArray(), null, out.size());
+        } else {
+            File file = File.createTempFile("ichen-export-", ".xlsx", directory);
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                task.write(out);
+            } catch (Exception | Error e) {
+                if (!file.delete()) {
+                    log.warn("导出缓存文件{}删除失败", file);
+                }
+                throw e;
+            }
+            entry = new Entry(version, null, file, file.length());
+        }
+        log.debug("导出缓存未命中，构建{}字节，耗时{}ms", entry.size, (System.nanoTime() - start) / 1_000_000);
+        return entry;
+    }
+
+    /**
+     * 缓存的工作簿，引用计数归零时删除磁盘文件
+     */
+    static final class Entry extends RefCountedCache.Resource {
+        private final String version;
+        private final byte[] bytes;
+        private final File file;
+        private final long size;
+
+        private Entry(String version, byte[] bytes, File file, long size) {
+            this.version = version;
+            this.bytes = bytes;
+            this.file = file;
+            this.size = size;
+        }
+
+        @Override
+        long getSize() {
+            return size;
+        }
+
+        /**
+         * 写出工作簿
+         *
+         * @param outputStream 输出流
+         */
+        void writeTo(OutputStream outputStream) throws IOException {
+            if (bytes != null) {
+                outputStream.write(bytes);
+            } else {
+                Files.copy(file.toPath(), outputStream);
+            }
+        }
+
+        @Override
+        void destroy() {
+            if (file != null && !file.delete()) {
+                log.warn("导出缓存文件{}删除失败", file);
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.github.helloichen.excel;
+
+import com.github.helloichen.excel.metrics.ExcelTrace;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分页读取Excel，用于上传后的预览和翻页<br>
+ * 第一次读取某个工作表时建立行偏移索引({@link SheetRowIndex})，按文件内容的SHA-256缓存，
+ * 之后的每一页只解析该页所在的行，不再解析整个工作簿。文件的摘要按路径、大小和修改时间缓存，文件不变时翻页不再读取整个文件。
+ * 索引的临时文件和共享字符串表的总大小超过上限时淘汰最久未使用的，同一个文件和工作表的并发请求只建立一次索引。
+ * 一个实例可以被多个请求共用，仅支持2007格式
+ */
+@Slf4j
+public class ExcelPageReader {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    /**
+     * 最多缓存摘要的文件个数
+     */
+    private static final int MAX_DIGESTS = 1024;
+
+    /**
+     * 临时文件目录，为null时使用POI的临时目录
+     */
+    private final File directory;
+    private final ExcelReadOptions options;
+    /**
+     * 文件内容摘要和工作表下标到索引的缓存
+     */
+    private final RefCountedCache<SheetRowIndex> indexes;
+    /**
+     * 文件路径到内容摘要的缓存，按访问顺序排列，访问时需要持有该对象的锁
+     */
+    private final DigestCache digests = new DigestCache();
+
+    /**
+     * 索引文件存放在POI的临时目录中
+     *
+     * @param maxBytes 索引文件和共享字符串表的最大总字节数
+     */
+    public ExcelPageReader(long maxBytes) {
+        this(null, maxBytes);
+    }
+
+    /**
+     * 索引文件存放在指定目录中，目录不存在时创建
+     *
+     * @param directory 临时文件目录，为null时使用POI的临时目录
+     * @param maxBytes  索引文件和共享字符串表的最大总字节数
+     */
+    public ExcelPageReader(File directory, long maxBytes) {
+        this(directory, maxBytes, ExcelReadOptions.defaults());
+    }
+
+    /**
+     * 按导入配置加载共享字符串表，大文件可以开启{@link ExcelReadOptions#setFileBackedSharedStrings(boolean)}
+     *
+     * @param directory 临时文件目录，为null时使用POI的临时目录
+     * @param maxBytes  索引文件和共享字符串表的最大总字节数
+     * @param options   导入配置
+     */
+    public ExcelPageReader(File directory, long maxBytes, ExcelReadOptions options) {
+        this.indexes = new RefCountedCache<>("分页索引", maxBytes);
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalArgumentException(directory + "目录创建失败");
+        }
+        this.directory = directory;
+        this.options = options;
+    }
+
+    /**
+     * 读取工作表的[offset, offset+limit)数据行<br>
+     * 数据行按标题行之后的行计数，包含空行；空行不映射，因此返回的行数可能少于limit
+     *
+     * @param file       待解析的Excel文件
+     * @param sheetIndex 工作表下标，从0开始
+     * @param offset     起始数据行，从0开始
+     * @param limit      最多读取的数据行数
+     * @param clazz      反射对象的Class
+     * @return 该页的对象
+     */
+    public <T> List<T> read(File file, int sheetIndex, int offset, int limit, Class<T> clazz) throws Exception {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("offset和limit不能小于0");
+        }
+        return ExcelReader.traced(clazz, trace -> {
+            long start = System.nanoTime();
+            SheetRowIndex index = acquire(file, sheetIndex);
+            trace.phase(ExcelTrace.Phase.OPEN, System.nanoTime() - start);
+            try {
+                return index.read(offset, limit, clazz, trace);
+            } finally {
+                index.release();
+            }
+        });
+    }
+
+    /**
+     * 读取工作表的[offset, offset+limit)数据行
+     *
+     * @param filePath   待解析的Excel文件的路径
+     * @param sheetIndex 工作表下标，从0开始
+     * @param offset     起始数据行，从0开始
+     * @param limit      最多读取的数据行数
+     * @param clazz      反射对象的Class
+     * @return 该页的对象
+     */
+    public <T> List<T> read(String filePath, int sheetIndex, int offset, int limit, Class<T> clazz)
+            throws Exception {
+        File file = new File(filePath);
+        if (!file.exists()) {
+            throw new Exception("指定的文件不存在");
+        }
+        return read(file, sheetIndex, offset, limit, clazz);
+    }
+
+    /**
+     * 工作表的数据行数，不含标题行，包含空行，用于计算总页数
+     *
+     * @param file       待解析的Excel文件
+     * @param sheetIndex 工作表下标，从0开始
+     * @return 数据行数
+     */
+    public int getRowCount(File file, int sheetIndex) throws Exception {
+        SheetRowIndex index = acquire(file, sheetIndex);
+        try {
+            return index.getRowCount();
+        } finally {
+            index.release();
+        }
+    }
+
+    /**
+     * 清空缓存，正在读取的索引在读取完成后删除
+     */
+    public void clear() {
+        indexes.clear();
+        synchronized (digests) {
+            digests.clear();
+        }
+    }
+
+    /**
+     * 当前缓存的索引文件和共享字符串表的字节数
+     */
+    public long size() {
+        return indexes.size();
+    }
+
+    /**
+     * 获取缓存的索引，未命中时建立，返回的索引使用后必须调用{@link SheetRowIndex#release()}
+     */
+    private SheetRowIndex acquire(File file, int sheetIndex) throws Exception {
+        if (!file.exists()) {
+            throw new Exception("指定的文件不存在");
+        }
+        if (ExcelReader.isXls(file)) {
+            throw new Exception("分页读取只支持xlsx文件");
+        }
+        String key = digest(file) + '#' + sheetIndex;
+        return indexes.acquire(key, index -> true, key, () -> build(file, sheetIndex));
+    }
+
+    /**
+     * 建立索引
+     */
+    private SheetRowIndex build(File file, int sheetIndex) throws Exception {
+        long start = System.nanoTime();
+        SheetRowIndex index = SheetRowIndex.build(file, sheetIndex, directory, options);
+        log.debug("分页索引未命中，{}行，耗时{}ms", index.getRowCount(), (System.nanoTime() - start) / 1_000_000);
+        return index;
+    }
+
+    /**
+     * 文件内容的摘要，路径、大小和修改时间都没有变化时使用缓存的摘要
+     */
+    private String digest(File file) throws Exception {
+        String path = file.getCanonicalPath();
+        long length = file.length();
+        long lastModified = file.lastModified();
+        synchronized (digests) {
+            FileDigest cached = digests.get(path);
+            if (cached != null && cached.length == length && cached.lastModified == lastModified) {
+                return cached.hash;
+            }
+        }
+        String hash = sha256(file);
+        synchronized (digests) {
+            digests.put(path, new FileDigest(length, lastModified, hash));
+        }
+        return hash;
+    }
+
+    /**
+     * 文件内容的SHA-256，内容相同的文件共用索引
+     */
+    private static String sha256(File file) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        byte[] hash = digest.digest();
+        char[] chars = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            chars[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[hash[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 计算摘要时文件的大小和修改时间
+     */
+    private static final class FileDigest {
+        private final long length;
+        private final long lastModified;
+        private final String hash;
+
+        FileDigest(long length, long lastModified, String hash) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * 按访问顺序淘汰的摘要缓存，最多保存{@link #MAX_DIGESTS}个文件
+     */
+    private static final class DigestCache extends LinkedHashMap<String, FileDigest> {
+        private static final long serialVersionUID = 1L;
+
+        DigestCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FileDigest> eldest) {
+            return size() > MAX_DIGESTS;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.helloichen.excel;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Excel导入配置
+ */
+@Data
+@Accessors(chain = true)
+public class ExcelReadOptions {
+
+    /**
+     * 是否并行解析，开启后多个工作表同时解析，大工作表的行按块并行映射
+     */
+    private boolean parallel = false;
+
+    /**
+     * 并行解析使用的线程池，为null时使用{@link ForkJoinPool#commonPool()}
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * 并行解析时结果是否保持工作表和行的顺序，不要求顺序时可以获得更高的吞吐量
+     */
+    private boolean ordered = true;
+
+    /**
+     * 并行解析时每个映射任务处理的行数
+     */
+    private int chunkSize = 2000;
+
+    /**
+     * 批量读取时处理批次的线程数
+     */
+    private int consumerThreads = 1;
+
+    /**
+     * 批量读取时最多等待处理的批次数，队列满时解析线程等待
+     */
+    private int batchQueueSize = 4;
+
+    /**
+     * 共享字符串表是否存放在内存映射的临时文件中，仅对2007格式的流式读取、批量读取和并行解析有效<br>
+     * 超大文件的共享字符串表可能占用数GB堆内存，开启后堆内存只保留{@link #sharedStringsCacheSize}个最近使用的字符串
+     */
+    private boolean fileBackedSharedStrings = false;
+
+    /**
+     * 共享字符串表存放在临时文件中时，堆内存中缓存的字符串个数
+     */
+    private int sharedStringsCacheSize = 4096;
+
+    /**
+     * 是否对导入的字符串去重，开启后每列相同的文本只保留一个String实例，适合状态、地区等大量重复的列<br>
+     * 去重范围为一次导入中的一列，2007格式的共享字符串按下标缓存
+     */
+    private boolean deduplicateStrings = false;
+
+    /**
+     * 字符串去重时每列最多缓存的不同值个数，超出后新值不再去重
+     */
+    private int stringDictionarySize = 1024;
+
+    /**
+     * 默认配置，单线程解析
+     */
+    public static ExcelReadOptions defaults() {
+        return new ExcelReadOptions();
+    }
+
+    /**
+     * 并行解析配置
+     */
+    public static ExcelReadOptions parallel() {
+        return new ExcelReadOptions().setParallel(true);
+    }
+}
@@ -1,23 +1,35 @@
 package com.github.helloichen.excel;
 
-import com.github.helloichen.annotation.IChenExcelField;
-import com.github.helloichen.util.DateUtils;
+import com.github.helloichen.excel.convert.CellConverter;
+import com.github.helloichen.excel.convert.CellConverters;
+import com.github.helloichen.excel.convert.CellData;
+import com.github.helloichen.excel.metadata.ExcelClassMeta;
+import com.github.helloichen.excel.metadata.ExcelColumn;
+import com.github.helloichen.excel.metadata.ExcelColumnSchema;
+import com.github.helloichen.excel.metrics.ExcelMetricsRegistry;
+import com.github.helloichen.excel.metrics.ExcelTrace;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.HSSFUserException;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.ss.util.NumberToTextConverter;
+import org.apache.poi.util.SAXHelper;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
-import java.math.BigDecimal;
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 /**
  * @author iChen
@@ -35,27 +47,26 @@ public class ExcelReader {
      * @param obj  反射对象的Class
      */
     public static <T> List<T> read(File file, Class<T> obj) throws Exception {
-        Workbook book;
-        try {
-            //解析2003
-            book = new HSSFWorkbook(new FileInputStream(file));
-        } catch (Exception e) {
-            //解析2007
-            book = new XSSFWorkbook(new FileInputStream(file));
-        }
-        return getExcelContent(book, obj);
+        return traced(obj, trace -> {
+            try (Workbook book = openWorkbook(file, trace)) {
+                return getExcelContent(book, obj, ExcelReadOptions.defaults(), trace);
+            }
+        });
     }
 
+    /**
+     * 解析Excel 支持2003、2007<br>
+     * 根据文件头判断格式，文件流会被完整读取
+     *
+     * @param file 待解析的Excel文件流
+     * @param obj  反射对象的Class
+     */
     public static <T> List<T> read(InputStream file, Class<T> obj) throws Exception {
-        Workbook book;
-        try {
-            //解析2003
-            book = new XSSFWorkbook(file);
-        } catch (Exception e) {
-            //解析2007
-            book = new HSSFWorkbook(file);
-        }
-        return getExcelContent(book, obj);
+        return traced(obj, trace -> {
+            try (Workbook book = openWorkbook(file, trace)) {
+                return getExcelContent(book, obj, ExcelReadOptions.defaults(), trace);
+            }
+        });
     }
 
     /**
@@ -74,40 +85,744 @@ public class ExcelReader {
     }
 
     /**
-     * 根据params、object解析Excel，并且构建list集合
+     * 按配置解析Excel<br>
+     * 开启并行解析时，多个工作表在线程池中同时解析，大工作表按块并行映射，仅支持2007格式，2003格式仍按顺序解析
      *
-     * @param book  WorkBook对象，他代表了待将解析的Excel文件
-     * @param clazz 构建的Object对象，每一个row都相当于一个object对象
-     */
-    private static <T> List<T> getExcelContent(Workbook book,
-                                               Class<T> clazz) throws Exception {
-        Field[] fields = clazz.getDeclaredFields();
-        Method[] methods = clazz.getDeclaredMethods();
-        Map<String, Method> methodTempMap = Arrays.stream(methods)
-                .filter(method -> Modifier.isPublic(method.getModifiers()))
-                .filter(method -> method.getName().startsWith("set"))
-                .collect(Collectors.toMap(Method::getName, Function.identity()));
-
-        Map<String, Method> setterMethodMap = new HashMap<>(16);
-        List<Field> fieldList = new ArrayList<>();
-        for (Field field : fields) {
-            IChenExcelField IChenExcelField = field.getAnnotation(IChenExcelField.class);
-            if (IChenExcelField != null && IChenExcelField.exportField()) {
-                String attr = field.getName();
-                String setterName = "set" + Character.toUpperCase(attr.charAt(0)) + attr.substring(1);
-                Method method = methodTempMap.get(setterName);
-                if (method == null) {
-                    // setter方法不为null才可以导出
-                    log.warn("{}类{}属性无setter方法，无法导导入", clazz.getName(), attr);
-                    continue;
+     * @param file    待解析的Excel文件
+     * @param clazz   反射对象的Class
+     * @param options 导入配置
+     */
+    public static <T> List<T> read(File file, Class<T> clazz, ExcelReadOptions options) throws Exception {
+        if (!options.isParallel() || isXls(file)) {
+            return traced(clazz, trace -> {
+                try (Workbook book = openWorkbook(file, trace)) {
+                    return getExcelContent(book, clazz, options, trace);
+                }
+            });
+        }
+        return traced(clazz, trace -> {
+            OPCPackage pkg = open(file, trace);
+            try {
+                return ParallelSheetReader.read(pkg, clazz, options, trace);
+            } finally {
+                pkg.revert();
+            }
+        });
+    }
+
+    /**
+     * 按配置解析Excel
+     *
+     * @param file    待解析的Excel文件流
+     * @param clazz   反射对象的Class
+     * @param options 导入配置
+     */
+    public static <T> List<T> read(InputStream file, Class<T> clazz, ExcelReadOptions options) throws Exception {
+        InputStream in = FileMagic.prepareToCheckMagic(file);
+        if (!options.isParallel() || isXls(in)) {
+            return traced(clazz, trace -> {
+                try (Workbook book = openWorkbook(in, trace)) {
+                    return getExcelContent(book, clazz, options, trace);
+                }
+            });
+        }
+        return traced(clazz, trace -> {
+            OPCPackage pkg = open(in, trace);
+            try {
+                return ParallelSheetReader.read(pkg, clazz, options, trace);
+            } finally {
+                pkg.revert();
+            }
+        });
+    }
+
+    /**
+     * 按配置解析Excel
+     *
+     * @param filePath 待解析的Excel文件的路径
+     * @param clazz    反射对象的Class
+     * @param options  导入配置
+     */
+    public static <T> List<T> read(String filePath, Class<T> clazz, ExcelReadOptions options) throws Exception {
+        File file = new File(filePath);
+        if (!file.exists()) {
+            throw new Exception("指定的文件不存在");
+        }
+        return read(file, clazz, options);
+    }
+
+    /**
+     * 流式解析Excel 支持2003、2007<br>
+     * 2007格式基于XSSFReader、2003格式基于HSSFEventFactory的事件模型逐行解析，每解析一行就构建一个对象交给consumer处理，
+     * 不会把整个工作簿和全部结果加载到内存中，适合大文件导入
+     *
+     * @param file     待解析的Excel文件
+     * @param clazz    反射对象的Class
+     * @param consumer 每一行对象的处理逻辑
+     */
+    public static <T> void read(File file, Class<T> clazz, Consumer<T> consumer) throws Exception {
+        read(file, clazz, consumer, ExcelReadOptions.defaults());
+    }
+
+    /**
+     * 按配置流式解析Excel 支持2003、2007<br>
+     * 超大的2007格式文件可以开启{@link ExcelReadOptions#setFileBackedSharedStrings(boolean)}，共享字符串表不再全部加载到堆内存中
+     *
+     * @param file     待解析的Excel文件
+     * @param clazz    反射对象的Class
+     * @param consumer 每一行对象的处理逻辑
+     * @param options  导入配置
+     */
+    public static <T> void read(File file, Class<T> clazz, Consumer<T> consumer, ExcelReadOptions options)
+            throws Exception {
+        traced(clazz, trace -> {
+            readStreaming(file, clazz, consumer, options, trace);
+            return null;
+        });
+    }
+
+    /**
+     * 流式解析Excel 支持2003、2007
+     *
+     * @param file     待解析的Excel文件流
+     * @param clazz    反射对象的Class
+     * @param consumer 每一行对象的处理逻辑
+     */
+    public static <T> void read(InputStream file, Class<T> clazz, Consumer<T> consumer) throws Exception {
+        read(file, clazz, consumer, ExcelReadOptions.defaults());
+    }
+
+    /**
+     * 按配置流式解析Excel 支持2003、2007
+     *
+     * @param file     待解析的Excel文件流
+     * @param clazz    反射对象的Class
+     * @param consumer 每一行对象的处理逻辑
+     * @param options  导入配置
+     */
+    public static <T> void read(InputStream file, Class<T> clazz, Consumer<T> consumer, ExcelReadOptions options)
+            throws Exception {
+        traced(clazz, trace -> {
+            readStreaming(file, clazz, consumer, options, trace);
+            return null;
+        });
+    }
+
+    /**
+     * 流式解析Excel 支持2003、2007
+     *
+     * @param filePath 待解析的Excel文件的路径
+     * @param clazz    反射对象的Class
+     * @param consumer 每一行对象的处理逻辑
+     */
+    public static <T> void read(String filePath, Class<T> clazz, Consumer<T> consumer) throws Exception {
+        File file = new File(filePath);
+        if (!file.exists()) {
+            throw new Exception("指定的文件不存在");
+        }
+        read(file, clazz, consumer);
+    }
+
+    /**
+     * 分批读取Excel 支持2003、2007<br>
+     * 当前线程流式解析，每解析batchSize行就通过有界队列交给处理线程，适合边解析边批量入库。
+     * 处理线程数和队列大小使用默认配置
+     *
+     * @param file      待解析的Excel文件
+     * @param clazz     反射对象的Class
+     * @param batchSize 每批的行数
+     * @param consumer  每一批对象的处理逻辑
+     */
+    public static <T> void read(File file, Class<T> clazz, int batchSize, Consumer<List<T>> consumer)
+            throws Exception {
+        read(file, clazz, batchSize, consumer, ExcelReadOptions.defaults());
+    }
+
+    /**
+     * 分批读取Excel 支持2003、2007
+     *
+     * @param file      待解析的Excel文件流
+     * @param clazz     反射对象的Class
+     * @param batchSize 每批的行数
+     * @param consumer  每一批对象的处理逻辑
+     */
+    public static <T> void read(InputStream file, Class<T> clazz, int batchSize, Consumer<List<T>> consumer)
+            throws Exception {
+        read(file, clazz, batchSize, consumer, ExcelReadOptions.defaults());
+    }
+
+    /**
+     * 分批读取Excel 支持2003、2007
+     *
+     * @param filePath  待解析的Excel文件的路径
+     * @param clazz     反射对象的Class
+     * @param batchSize 每批的行数
+     * @param consumer  每一批对象的处理逻辑
+     */
+    public static <T> void read(String filePath, Class<T> clazz, int batchSize, Consumer<List<T>> consumer)
+            throws Exception {
+        File file = new File(filePath);
+        if (!file.exists()) {
+            throw new Exception("指定的文件不存在");
+        }
+        read(file, clazz, batchSize, consumer);
+    }
+
+    /**
+     * 按配置分批读取Excel 支持2003、2007<br>
+     * 处理线程多于一个时consumer会被并发调用，批次之间不保证顺序。
+     * 任何一批处理失败都会中止解析，并在当前线程抛出该异常
+     *
+     * @param file      待解析的Excel文件
+     * @param clazz     反射对象的Class
+     * @param batchSize 每批的行数
+     * @param consumer  每一批对象的处理逻辑
+     * @param options   导入配置
+     */
+    public static <T> void read(File file, Class<T> clazz, int batchSize, Consumer<List<T>> consumer,
+                                ExcelReadOptions options) throws Exception {
+        traced(clazz, trace -> {
+            BatchReadPipeline.read(rows -> readStreaming(file, clazz, rows, options, trace), batchSize, consumer,
+                    options, trace);
+            return null;
+        });
+    }
+
+    /**
+     * 按配置分批读取Excel 支持2003、2007
+     *
+     * @param file      待解析的Excel文件流
+     * @param clazz     反射对象的Class
+     * @param batchSize 每批的行数
+     * @param consumer  每一批对象的处理逻辑
+     * @param options   导入配置
+     */
+    public static <T> void read(InputStream file, Class<T> clazz, int batchSize, Consumer<List<T>> consumer,
+                                ExcelReadOptions options) throws Exception {
+        traced(clazz, trace -> {
+            BatchReadPipeline.read(rows -> readStreaming(file, clazz, rows, options, trace), batchSize, consumer,
+                    options, trace);
+            return null;
+        });
+    }
+
+    /**
+     * 按列读取Excel 支持2003、2007<br>
+     * 按类的导入列流式解析，每一列的值存放到基本类型数组、字典编码的字符串或毫秒数形式的时间中，
+     * 不为每一行创建对象，适合大量数字的统计分析
+     *
+     * @param file  待解析的Excel文件
+     * @param clazz 提供列定义的Class
+     */
+    public static ExcelColumnBatch readColumns(File file, Class<?> clazz) throws Exception {
+        return readColumns(file, ExcelColumnSchema.of(clazz));
+    }
+
+    /**
+     * 按列读取Excel 支持2003、2007
+     *
+     * @param file  待解析的Excel文件流
+     * @param clazz 提供列定义的Class
+     */
+    public static ExcelColumnBatch readColumns(InputStream file, Class<?> clazz) throws Exception {
+        return readColumns(file, ExcelColumnSchema.of(clazz));
+    }
+
+    /**
+     * 按列定义读取Excel 支持2003、2007
+     *
+     * @param file   待解析的Excel文件
+     * @param schema 列定义
+     */
+    public static ExcelColumnBatch readColumns(File file, ExcelColumnSchema schema) throws Exception {
+        return readColumns(file, schema, ExcelReadOptions.defaults());
+    }
+
+    /**
+     * 按列定义读取Excel 支持2003、2007
+     *
+     * @param file   待解析的Excel文件流
+     * @param schema 列定义
+     */
+    public static ExcelColumnBatch readColumns(InputStream file, ExcelColumnSchema schema) throws Exception {
+        return traced(tracedType(schema), trace -> {
+            ColumnBatchBuilder builder = new ColumnBatchBuilder(schema, trace);
+            readRows(file, builder.getColumns(), ExcelReadOptions.defaults(), trace, builder);
+            return buildColumns(builder, trace);
+        });
+    }
+
+    /**
+     * 按列定义和配置读取Excel 支持2003、2007
+     *
+     * @param file    待解析的Excel文件
+     * @param schema  列定义
+     * @param options 导入配置，只使用共享字符串表相关的配置
+     */
+    public static ExcelColumnBatch readColumns(File file, ExcelColumnSchema schema, ExcelReadOptions options)
+            throws Exception {
+        return traced(tracedType(schema), trace -> {
+            ColumnBatchBuilder builder = new ColumnBatchBuilder(schema, trace);
+            readRows(file, builder.getColumns(), options, trace, builder);
+            return buildColumns(builder, trace);
+        });
+    }
+
+    /**
+     * 校验并流式解析Excel 支持2003、2007<br>
+     * 转换失败和不满足{@link com.github.helloichen.annotation.IChenExcelConstraint}约束的单元格不抛出异常，
+     * 记录到report后继续解析；一行全部通过时才构建对象交给consumer
+     *
+     * @param file     待解析的Excel文件
+     * @param clazz    反射对象的Class
+     * @param consumer 校验通过的每一行对象的处理逻辑
+     * @param report   错误报告
+     * @return 错误报告
+     */
+    public static <T> ExcelErrorReport validate(File file, Class<T> clazz, Consumer<T> consumer,
+                                                ExcelErrorReport report) throws Exception {
+        return validate(file, clazz, consumer, report, ExcelReadOptions.defaults());
+    }
+
+    /**
+     * 按配置校验并流式解析Excel 支持2003、2007
+     *
+     * @param file     待解析的Excel文件
+     * @param clazz    反射对象的Class
+     * @param consumer 校验通过的每一行对象的处理逻辑
+     * @param report   错误报告
+     * @param options  导入配置
+     * @return 错误报告
+     */
+    public static <T> ExcelErrorReport validate(File file, Class<T> clazz, Consumer<T> consumer,
+                                                ExcelErrorReport report, ExcelReadOptions options) throws Exception {
+        return traced(clazz, trace -> {
+            RowValidator<T> validator = validator(clazz, consumer, report);
+            try {
+                readRows(file, validator.getColumns(), options, trace, validator);
+            } finally {
+                trace.rows(report.getValidRowCount());
+            }
+            return report;
+        });
+    }
+
+    /**
+     * 校验并流式解析Excel 支持2003、2007
+     *
+     * @param file     待解析的Excel文件流
+     * @param clazz    反射对象的Class
+     * @param consumer 校验通过的每一行对象的处理逻辑
+     * @param report   错误报告
+     * @return 错误报告
+     */
+    public static <T> ExcelErrorReport validate(InputStream file, Class<T> clazz, Consumer<T> consumer,
+                                                ExcelErrorReport report) throws Exception {
+        return validate(file, clazz, consumer, report, ExcelReadOptions.defaults());
+    }
+
+    /**
+     * 按配置校验并流式解析Excel 支持2003、2007
+     *
+     * @param file     待解析的Excel文件流
+     * @param clazz    反射对象的Class
+     * @param consumer 校验通过的每一行对象的处理逻辑
+     * @param report   错误报告
+     * @param options  导入配置
+     * @return 错误报告
+     */
+    public static <T> ExcelErrorReport validate(InputStream file, Class<T> clazz, Consumer<T> consumer,
+                                                ExcelErrorReport report, ExcelReadOptions options) throws Exception {
+        return traced(clazz, trace -> {
+            RowValidator<T> validator = validator(clazz, consumer, report);
+            try {
+                readRows(file, validator.getColumns(), options, trace, validator);
+            } finally {
+                trace.rows(report.getValidRowCount());
+            }
+            return report;
+        });
+    }
+
+    private static <T> RowValidator<T> validator(Class<T> clazz, Consumer<T> consumer, ExcelErrorReport report) {
+        ExcelClassMeta<T> meta = ExcelClassMeta.of(clazz);
+        return new RowValidator<>(meta, resolveConverters(meta), consumer, report);
+    }
+
+    /**
+     * 解析完成，生成按列读取的结果
+     */
+    private static ExcelColumnBatch buildColumns(ColumnBatchBuilder builder, ExcelTrace trace) {
+        ExcelColumnBatch batch = builder.build();
+        trace.rows(batch.getRowCount());
+        // 全部行都在内存中，但只占用基本类型数组
+        trace.bufferedRows(batch.getRowCount());
+        return batch;
+    }
+
+    /**
+     * 埋点使用的类型，按表头声明的列定义没有对应的类
+     */
+    private static Class<?> tracedType(ExcelColumnSchema schema) {
+        return schema.getSource() != null ? schema.getSource() : ExcelColumnBatch.class;
+    }
+
+    /**
+     * 按文件头判断格式后流式解析
+     *
+     * @param file     Excel文件
+     * @param clazz    反射对象的Class
+     * @param consumer 每一行对象的处理逻辑
+     * @param options  导入配置
+     * @param trace    埋点
+     */
+    private static <T> void readStreaming(File file, Class<T> clazz, Consumer<T> consumer, ExcelReadOptions options,
+                                          ExcelTrace trace) throws Exception {
+        ExcelClassMeta<T> meta = ExcelClassMeta.of(clazz);
+        long[] rows = new long[1];
+        try {
+            readRows(file, meta.getImportColumns(), options, trace,
+                    rowCallback(meta, resolveConverters(meta), consumer, trace, rows));
+        } finally {
+            trace.rows(rows[0]);
+            trace.bufferedRows(rows[0] > 0 ? 1 : 0);
+        }
+    }
+
+    /**
+     * 按文件头判断格式后流式解析
+     *
+     * @param file     Excel文件流
+     * @param clazz    反射对象的Class
+     * @param consumer 每一行对象的处理逻辑
+     * @param options  导入配置
+     * @param trace    埋点
+     */
+    private static <T> void readStreaming(InputStream file, Class<T> clazz, Consumer<T> consumer,
+                                          ExcelReadOptions options, ExcelTrace trace) throws Exception {
+        ExcelClassMeta<T> meta = ExcelClassMeta.of(clazz);
+        long[] rows = new long[1];
+        try {
+            readRows(file, meta.getImportColumns(), options, trace,
+                    rowCallback(meta, resolveConverters(meta), consumer, trace, rows));
+        } finally {
+            trace.rows(rows[0]);
+            trace.bufferedRows(rows[0] > 0 ? 1 : 0);
+        }
+    }
+
+    /**
+     * 按文件头判断格式后逐行解析，每一行的单元格原始值交给callback
+     *
+     * @param file     Excel文件
+     * @param columns  导入列
+     * @param options  导入配置
+     * @param trace    埋点
+     * @param callback 行回调
+     */
+    static void readRows(File file, ExcelColumn[] columns, ExcelReadOptions options, ExcelTrace trace,
+                         XlsxSheetHandler.RowCallback callback) throws Exception {
+        if (isXls(file)) {
+            long start = System.nanoTime();
+            try (POIFSFileSystem fs = new POIFSFileSystem(file, true)) {
+                trace.phase(ExcelTrace.Phase.OPEN, System.nanoTime() - start);
+                trace.bytes(file.length());
+                readRows(fs, columns, options, trace, callback);
+            }
+            return;
+        }
+        OPCPackage pkg = open(file, trace);
+        try {
+            readRows(pkg, columns, options, trace, callback);
+        } finally {
+            // 只读打开的包无需保存，直接释放
+            pkg.revert();
+        }
+    }
+
+    /**
+     * 按文件头判断格式后逐行解析，每一行的单元格原始值交给callback
+     *
+     * @param file     Excel文件流
+     * @param columns  导入列
+     * @param options  导入配置
+     * @param trace    埋点
+     * @param callback 行回调
+     */
+    static void readRows(InputStream file, ExcelColumn[] columns, ExcelReadOptions options, ExcelTrace trace,
+                         XlsxSheetHandler.RowCallback callback) throws Exception {
+        InputStream in = FileMagic.prepareToCheckMagic(file);
+        if (isXls(in)) {
+            long start = System.nanoTime();
+            CountingInputStream counting = new CountingInputStream(in);
+            try (POIFSFileSystem fs = new POIFSFileSystem(counting)) {
+                trace.phase(ExcelTrace.Phase.OPEN, System.nanoTime() - start);
+                trace.bytes(counting.getCount());
+                readRows(fs, columns, options, trace, callback);
+            }
+            return;
+        }
+        OPCPackage pkg = open(in, trace);
+        try {
+            readRows(pkg, columns, options, trace, callback);
+        } finally {
+            pkg.revert();
+        }
+    }
+
+    /**
+     * 基于HSSFEventFactory逐条记录解析2003格式的工作簿
+     *
+     * @param fs       2003格式的文件系统
+     * @param columns  导入列
+     * @param options  导入配置
+     * @param trace    埋点
+     * @param callback 行回调
+     */
+    private static void readRows(POIFSFileSystem fs, ExcelColumn[] columns, ExcelReadOptions options,
+                                 ExcelTrace trace, XlsxSheetHandler.RowCallback callback) throws Exception {
+        HSSFRequest request = new HSSFRequest();
+        XlsRecordHandler handler = new XlsRecordHandler(columns, options, trace, callback);
+        request.addListenerForAllRecords(handler);
+
+        long start = System.nanoTime();
+        try {
+            new HSSFEventFactory().abortableProcessWorkbookEvents(request, fs);
+        } catch (HSSFUserException e) {
+            // 还原行处理过程中抛出的原始异常
+            Throwable reason = e.getReason();
+            throw reason instanceof Exception ? (Exception) reason : e;
+        } finally {
+            // 标题行的耗时已经单独上报
+            trace.phase(ExcelTrace.Phase.ROW_MAPPING, System.nanoTime() - start - handler.getHeaderNanos());
+        }
+    }
+
+    /**
+     * 流式解析的行处理：跳过空行，映射为对象后交给consumer
+     *
+     * @param meta       object对象的映射元数据
+     * @param converters 按列下标存放的转换器
+     * @param consumer   每一行对象的处理逻辑
+     * @param trace      埋点
+     * @param rows       已处理的行数
+     * @return 行回调
+     */
+    private static <T> XlsxSheetHandler.RowCallback rowCallback(ExcelClassMeta<T> meta, CellConverter<?>[] converters,
+                                                                Consumer<T> consumer, ExcelTrace trace, long[] rows) {
+        ExcelColumn[] columns = meta.getImportColumns();
+        return (rowNum, values) -> {
+            //谨防中间空一行
+            if (isBlankRow(values)) {
+                return;
+            }
+            consumer.accept(getObject(values, meta, columns, converters, trace));
+            rows[0]++;
+        };
+    }
+
+    /**
+     * 逐个工作表进行SAX解析
+     *
+     * @param pkg      Excel文件包
+     * @param columns  导入列
+     * @param options  导入配置
+     * @param trace    埋点
+     * @param callback 行回调
+     */
+    private static void readRows(OPCPackage pkg, ExcelColumn[] columns, ExcelReadOptions options, ExcelTrace trace,
+                                 XlsxSheetHandler.RowCallback callback) throws Exception {
+        XMLReader parser = SAXHelper.newXMLReader();
+
+        long start = System.nanoTime();
+        XSSFReader reader = new XSSFReader(pkg);
+        BitSet dateStyles = XlsxSheetHandler.dateStyles(reader.getStylesTable());
+        SharedStrings sharedStrings = SharedStrings.open(pkg, options);
+        trace.phase(ExcelTrace.Phase.OPEN, System.nanoTime() - start);
+
+        XlsxSheetHandler handler = new XlsxSheetHandler(sharedStrings, dateStyles, columns, options, trace, callback);
+        parser.setContentHandler(handler);
+
+        start = System.nanoTime();
+        try {
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream sheet = sheets.next()) {
+                    parser.parse(new InputSource(sheet));
+                } catch (SAXException e) {
+                    // 还原行处理过程中抛出的原始异常
+                    throw e.getException() != null ? e.getException() : e;
                 }
-                fieldList.add(field);
-                setterMethodMap.put(attr, method);
+            }
+        } finally {
+            // 行映射耗时包含consumer的处理时间，标题行的耗时已经单独上报
+            trace.phase(ExcelTrace.Phase.ROW_MAPPING, System.nanoTime() - start - handler.getHeaderNanos());
+            sharedStrings.close();
+        }
+    }
+
+    /**
+     * 根据文件头判断格式并打开工作簿，2003格式和2007格式都只读、随机访问文件，不会整个读入内存
+     *
+     * @param file  Excel文件
+     * @param trace 埋点
+     * @return 工作簿，使用后需要关闭
+     */
+    private static Workbook openWorkbook(File file, ExcelTrace trace) throws Exception {
+        long start = System.nanoTime();
+        Workbook book;
+        if (isXls(file)) {
+            //解析2003
+            POIFSFileSystem fs = new POIFSFileSystem(file, true);
+            try {
+                book = new HSSFWorkbook(fs);
+            } catch (Exception | Error e) {
+                fs.close();
+                throw e;
+            }
+        } else {
+            //解析2007
+            OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ);
+            try {
+                book = new XSSFWorkbook(pkg);
+            } catch (Exception | Error e) {
+                pkg.revert();
+                throw e;
             }
         }
+        trace.phase(ExcelTrace.Phase.OPEN, System.nanoTime() - start);
+        trace.bytes(file.length());
+        return book;
+    }
+
+    /**
+     * 根据文件头判断格式并打开工作簿
+     *
+     * @param file  Excel文件流
+     * @param trace 埋点
+     * @return 工作簿，使用后需要关闭
+     */
+    private static Workbook openWorkbook(InputStream file, ExcelTrace trace) throws Exception {
+        long start = System.nanoTime();
+        InputStream in = FileMagic.prepareToCheckMagic(file);
+        boolean xls = isXls(in);
+        CountingInputStream counting = new CountingInputStream(in);
+        Workbook book = xls ? new HSSFWorkbook(counting) : new XSSFWorkbook(counting);
+        trace.phase(ExcelTrace.Phase.OPEN, System.nanoTime() - start);
+        trace.bytes(counting.getCount());
+        return book;
+    }
+
+    /**
+     * 根据文件头判断是否为2003格式
+     *
+     * @param file Excel文件
+     * @return 2003格式返回true，2007格式返回false
+     */
+    static boolean isXls(File file) throws Exception {
+        try (InputStream in = FileMagic.prepareToCheckMagic(new FileInputStream(file))) {
+            return isXls(in);
+        }
+    }
+
+    /**
+     * 根据文件头判断是否为2003格式，只读取文件头，读取后流回到原来的位置
+     *
+     * @param in 支持mark/reset的文件流
+     * @return 2003格式返回true，2007格式返回false
+     */
+    private static boolean isXls(InputStream in) throws Exception {
+        FileMagic magic = FileMagic.valueOf(in);
+        if (magic == FileMagic.OLE2) {
+            return true;
+        }
+        if (magic == FileMagic.OOXML) {
+            return false;
+        }
+        throw new Exception("不支持的文件格式，只能导入xls或xlsx文件");
+    }
+
+    /**
+     * 只读打开2007格式的文件
+     *
+     * @param file  Excel文件
+     * @param trace 埋点
+     * @return Excel文件包
+     */
+    private static OPCPackage open(File file, ExcelTrace trace) throws Exception {
+        long start = System.nanoTime();
+        OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ);
+        trace.phase(ExcelTrace.Phase.OPEN, System.nanoTime() - start);
+        trace.bytes(file.length());
+        return pkg;
+    }
+
+    /**
+     * 打开2007格式的文件流，文件流会被完整读取
+     *
+     * @param file  Excel文件流
+     * @param trace 埋点
+     * @return Excel文件包
+     */
+    private static OPCPackage open(InputStream file, ExcelTrace trace) throws Exception {
+        long start = System.nanoTime();
+        CountingInputStream counting = new CountingInputStream(file);
+        OPCPackage pkg = OPCPackage.open(counting);
+        trace.phase(ExcelTrace.Phase.OPEN, System.nanoTime() - start);
+        trace.bytes(counting.getCount());
+        return pkg;
+    }
+
+    /**
+     * 带埋点的读取逻辑
+     */
+    interface TracedRead<R> {
+        R read(ExcelTrace trace) throws Exception;
+    }
+
+    /**
+     * 执行读取逻辑，结束时通知埋点
+     *
+     * @param clazz  反射对象的Class
+     * @param action 读取逻辑
+     * @return 读取结果
+     */
+    static <R> R traced(Class<?> clazz, TracedRead<R> action) throws Exception {
+        ExcelTrace trace = ExcelMetricsRegistry.start(ExcelTrace.Type.IMPORT, clazz);
+        Throwable error = null;
+        try {
+            return action.read(trace);
+        } catch (Exception | Error e) {
+            error = e;
+            throw e;
+        } finally {
+            trace.end(error);
+        }
+    }
+
+    /**
+     * 根据params、object解析Excel，并且构建list集合
+     *
+     * @param book    WorkBook对象，他代表了待将解析的Excel文件
+     * @param clazz   构建的Object对象，每一个row都相当于一个object对象
+     * @param options 导入配置
+     * @param trace   埋点
+     */
+    private static <T> List<T> getExcelContent(Workbook book, Class<T> clazz, ExcelReadOptions options,
+                                               ExcelTrace trace) throws Exception {
+        ExcelClassMeta<T> meta = ExcelClassMeta.of(clazz);
+        ExcelColumn[] columns = meta.getImportColumns();
+        CellConverter<?>[] converters = resolveConverters(meta);
+        CellData[] values = new CellData[columns.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new CellData();
+        }
+        StringDeduplicator[] deduplicators = StringDeduplicator.forColumns(columns.length, options);
 
         //初始化结果集
         List<T> resultList = new ArrayList<>();
+        long headerNanos = 0;
+        long start = System.nanoTime();
         for (int numSheet = 0; numSheet < book.getNumberOfSheets(); numSheet++) {
             Sheet sheet = book.getSheetAt(numSheet);
             //谨防中间空一行
@@ -115,144 +830,175 @@ public class ExcelReader {
                 continue;
             }
 
-            //一个row就相当于一个Object，标题行不读取
+            //标题行只用来计算列对应关系，只读取需要导入的列
+            long headerStart = System.nanoTime();
+            ColumnProjection projection = ColumnProjection.resolve(columns, readHeaders(sheet.getRow(0)));
+            headerNanos += System.nanoTime() - headerStart;
+            //一个row就相当于一个Object
             for (int numRow = 1; numRow <= sheet.getLastRowNum(); numRow++) {
                 Row row = sheet.getRow(numRow);
-                if (isBlankRow(row)) {
+                if (row == null) {
+                    continue;
+                }
+                readRow(row, projection, values, deduplicators);
+                if (isBlankRow(values)) {
                     continue;
                 }
-                resultList.add(getObject(row, setterMethodMap, fieldList, clazz));
+                resultList.add(getObject(values, meta, columns, converters, trace));
             }
         }
+        trace.phase(ExcelTrace.Phase.HEADER, headerNanos);
+        trace.phase(ExcelTrace.Phase.ROW_MAPPING, System.nanoTime() - start - headerNanos);
+        trace.rows(resultList.size());
+        // 整个工作簿和全部结果都在内存中
+        trace.bufferedRows(resultList.size());
         return resultList;
     }
 
-    private static boolean isBlankRow(Row row) {
-        if (row == null) {
-            return true;
+    /**
+     * 读取标题行
+     *
+     * @param row 标题行，不存在时为null
+     * @return 按列下标存放的标题
+     */
+    private static List<String> readHeaders(Row row) {
+        if (row == null || row.getLastCellNum() <= 0) {
+            return Collections.emptyList();
+        }
+        CellData cellData = new CellData();
+        List<String> headers = new ArrayList<>(row.getLastCellNum());
+        for (int i = 0; i < row.getLastCellNum(); i++) {
+            Cell cell = row.getCell(i);
+            if (cell == null) {
+                headers.add(null);
+                continue;
+            }
+            readCell(cell, cellData);
+            headers.add(cellData.getText());
         }
-        Cell cell = row.getCell(0, Row.MissingCellPolicy.RETURN_NULL_AND_BLANK);
-        return cell == null || cell.getCellTypeEnum().equals(CellType.BLANK);
+        return headers;
     }
 
     /**
-     * 获取row的数据，利用反射机制构建Object对象
+     * 只读取需要导入的列
      *
-     * @param row       row对象
-     * @param methodMap object对象的setter方法映射
-     * @param fieldList object对象的属性
+     * @param row           row对象
+     * @param projection    列对应关系
+     * @param values        按导入列下标存放的单元格值
+     * @param deduplicators 按导入列下标存放的字符串去重器，未开启去重时为null
      */
-    private static <T> T getObject(Row row,
-                                   Map<String, Method> methodMap, List<Field> fieldList, Class<T> obj) throws Exception {
-        T object = obj.newInstance();
-        for (int numCell = 0; numCell < fieldList.size(); numCell++) {
-            Field field = fieldList.get(numCell);
-            Cell cell = row.getCell(numCell);
+    private static void readRow(Row row, ColumnProjection projection, CellData[] values,
+                                StringDeduplicator[] deduplicators) {
+        for (int i = 0; i < values.length; i++) {
+            int sheetColumn = projection.sheetColumnOf(i);
+            Cell cell = sheetColumn < 0 ? null : row.getCell(sheetColumn);
             if (cell == null) {
+                values[i].setBlank();
                 continue;
             }
+            readCell(cell, values[i]);
+            if (deduplicators != null && values[i].getType() == CellType.STRING) {
+                values[i].setString(deduplicators[i].intern(values[i].getStringValue()));
+            }
+        }
+    }
 
-            cell.setCellType(CellType.STRING);
+    /**
+     * 需要导入的列都为空时视为空行
+     */
+    static boolean isBlankRow(CellData[] values) {
+        for (CellData value : values) {
+            if (!value.isBlank()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 查找每一列的转换器，每次解析只查找一次
+     *
+     * @param meta object对象的映射元数据
+     * @return 按列下标存放的转换器，不支持的类型为null
+     */
+    static CellConverter<?>[] resolveConverters(ExcelClassMeta<?> meta) {
+        ExcelColumn[] columns = meta.getImportColumns();
+        CellConverter<?>[] converters = new CellConverter<?>[columns.length];
+        for (ExcelColumn column : columns) {
+            converters[column.getIndex()] = CellConverters.find(column.getType());
+            if (converters[column.getIndex()] == null) {
+                log.warn("{}类{}属性的类型{}没有对应的转换器，无法导入", meta.getType().getName(),
+                        column.getName(), column.getType().getName());
+            }
+        }
+        return converters;
+    }
 
-            String cellValue = getValue(cell);
-            //在object对象中对应的setter方法
-            Method method = methodMap.get(field.getName());
-            setObjectPropertyValue(object, field, method, cellValue);
+    /**
+     * 根据读取到的单元格值构建Object对象
+     *
+     * @param values     按导入列下标存放的单元格值
+     * @param meta       object对象的映射元数据
+     * @param columns    导入列
+     * @param converters 每一列的转换器
+     * @param trace      埋点
+     */
+    static <T> T getObject(CellData[] values, ExcelClassMeta<T> meta, ExcelColumn[] columns,
+                           CellConverter<?>[] converters, ExcelTrace trace) {
+        T object = meta.newInstance();
+        for (ExcelColumn column : columns) {
+            setObjectPropertyValue(object, column, converters[column.getIndex()], values[column.getIndex()], trace);
         }
         return object;
     }
 
     /**
-     * 根据指定属性的的setter方法给object对象设置值
+     * 转换单元格的值并通过setter方法给object对象赋值
      *
-     * @param obj    object对象
-     * @param field  object对象的属性
-     * @param method object对象属性的相对应的方法
-     * @param value  需要设置的值
+     * @param obj       object对象
+     * @param column    object对象属性对应的列
+     * @param converter 该列的转换器
+     * @param cellData  单元格的值
+     * @param trace     埋点
      */
-    private static void setObjectPropertyValue(Object obj, Field field,
-                                               Method method, String value) throws Exception {
-        Object[] oo = new Object[1];
+    private static void setObjectPropertyValue(Object obj, ExcelColumn column, CellConverter<?> converter,
+                                               CellData cellData, ExcelTrace trace) {
+        if (converter == null || cellData.isBlank()) {
+            return;
+        }
+        Object value;
+        try {
+            value = converter.convert(cellData);
+        } catch (RuntimeException e) {
+            trace.conversionFailure(column.getName(), e);
+            throw e;
+        }
+        column.set(obj, value);
+    }
 
-        String type = field.getType().getName();
+    /**
+     * 读取单元格的原始值，不修改单元格类型
+     *
+     * @param cell     单元格
+     * @param cellData 读取结果
+     */
+    private static void readCell(Cell cell, CellData cellData) {
+        CellType type = cell.getCellTypeEnum();
+        if (type == CellType.FORMULA) {
+            type = cell.getCachedFormulaResultTypeEnum();
+        }
         switch (type) {
-            case "java.lang.String":
-            case "String":
-                oo[0] = value;
-                break;
-            case "java.lang.Integer":
-            case "java.lang.int":
-            case "Integer":
-            case "int":
-                if (value.length() > 0) {
-                    oo[0] = Integer.valueOf(value);
-                }
-                break;
-            case "java.lang.Float":
-            case "java.lang.float":
-            case "Float":
-            case "float":
-                if (value.length() > 0) {
-                    oo[0] = Float.valueOf(value);
-                }
-                break;
-            case "java.lang.Double":
-            case "java.lang.double":
-            case "Double":
-            case "double":
-                if (value.length() > 0) {
-                    oo[0] = Double.valueOf(value);
-                }
-                break;
-            case "java.math.BigDecimal":
-            case "BigDecimal":
-                if (value.length() > 0) {
-                    oo[0] = new BigDecimal(value);
-                }
+            case NUMERIC:
+                cellData.setNumeric(cell.getNumericCellValue(), DateUtil.isCellDateFormatted(cell));
                 break;
-            case "java.util.Date":
-            case "Date":
-                //当长度为19(yyyy-MM-dd HH24:mm:ss)或者为14(yyyyMMddHH24mmss)时Date格式转换为yyyyMMddHH24mmss
-                if (value.length() > 0) {
-                    if (value.length() == 19 || value.length() == 14) {
-                        oo[0] = DateUtils.string2Date(value, "yyyyMMddHH24mmss");
-                    } else {
-                        //其余全部转换为yyyyMMdd格式
-                        oo[0] = DateUtils.string2Date(value, "yyyyMMdd");
-                    }
-                }
-                break;
-            case "java.sql.Timestamp":
-                if (value.length() > 0) {
-                    oo[0] = DateUtils.formatDate(value, "yyyyMMddHH24mmss");
-                }
-                break;
-            case "java.lang.Boolean":
-            case "Boolean":
-                if (value.length() > 0) {
-                    oo[0] = Boolean.valueOf(value);
-                }
+            case STRING:
+                cellData.setString(cell.getStringCellValue());
                 break;
-            case "java.lang.Long":
-            case "java.lang.long":
-            case "Long":
-            case "long":
-                if (value.length() > 0) {
-                    oo[0] = Long.valueOf(value);
-                }
+            case BOOLEAN:
+                cellData.setBoolean(cell.getBooleanCellValue());
                 break;
             default:
-        }
-        method.invoke(obj, oo);
-    }
-
-    private static String getValue(Cell cell) {
-        if (CellType.BOOLEAN.equals(cell.getCellTypeEnum())) {
-            return String.valueOf(cell.getBooleanCellValue());
-        } else if (CellType.NUMERIC.equals(cell.getCellTypeEnum())) {
-            return NumberToTextConverter.toText(cell.getNumericCellValue());
-        } else {
-            return String.valueOf(cell.getStringCellValue());
+                cellData.setBlank();
         }
     }
 
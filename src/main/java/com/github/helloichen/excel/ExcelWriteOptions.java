@@ -0,0 +1,102 @@
+package com.github.helloichen.excel;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+import org.apache.poi.ss.SpreadsheetVersion;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Deflater;
+
+/**
+ * Excel导出配置
+ */
+@Data
+@Accessors(chain = true)
+public class ExcelWriteOptions {
+
+    /**
+     * 是否使用SXSSF流式导出，数据量较大时建议开启
+     */
+    private boolean streaming = false;
+
+    /**
+     * 流式导出时内存中保留的行数，超出的行会刷写到临时文件
+     */
+    private int rowAccessWindowSize = 100;
+
+    /**
+     * 流式导出时是否压缩临时文件，可以大幅减少磁盘占用
+     */
+    private boolean compressTempFiles = true;
+
+    /**
+     * 流式导出时字符串是否内联写在单元格中，关闭后使用共享字符串表，重复文本多时文件更小但需要在内存中维护该表。
+     * 非流式导出始终使用共享字符串表
+     */
+    private boolean inlineStrings = true;
+
+    /**
+     * 每个工作表最多写入的数据行数(不含表头)，超出后自动创建新的工作表并重复表头，默认为xlsx的行数上限
+     */
+    private int maxRowsPerSheet = SpreadsheetVersion.EXCEL2007.getMaxRows() - 1;
+
+    /**
+     * 是否根据内容自动调整列宽，写入时按字符数估算每列的最大宽度，写完后一次性设置
+     */
+    private boolean autoWidth = false;
+
+    /**
+     * 自动列宽只根据每个工作表写入器的前N行计算，0为全部行
+     */
+    private int autoWidthSampleRows = 0;
+
+    /**
+     * 自动列宽每N行取一行计算，1为每行都计算
+     */
+    private int autoWidthSampleRate = 1;
+
+    /**
+     * 分区导出时是否并行生成工作表，每个分区写入各自的工作表，仅对使用内联字符串的流式导出有效，其余情况按分区顺序写入
+     */
+    private boolean parallelSheets = false;
+
+    /**
+     * 并行生成工作表使用的线程池，为null时使用{@link ForkJoinPool#commonPool()}
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * 流式导出时是否并行压缩，开启后工作表XML按块在线程池中并行deflate，再组装为xlsx，大文件导出的耗时随核数下降。
+     * 非流式导出不支持，仍由POI压缩
+     */
+    private boolean parallelCompression = false;
+
+    /**
+     * 并行压缩的压缩级别，-1为默认级别，1~9级别越高文件越小越慢，0为只存储不压缩，适合内网传输
+     */
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    /**
+     * 并行压缩使用的线程池，为null时使用{@link ForkJoinPool#commonPool()}
+     */
+    private ForkJoinPool compressionPool;
+
+    /**
+     * 异步导出的超时时间，单位毫秒，超时后取消导出
+     */
+    private long asyncTimeout = 10 * 60 * 1000L;
+
+    /**
+     * 默认配置，使用XSSFWorkbook在内存中构建
+     */
+    public static ExcelWriteOptions defaults() {
+        return new ExcelWriteOptions();
+    }
+
+    /**
+     * 流式导出配置
+     */
+    public static ExcelWriteOptions streaming() {
+        return new ExcelWriteOptions().setStreaming(true);
+    }
+}
@@ -1,26 +1,35 @@
 package com.github.helloichen.excel;
 
 import com.alibaba.fastjson.JSON;
-import com.github.helloichen.annotation.IChenExcelField;
+import com.github.helloichen.excel.metadata.ExcelClassMeta;
+import com.github.helloichen.excel.metadata.ExcelColumn;
+import com.github.helloichen.excel.metrics.ExcelMetricsRegistry;
+import com.github.helloichen.excel.metrics.ExcelTrace;
+import com.github.helloichen.util.DateUtils;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFCellStyle;
-import org.apache.poi.xssf.usermodel.XSSFColor;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.apache.poi.xssf.usermodel.extensions.XSSFCellBorder;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.net.URLEncoder;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * @author iChen
@@ -28,6 +37,16 @@ import java.util.stream.Collectors;
  */
 @Slf4j
 public class ExcelWriter {
+
+    /**
+     * double可以精确表示的最大整数
+     */
+    private static final long MAX_EXACT_LONG = 1L << 53;
+    /**
+     * double可以精确表示的十进制有效位数
+     */
+    private static final int MAX_EXACT_DIGITS = 15;
+
     /**
      * 使用浏览器选择路径下载
      *
@@ -37,7 +56,319 @@ public class ExcelWriter {
      */
     public static void write(HttpServletResponse response, String fileName,
                              List<?> rowData, Class<?> clazz) {
+        write(response, fileName, rowData, clazz, ExcelWriteOptions.defaults());
+    }
+
+    /**
+     * 使用浏览器选择路径下载
+     *
+     * @param response 相应对象
+     * @param fileName 导出文件名称
+     * @param rowData  excel数据
+     * @param clazz    导出数据所属类型
+     * @param options  导出配置
+     */
+    public static void write(HttpServletResponse response, String fileName,
+                             List<?> rowData, Class<?> clazz, ExcelWriteOptions options) {
+        write(response, fileName, rowData.iterator(), clazz, options);
+    }
+
+    /**
+     * 使用浏览器选择路径下载，边迭代边流式写出，数据不需要一次性加载到内存
+     *
+     * @param response 相应对象
+     * @param fileName 导出文件名称
+     * @param rowData  excel数据迭代器
+     * @param clazz    导出数据所属类型
+     */
+    public static void write(HttpServletResponse response, String fileName,
+                             Iterator<?> rowData, Class<?> clazz) {
+        write(response, fileName, rowData, clazz, ExcelWriteOptions.streaming());
+    }
+
+    /**
+     * 使用浏览器选择路径下载
+     *
+     * @param response 相应对象
+     * @param fileName 导出文件名称
+     * @param rowData  excel数据迭代器
+     * @param clazz    导出数据所属类型
+     * @param options  导出配置
+     */
+    public static void write(HttpServletResponse response, String fileName,
+                             Iterator<?> rowData, Class<?> clazz, ExcelWriteOptions options) {
+        setDownloadHeaders(response, fileName);
+        writeExcelFile(Collections.singletonList(rowData), clazz, options, response);
+    }
+
+    /**
+     * 使用浏览器选择路径下载，边读取边流式写出，写出完成后关闭stream
+     *
+     * @param response 相应对象
+     * @param fileName 导出文件名称
+     * @param rowData  excel数据流，如数据库游标查询的结果
+     * @param clazz    导出数据所属类型
+     */
+    public static void write(HttpServletResponse response, String fileName,
+                             Stream<?> rowData, Class<?> clazz) {
+        write(response, fileName, rowData, clazz, ExcelWriteOptions.streaming());
+    }
+
+    /**
+     * 使用浏览器选择路径下载，写出完成后关闭stream
+     *
+     * @param response 相应对象
+     * @param fileName 导出文件名称
+     * @param rowData  excel数据流
+     * @param clazz    导出数据所属类型
+     * @param options  导出配置
+     */
+    public static void write(HttpServletResponse response, String fileName,
+                             Stream<?> rowData, Class<?> clazz, ExcelWriteOptions options) {
+        try (Stream<?> stream = rowData) {
+            write(response, fileName, stream.iterator(), clazz, options);
+        }
+    }
+
+    /**
+     * 使用浏览器选择路径下载，按页拉取数据流式写出，内存中只保留当前页
+     *
+     * @param response 相应对象
+     * @param fileName 导出文件名称
+     * @param supplier 分页数据提供者
+     * @param pageSize 每页条数
+     * @param clazz    导出数据所属类型
+     */
+    public static void write(HttpServletResponse response, String fileName,
+                             PageSupplier<?> supplier, int pageSize, Class<?> clazz) {
+        write(response, fileName, supplier, pageSize, clazz, ExcelWriteOptions.streaming());
+    }
+
+    /**
+     * 使用浏览器选择路径下载，按页拉取数据
+     *
+     * @param response 相应对象
+     * @param fileName 导出文件名称
+     * @param supplier 分页数据提供者
+     * @param pageSize 每页条数
+     * @param clazz    导出数据所属类型
+     * @param options  导出配置
+     */
+    public static void write(HttpServletResponse response, String fileName,
+                             PageSupplier<?> supplier, int pageSize, Class<?> clazz, ExcelWriteOptions options) {
+        write(response, fileName, new PagedIterator<>(supplier, pageSize), clazz, options);
+    }
+
+    /**
+     * 使用浏览器选择路径下载，通过导出结果缓存写出<br>
+     * 相同key和数据版本的导出只构建一次，之后直接从缓存写出；响应带上ETag，
+     * 客户端的If-None-Match与之匹配时返回304，不会读取数据，也不会读取缓存
+     *
+     * @param request  请求对象
+     * @param response 相应对象
+     * @param fileName 导出文件名称
+     * @param cache    导出结果缓存
+     * @param key      缓存key，应当能够区分不同的查询条件
+     * @param version  数据版本，数据变化后应当改变，如最后修改时间
+     * @param rowData  excel数据，只在缓存未命中时调用
+     * @param clazz    导出数据所属类型
+     */
+    public static void write(HttpServletRequest request, HttpServletResponse response, String fileName,
+                             ExcelExportCache cache, String key, String version,
+                             Supplier<? extends Iterator<?>> rowData, Class<?> clazz) {
+        write(request, response, fileName, cache, key, version, rowData, clazz, ExcelWriteOptions.defaults());
+    }
+
+    /**
+     * 使用浏览器选择路径下载，通过导出结果缓存写出
+     *
+     * @param request  请求对象
+     * @param response 相应对象
+     * @param fileName 导出文件名称
+     * @param cache    导出结果缓存
+     * @param key      缓存key，应当能够区分不同的查询条件
+     * @param version  数据版本，数据变化后应当改变，如最后修改时间
+     * @param rowData  excel数据，只在缓存未命中时调用
+     * @param clazz    导出数据所属类型
+     * @param options  导出配置
+     */
+    public static void write(HttpServletRequest request, HttpServletResponse response, String fileName,
+                             ExcelExportCache cache, String key, String version,
+                             Supplier<? extends Iterator<?>> rowData, Class<?> clazz, ExcelWriteOptions options) {
+        writeCachedFile(request, response, fileName, cache, key, version, rowData, clazz, options);
+    }
+
+    /**
+     * 异步导出，按页拉取数据，使用默认的导出线程池
+     *
+     * @param request  请求对象，相关的Servlet和Filter需要支持异步
+     * @param response 相应对象
+     * @param fileName 导出文件名称
+     * @param supplier 分页数据提供者，在导出线程中调用
+     * @param pageSize 每页条数
+     * @param clazz    导出数据所属类型
+     * @see #writeAsync(HttpServletRequest, HttpServletResponse, String, Iterator, Class, ExcelWriteOptions, ExecutorService)
+     */
+    public static void writeAsync(HttpServletRequest request, HttpServletResponse response, String fileName,
+                                  PageSupplier<?> supplier, int pageSize, Class<?> clazz) {
+        writeAsync(request, response, fileName, new PagedIterator<>(supplier, pageSize), clazz,
+                ExcelWriteOptions.streaming(), AsyncExcelExport.defaultExecutor());
+    }
+
+    /**
+     * 异步导出<br>
+     * 请求线程只负责开启AsyncContext，工作簿在executor中构建，生成的字节通过WriteListener非阻塞地写给客户端，
+     * 慢速客户端不会占用容器的请求线程。超时或客户端断开时取消导出。
+     * executor队列已满时返回503
+     *
+     * @param request  请求对象，相关的Servlet和Filter需要支持异步
+     * @param response 相应对象
+     * @param fileName 导出文件名称
+     * @param rowData  excel数据迭代器，在导出线程中迭代
+     * @param clazz    导出数据所属类型
+     * @param options  导出配置
+     * @param executor 构建工作簿的线程池，应当是有界的
+     */
+    public static void writeAsync(HttpServletRequest request, HttpServletResponse response, String fileName,
+                                  Iterator<?> rowData, Class<?> clazz, ExcelWriteOptions options,
+                                  ExecutorService executor) {
+        new AsyncExcelExport(request, response, options, executor,
+                outputStream -> writeWorkbook(rowData, clazz, options, outputStream),
+                () -> setDownloadHeaders(response, fileName)).start();
+    }
+
+    /**
+     * 导出到指定输出流，输出流由调用方负责关闭
+     *
+     * @param outputStream 输出流
+     * @param rowData      excel数据
+     * @param clazz        导出数据所属类型
+     * @param options      导出配置
+     * @throws Exception 导出失败
+     */
+    public static void write(OutputStream outputStream, List<?> rowData, Class<?> clazz,
+                             ExcelWriteOptions options) throws Exception {
+        writeWorkbook(rowData.iterator(), clazz, options, outputStream);
+    }
+
+    /**
+     * 导出到指定输出流，输出流由调用方负责关闭
+     *
+     * @param outputStream 输出流
+     * @param rowData      excel数据迭代器
+     * @param clazz        导出数据所属类型
+     * @param options      导出配置
+     * @throws Exception 导出失败
+     */
+    public static void write(OutputStream outputStream, Iterator<?> rowData, Class<?> clazz,
+                             ExcelWriteOptions options) throws Exception {
+        writeWorkbook(rowData, clazz, options, outputStream);
+    }
+
+    /**
+     * 导出到指定输出流，写出完成后关闭stream，输出流由调用方负责关闭
+     *
+     * @param outputStream 输出流
+     * @param rowData      excel数据流
+     * @param clazz        导出数据所属类型
+     * @param options      导出配置
+     * @throws Exception 导出失败
+     */
+    public static void write(OutputStream outputStream, Stream<?> rowData, Class<?> clazz,
+                             ExcelWriteOptions options) throws Exception {
+        try (Stream<?> stream = rowData) {
+            writeWorkbook(stream.iterator(), clazz, options, outputStream);
+        }
+    }
+
+    /**
+     * 按页拉取数据导出到指定输出流，输出流由调用方负责关闭
+     *
+     * @param outputStream 输出流
+     * @param supplier     分页数据提供者
+     * @param pageSize     每页条数
+     * @param clazz        导出数据所属类型
+     * @param options      导出配置
+     * @throws Exception 导出失败
+     */
+    public static void write(OutputStream outputStream, PageSupplier<?> supplier, int pageSize, Class<?> clazz,
+                             ExcelWriteOptions options) throws Exception {
+        writeWorkbook(new PagedIterator<>(supplier, pageSize), clazz, options, outputStream);
+    }
+
+    /**
+     * 使用浏览器选择路径下载，数据按分区导出<br>
+     * 开启{@link ExcelWriteOptions#isParallelSheets()}的流式导出中，各分区在线程池中同时迭代，写入各自的工作表，
+     * 工作表按分区顺序排列；其余情况按分区顺序依次写入
+     *
+     * @param response   相应对象
+     * @param fileName   导出文件名称
+     * @param partitions excel数据分区，如按id范围划分的多个游标
+     * @param clazz      导出数据所属类型
+     * @param options    导出配置
+     */
+    public static void writePartitioned(HttpServletResponse response, String fileName,
+                                        List<? extends Iterator<?>> partitions, Class<?> clazz,
+                                        ExcelWriteOptions options) {
+        setDownloadHeaders(response, fileName);
+        writeExcelFile(partitions, clazz, options, response);
+    }
 
+    /**
+     * 数据按分区导出到指定输出流，输出流由调用方负责关闭
+     *
+     * @param outputStream 输出流
+     * @param partitions   excel数据分区
+     * @param clazz        导出数据所属类型
+     * @param options      导出配置
+     * @throws Exception 导出失败
+     * @see #writePartitioned(HttpServletResponse, String, List, Class, ExcelWriteOptions)
+     */
+    public static void writePartitioned(OutputStream outputStream, List<? extends Iterator<?>> partitions,
+                                        Class<?> clazz, ExcelWriteOptions options) throws Exception {
+        writeWorkbook(partitions, clazz, options, outputStream);
+    }
+
+    /**
+     * 使用浏览器选择路径下载校验导入的错误报告
+     *
+     * @param response 相应对象
+     * @param fileName 导出文件名称
+     * @param report   错误报告
+     * @see ExcelReader#validate(java.io.File, Class, java.util.function.Consumer, ExcelErrorReport)
+     */
+    public static void writeErrorReport(HttpServletResponse response, String fileName, ExcelErrorReport report) {
+        setDownloadHeaders(response, fileName);
+        try (OutputStream outputStream = response.getOutputStream()) {
+            try {
+                ErrorReportWriter.write(report, outputStream);
+            } catch (Exception e) {
+                log.error("导出错误报告失败,错误信息：{}", e.getMessage());
+                writeFailure(response);
+            }
+        } catch (Exception e) {
+            log.error("导出错误报告失败,错误信息：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 校验导入的错误报告写出到指定输出流，出错的单元格标红并以批注说明原因，输出流由调用方负责关闭
+     *
+     * @param outputStream 输出流
+     * @param report       错误报告
+     * @throws Exception 导出失败
+     */
+    public static void writeErrorReport(OutputStream outputStream, ExcelErrorReport report) throws Exception {
+        ErrorReportWriter.write(report, outputStream);
+    }
+
+    /**
+     * 设置下载的响应头
+     *
+     * @param response 相应对象
+     * @param fileName 导出文件名称
+     */
+    private static void setDownloadHeaders(HttpServletResponse response, String fileName) {
         response.setContentType("application/binary;charset=UTF-8");
         // 进行转码，使其支持中文文件名
         try {
@@ -47,38 +378,24 @@ public class ExcelWriter {
         }
         // 下载文件的默认名称
         response.setHeader("Content-Disposition", "attachment;filename=" + fileName + ".xlsx");
-        writeExcelFile(rowData, clazz, response);
     }
 
     /**
      * 写excel文件
      *
-     * @param rowData  表数据list
-     * @param clazz    导出数据所属类型
-     * @param response 响应对象
+     * @param partitions 表数据分区
+     * @param clazz      导出数据所属类型
+     * @param options    导出配置
+     * @param response   响应对象
      */
-    private static void writeExcelFile(List<?> rowData, Class<?> clazz, HttpServletResponse response) {
-        XSSFWorkbook workbook = new XSSFWorkbook();
+    private static void writeExcelFile(List<? extends Iterator<?>> partitions, Class<?> clazz,
+                                       ExcelWriteOptions options, HttpServletResponse response) {
         try (OutputStream outputStream = response.getOutputStream()) {
-            XSSFSheet sheet = workbook.createSheet();
             try {
-                writeExcelContent(workbook, sheet, rowData, clazz);
-                workbook.write(outputStream);
+                writeWorkbook(partitions, clazz, options, outputStream);
             } catch (Exception e) {
-                // 重置response
                 log.error("导出文件失败,错误信息：{}", e.getMessage());
-                response.reset();
-                response.setContentType("application/json");
-                response.setCharacterEncoding("utf-8");
-                Map<String, String> map = new HashMap<>(8);
-                map.put("code", "-1");
-                map.put("data", "下载文件失败");
-                map.put("message", "操作失败");
-                try (PrintWriter writer = response.getWriter()) {
-                    writer.println(JSON.toJSONString(map));
-                } catch (Exception ioExp) {
-                    log.error("失败信息返回出错！");
-                }
+                writeFailure(response);
             }
         } catch (Exception e) {
             log.error("导出文件失败,错误信息：{}", e.getMessage());
@@ -86,173 +403,448 @@ public class ExcelWriter {
     }
 
     /**
-     * 写excel内容
+     * 重置response并返回失败信息
      *
-     * @param workbook 工作簿
-     * @param sheet    工作表
-     * @param rowData  表数据list
+     * @param response 响应对象
+     */
+    private static void writeFailure(HttpServletResponse response) {
+        response.reset();
+        response.setContentType("application/json");
+        response.setCharacterEncoding("utf-8");
+        Map<String, String> map = new HashMap<>(8);
+        map.put("code", "-1");
+        map.put("data", "下载文件失败");
+        map.put("message", "操作失败");
+        try (PrintWriter writer = response.getWriter()) {
+            writer.println(JSON.toJSONString(map));
+        } catch (Exception ioExp) {
+            log.error("失败信息返回出错！");
+        }
+    }
+
+    /**
+     * 写出缓存的工作簿，带上ETag，If-None-Match匹配时返回304
+     *
+     * @param request  请求对象
+     * @param response 响应对象
+     * @param fileName 导出文件名称
+     * @param cache    导出结果缓存
+     * @param key      缓存key
+     * @param version  数据版本
+     * @param rowData  excel数据迭代器
      * @param clazz    导出数据所属类型
+     * @param options  导出配置
      */
-    private static void writeExcelContent(XSSFWorkbook workbook, XSSFSheet sheet, List<?> rowData, Class<?> clazz) throws Exception {
-
-        Field[] fields = clazz.getDeclaredFields();
-        Method[] methods = clazz.getDeclaredMethods();
-        Map<String, Method> methodTempMap = Arrays.stream(methods)
-                .filter(method -> Modifier.isPublic(method.getModifiers()))
-                .filter(method -> method.getName().startsWith("get"))
-                .collect(Collectors.toMap(Method::getName, Function.identity()));
-
-        Map<String, Method> getterMethodMap = new HashMap<>(16);
-        Map<String, String> titleMap = new HashMap<>(16);
-        List<Field> fieldList = new ArrayList<>();
-        for (Field field : fields) {
-            IChenExcelField excelField = field.getAnnotation(IChenExcelField.class);
-            if (excelField != null && excelField.importField()) {
-                String attr = field.getName();
-                String getterName = "get" + Character.toUpperCase(attr.charAt(0)) + attr.substring(1);
-                Method method = methodTempMap.get(getterName);
-                // getter方法不为null才可以导出
-                if (method == null) {
-                    log.warn("{}类{}属性无getter方法，无法导出", clazz.getName(), attr);
-                    continue;
+    private static void writeCachedFile(HttpServletRequest request, HttpServletResponse response, String fileName,
+                                        ExcelExportCache cache, String key, String version,
+                                        Supplier<? extends Iterator<?>> rowData, Class<?> clazz,
+                                        ExcelWriteOptions options) {
+        // 同一个key在不同类型的导出中互不影响
+        String cacheKey = clazz.getName() + ':' + key;
+        String etag = ExcelExportCache.etag(cacheKey, version);
+        response.setHeader("ETag", etag);
+        // 允许客户端缓存，但每次使用前都需要校验数据版本
+        response.setHeader("Cache-Control", "no-cache");
+        if (ExcelExportCache.matches(request.getHeader("If-None-Match"), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        ExcelExportCache.Entry entry;
+        try {
+            entry = cache.acquire(cacheKey, version,
+                    outputStream -> writeWorkbook(rowData.get(), clazz, options, outputStream));
+        } catch (Exception e) {
+            log.error("导出文件失败,错误信息：{}", e.getMessage());
+            writeFailure(response);
+            return;
+        }
+        try (OutputStream outputStream = response.getOutputStream()) {
+            setDownloadHeaders(response, fileName);
+            response.setContentLengthLong(entry.getSize());
+            entry.writeTo(outputStream);
+        } catch (Exception e) {
+            log.error("导出文件失败,错误信息：{}", e.getMessage());
+        } finally {
+            entry.release();
+        }
+    }
+
+    /**
+     * 构建工作簿并写入输出流
+     *
+     * @param rowData      表数据迭代器
+     * @param clazz        导出数据所属类型
+     * @param options      导出配置
+     * @param outputStream 输出流
+     */
+    static void writeWorkbook(Iterator<?> rowData, Class<?> clazz, ExcelWriteOptions options,
+                              OutputStream outputStream) throws Exception {
+        writeWorkbook(Collections.singletonList(rowData), clazz, options, outputStream);
+    }
+
+    /**
+     * 构建工作簿并写入输出流
+     *
+     * @param partitions   表数据分区
+     * @param clazz        导出数据所属类型
+     * @param options      导出配置
+     * @param outputStream 输出流
+     */
+    private static void writeWorkbook(List<? extends Iterator<?>> partitions, Class<?> clazz,
+                                      ExcelWriteOptions options, OutputStream outputStream) throws Exception {
+        ExcelTrace trace = ExcelMetricsRegistry.start(ExcelTrace.Type.EXPORT, clazz);
+        Throwable error = null;
+        long start = System.nanoTime();
+        Workbook workbook = createWorkbook(options);
+        try {
+            trace.phase(ExcelTrace.Phase.OPEN, System.nanoTime() - start);
+            writeExcelContent(workbook, partitions, clazz, options, trace);
+
+            CountingOutputStream counting = new CountingOutputStream(outputStream);
+            start = System.nanoTime();
+            if (options.isParallelCompression() && workbook instanceof SXSSFWorkbook) {
+                ParallelWorkbookWriter.write((SXSSFWorkbook) workbook, counting, options);
+            } else {
+                workbook.write(counting);
+            }
+            trace.phase(ExcelTrace.Phase.SERIALIZE, System.nanoTime() - start);
+            start = System.nanoTime();
+            counting.flush();
+            trace.phase(ExcelTrace.Phase.FLUSH, System.nanoTime() - start);
+            trace.bytes(counting.getCount());
+        } catch (Exception | Error e) {
+            error = e;
+            throw e;
+        } finally {
+            if (workbook instanceof SXSSFWorkbook) {
+                // 删除流式导出产生的临时文件
+                if (!((SXSSFWorkbook) workbook).dispose()) {
+                    log.warn("导出临时文件删除失败");
                 }
-                fieldList.add(field);
-                String title = excelField.value();
-                titleMap.put(attr, title);
-                getterMethodMap.put(attr, method);
             }
+            workbook.close();
+            trace.end(error);
         }
+    }
+
+    /**
+     * 根据导出配置创建工作簿
+     *
+     * @param options 导出配置
+     * @return 工作簿
+     */
+    private static Workbook createWorkbook(ExcelWriteOptions options) {
+        if (!options.isStreaming()) {
+            return new XSSFWorkbook();
+        }
+        // 内联字符串直接写在单元格中，不需要在内存中维护共享字符串表
+        return new SXSSFWorkbook(null, options.getRowAccessWindowSize(), options.isCompressTempFiles(),
+                !options.isInlineStrings());
+    }
+
+    /**
+     * 写excel内容
+     *
+     * @param workbook   工作簿
+     * @param partitions 表数据分区
+     * @param clazz      导出数据所属类型
+     * @param options    导出配置
+     * @param trace      埋点
+     */
+    private static void writeExcelContent(Workbook workbook, List<? extends Iterator<?>> partitions, Class<?> clazz,
+                                          ExcelWriteOptions options, ExcelTrace trace) throws Exception {
+        long start = System.nanoTime();
+        ExcelColumn[] columns = ExcelClassMeta.of(clazz).getExportColumns();
+        CellStylePool stylePool = new CellStylePool(workbook);
+        // 样式池不是线程安全的，并行写入前创建好所有样式
+        stylePool.titleStyle();
+        CellStyle[] styles = new CellStyle[columns.length];
+        for (ExcelColumn column : columns) {
+            styles[column.getIndex()] = stylePool.dataStyle(column);
+        }
+        int maxRows = Math.max(1, Math.min(options.getMaxRowsPerSheet(),
+                SpreadsheetVersion.EXCEL2007.getMaxRows() - 1));
+        trace.phase(ExcelTrace.Phase.HEADER, System.nanoTime() - start);
 
-        //表头
-        writeTitlesToExcel(workbook, sheet, fieldList, titleMap);
         //数据
-        writeRowDataToExcel(workbook, sheet, rowData, fieldList, getterMethodMap);
+        start = System.nanoTime();
+        int rows = 0;
+        boolean parallel = options.isParallelSheets() && partitions.size() > 1 && workbook instanceof SXSSFWorkbook
+                && options.isInlineStrings();
+        if (parallel) {
+            rows = writePartitionsInParallel(workbook, partitions, columns, stylePool, styles, maxRows, options);
+        } else {
+            SheetWriter writer = new SheetWriter(workbook, columns, stylePool, styles, maxRows, options, null, null);
+            // 没有数据时也导出只有表头的工作表
+            writer.nextSheet();
+            for (Iterator<?> partition : partitions) {
+                rows += writeRowDataToExcel(writer, partition);
+            }
+            writer.applyColumnWidths();
+        }
+        trace.phase(ExcelTrace.Phase.ROW_MAPPING, System.nanoTime() - start);
+        trace.rows(rows);
+        // 流式导出时每个同时写入的工作表在内存中最多保留窗口大小的行，其余行已写入临时文件
+        int concurrentSheets = parallel ? partitions.size() : 1;
+        long windowRows = options.getRowAccessWindowSize();
+        trace.bufferedRows(options.isStreaming() ? Math.min(rows, windowRows * concurrentSheets) : rows);
+    }
+
+    /**
+     * 各分区在线程池中同时写入各自的工作表，完成后按分区顺序排列工作表
+     *
+     * @return 写入的行数
+     */
+    private static int writePartitionsInParallel(Workbook workbook, List<? extends Iterator<?>> partitions,
+                                                 ExcelColumn[] columns, CellStylePool stylePool, CellStyle[] styles,
+                                                 int maxRows, ExcelWriteOptions options) throws Exception {
+        ForkJoinPool pool = options.getPool() != null ? options.getPool() : ForkJoinPool.commonPool();
+        AtomicBoolean aborted = new AtomicBoolean();
+        AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+        List<SheetWriter> writers = new ArrayList<>(partitions.size());
+        List<ForkJoinTask<Integer>> tasks = new ArrayList<>(partitions.size());
+        for (int i = 0; i < partitions.size(); i++) {
+            SheetWriter writer = new SheetWriter(workbook, columns, stylePool, styles, maxRows, options,
+                    "ichen-" + i + "-", aborted);
+            Iterator<?> partition = partitions.get(i);
+            writers.add(writer);
+            tasks.add(pool.submit(() -> {
+                try {
+                    return writeRowDataToExcel(writer, partition);
+                } catch (RuntimeException | Error e) {
+                    // 一个分区失败时立即通知其余分区退出，只记录最先失败的原因
+                    if (aborted.compareAndSet(false, true)) {
+                        firstFailure.set(e);
+                    }
+                    throw e;
+                }
+            }));
+        }
+        // 等待全部分区退出后再释放工作簿
+        int rows = 0;
+        Throwable failure = null;
+        for (ForkJoinTask<Integer> task : tasks) {
+            try {
+                rows += task.join();
+            } catch (RuntimeException | Error e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (firstFailure.get() != null) {
+            failure = firstFailure.get();
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure != null) {
+            throw (RuntimeException) failure;
+        }
+
+        int position = 0;
+        for (SheetWriter writer : writers) {
+            writer.applyColumnWidths();
+            for (Sheet sheet : writer.sheets) {
+                workbook.setSheetOrder(sheet.getSheetName(), position++);
+            }
+        }
+        if (position == 0) {
+            SheetWriter writer = new SheetWriter(workbook, columns, stylePool, styles, maxRows, options, null, null);
+            writer.nextSheet();
+            writer.applyColumnWidths();
+        }
+        // 与顺序写入时的默认名称一致
+        for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
+            workbook.setSheetName(i, "Sheet" + i);
+        }
+        return rows;
     }
 
     /**
      * 写入工作表数据
      *
-     * @param workbook  工作簿
-     * @param sheet     工作表
-     * @param rowData   工作表数据
-     * @param methodMap 属性Getter方法Map
-     * @throws Exception 抛出异常
-     */
-    private static void writeRowDataToExcel(XSSFWorkbook workbook, XSSFSheet sheet, List<?> rowData,
-                                            List<Field> fieldList, Map<String, Method> methodMap) throws Exception {
-        Font dataFont = workbook.createFont();
-        dataFont.setFontName("simsun");
-        dataFont.setFontHeightInPoints((short) 14);
-        dataFont.setColor(IndexedColors.BLACK.index);
-        XSSFCellStyle dataStyle = workbook.createCellStyle();
-        dataStyle.setAlignment(HorizontalAlignment.CENTER);
-        dataStyle.setVerticalAlignment(VerticalAlignment.CENTER);
-        dataStyle.setFont(dataFont);
-        setBorder(dataStyle, new XSSFColor(new java.awt.Color(0, 0, 0)));
-
-        int colIndex;
-        //从第一行开始写数据，第0行为标题行
-        int rowIndex = 1;
-        for (Object data : rowData) {
-            Row dataRow = sheet.createRow(rowIndex);
+     * @param writer  工作表写入器，超出行数上限时自动创建新的工作表
+     * @param rowData 工作表数据迭代器，逐行拉取
+     * @return 写入的行数
+     */
+    private static int writeRowDataToExcel(SheetWriter writer, Iterator<?> rowData) {
+        ExcelColumn[] columns = writer.columns;
+        CellStyle[] styles = writer.styles;
+        ColumnWidthTracker widthTracker = writer.widthTracker;
+        int rows = 0;
+        while (rowData.hasNext()) {
+            // 异步导出被取消或其他分区失败时及时退出
+            if (Thread.currentThread().isInterrupted() || writer.isAborted()) {
+                throw new IllegalStateException("导出已取消");
+            }
+            Object data = rowData.next();
+            Row dataRow = writer.nextRow();
             dataRow.setHeightInPoints(25);
-            colIndex = 0;
-            for (Field field : fieldList) {
-                String fieldName = field.getName();
-                Cell cell = dataRow.createCell(colIndex);
-                Method method = methodMap.get(fieldName);
-                Object invoke = method.invoke(data);
-                if (invoke != null) {
-                    cell.setCellValue(invoke.toString());
-                } else {
-                    cell.setCellValue("");
+            boolean sampled = widthTracker != null && widthTracker.sampleRow();
+            for (ExcelColumn column : columns) {
+                Cell cell = dataRow.createCell(column.getIndex());
+                cell.setCellStyle(styles[column.getIndex()]);
+                Object value = column.get(data);
+                if (value != null) {
+                    setCellValue(cell, value);
+                    if (sampled) {
+                        widthTracker.track(column.getIndex(), value);
+                    }
                 }
-                cell.setCellStyle(dataStyle);
-                colIndex++;
             }
-            rowIndex++;
+            rows++;
         }
+        return rows;
+    }
 
+    /**
+     * 按值的类型写入单元格，数字、布尔和时间写为原生类型，不进入共享字符串表
+     *
+     * @param cell  单元格
+     * @param value 属性值，不为null
+     */
+    private static void setCellValue(Cell cell, Object value) {
+        if (value instanceof String) {
+            cell.setCellValue((String) value);
+        } else if (value instanceof Number) {
+            setNumericValue(cell, (Number) value);
+        } else if (value instanceof Date) {
+            cell.setCellValue((Date) value);
+        } else if (value instanceof Boolean) {
+            cell.setCellValue((Boolean) value);
+        } else if (value instanceof LocalDateTime) {
+            cell.setCellValue(DateUtils.toDate((LocalDateTime) value));
+        } else if (value instanceof LocalDate) {
+            cell.setCellValue(DateUtils.toDate(((LocalDate) value).atStartOfDay()));
+        } else if (value instanceof Enum) {
+            cell.setCellValue(((Enum<?>) value).name());
+        } else {
+            cell.setCellValue(value.toString());
+        }
     }
 
     /**
-     * 设置工作表表头
+     * 写入数字，超出double精度的数字(如雪花算法生成的长整型id)写为文本，避免导出后丢失精度；
+     * float和BigDecimal按十进制文本转换为double
      *
-     * @param workbook excel工作簿
-     * @param sheet    excel工作表
-     */
-    private static void writeTitlesToExcel(XSSFWorkbook workbook, XSSFSheet sheet, List<Field> fieldList, Map<String, String> titleMap) {
-        Font titleFont = workbook.createFont();
-        //设置字体
-        titleFont.setFontName("黑体");
-        //设置粗体
-        titleFont.setBold(true);
-        //设置字号
-        titleFont.setFontHeightInPoints((short) 14);
-        //设置颜色
-        titleFont.setColor(IndexedColors.BLACK.index);
-        XSSFCellStyle titleStyle = workbook.createCellStyle();
-        //水平居中
-        titleStyle.setAlignment(HorizontalAlignment.CENTER);
-        //垂直居中
-        titleStyle.setVerticalAlignment(VerticalAlignment.CENTER);
-        //设置图案颜色
-        titleStyle.setFillForegroundColor(new XSSFColor(new java.awt.Color(255, 255, 0)));
-        //设置图案样式
-        titleStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-        titleStyle.setFont(titleFont);
-        setBorder(titleStyle, new XSSFColor(new java.awt.Color(0, 0, 0)));
+     * @param cell   单元格
+     * @param number 数字
+     */
+    private static void setNumericValue(Cell cell, Number number) {
+        if (number instanceof Long || number instanceof BigInteger) {
+            long value = number.longValue();
+            boolean exact = number instanceof Long || ((BigInteger) number).bitLength() < 64;
+            if (!exact || value > MAX_EXACT_LONG || value < -MAX_EXACT_LONG) {
+                cell.setCellValue(number.toString());
+                return;
+            }
+        } else if (number instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) number;
+            if (decimal.precision() > MAX_EXACT_DIGITS) {
+                cell.setCellValue(decimal.toPlainString());
+            } else {
+                cell.setCellValue(Double.parseDouble(decimal.toString()));
+            }
+            return;
+        } else if (number instanceof Float) {
+            // 按显示的十进制值写入，float直接扩展为double时0.1f会写成0.10000000149011612
+            cell.setCellValue(Double.parseDouble(number.toString()));
+            return;
+        }
+        cell.setCellValue(number.doubleValue());
+    }
 
+    /**
+     * 设置工作表表头
+     *
+     * @param sheet     excel工作表
+     * @param columns   导出列
+     * @param stylePool 样式池
+     */
+    private static void writeTitlesToExcel(Sheet sheet, ExcelColumn[] columns, CellStylePool stylePool) {
+        CellStyle titleStyle = stylePool.titleStyle();
         Row titleRow = sheet.createRow(0);
         titleRow.setHeightInPoints(25);
 
-        int colIndex = 0;
-        for (Field field : fieldList) {
-            Cell cell = titleRow.createCell(colIndex);
-            cell.setCellValue(titleMap.get(field.getName()));
+        for (ExcelColumn column : columns) {
+            Cell cell = titleRow.createCell(column.getIndex());
+            cell.setCellValue(column.getTitle());
             cell.setCellStyle(titleStyle);
-            colIndex++;
         }
     }
 
     /**
-     * 设置边框
-     *
-     * @param style XSSFCellStyle
-     * @param color XSSFColor
+     * 按行数上限滚动写入工作表，每个新工作表先写入表头<br>
+     * 并行写入时每个分区使用各自的写入器，创建工作表时锁住工作簿
      */
+    private static final class SheetWriter {
+        private final Workbook workbook;
+        private final ExcelColumn[] columns;
+        private final CellStylePool stylePool;
+        private final CellStyle[] styles;
+        private final int maxRows;
+        /**
+         * 工作表临时名称前缀，为null时使用POI的默认名称
+         */
+        private final String namePrefix;
+        private final AtomicBoolean aborted;
+        /**
+         * 自动列宽，未开启时为null
+         */
+        private final ColumnWidthTracker widthTracker;
+        private final List<Sheet> sheets = new ArrayList<>();
+        private Sheet sheet;
+        private int rowIndex;
 
-    private static void setBorder(XSSFCellStyle style, XSSFColor color) {
-
-        style.setBorderTop(BorderStyle.THIN);
-        style.setBorderLeft(BorderStyle.THIN);
-        style.setBorderRight(BorderStyle.THIN);
-        style.setBorderBottom(BorderStyle.THIN);
+        SheetWriter(Workbook workbook, ExcelColumn[] columns, CellStylePool stylePool, CellStyle[] styles,
+                    int maxRows, ExcelWriteOptions options, String namePrefix, AtomicBoolean aborted) {
+            this.workbook = workbook;
+            this.columns = columns;
+            this.stylePool = stylePool;
+            this.styles = styles;
+            this.maxRows = maxRows;
+            this.namePrefix = namePrefix;
+            this.aborted = aborted;
+            this.widthTracker = options.isAutoWidth() ? new ColumnWidthTracker(columns, options) : null;
+        }
 
-        style.setBorderColor(XSSFCellBorder.BorderSide.TOP, color);
-        style.setBorderColor(XSSFCellBorder.BorderSide.LEFT, color);
-        style.setBorderColor(XSSFCellBorder.BorderSide.RIGHT, color);
-        style.setBorderColor(XSSFCellBorder.BorderSide.BOTTOM, color);
+        boolean isAborted() {
+            return aborted != null && aborted.get();
+        }
 
-    }
+        /**
+         * 把自动计算的列宽设置到写入过的所有工作表
+         */
+        void applyColumnWidths() {
+            if (widthTracker == null) {
+                return;
+            }
+            for (Sheet written : sheets) {
+                widthTracker.apply(written);
+            }
+        }
 
-    /**
-     * 自动调整列宽
-     *
-     * @param sheet        sheet工作表
-     * @param columnNumber 列数
-     */
+        /**
+         * 创建下一行，当前工作表已满时换到新的工作表
+         */
+        Row nextRow() {
+            if (sheet == null || rowIndex > maxRows) {
+                nextSheet();
+            }
+            return sheet.createRow(rowIndex++);
+        }
 
-    private static void autoSizeColumns(Sheet sheet, int columnNumber) {
-        for (int i = 0; i < columnNumber; i++) {
-            int orgWidth = sheet.getColumnWidth(i);
-            sheet.autoSizeColumn(i, true);
-            int newWidth = sheet.getColumnWidth(i) + 100;
-            if (newWidth > orgWidth) {
-                sheet.setColumnWidth(i, Math.min(newWidth, 65280));
-            } else {
-                sheet.setColumnWidth(i, orgWidth);
+        /**
+         * 创建新的工作表并写入表头，第0行为标题行，从第一行开始写数据
+         */
+        void nextSheet() {
+            synchronized (workbook) {
+                sheet = namePrefix == null ? workbook.createSheet() : workbook.createSheet(namePrefix + sheets.size());
             }
+            sheets.add(sheet);
+            writeTitlesToExcel(sheet, columns, stylePool);
+            rowIndex = 1;
         }
     }
 }
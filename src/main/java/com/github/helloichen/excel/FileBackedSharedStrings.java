@@ -0,0 +1,253 @@
+package com.github.helloichen.excel;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.util.SAXHelper;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于内存映射临时文件的共享字符串表<br>
+ * 解析sharedStrings.xml时把每个字符串按UTF-8编码顺序写入数据文件，偏移量写入索引文件，解析完成后两个文件都以只读方式映射到内存。
+ * 映射的内存由操作系统按需换入换出，不占用堆内存；堆中只保留一个固定大小的LRU缓存，存放最近解码的字符串。
+ * 数据文件按1GB分段映射，写入时保证单个字符串不会跨段
+ */
+@Slf4j
+final class FileBackedSharedStrings implements SharedStrings {
+
+    private static final int SEGMENT_SIZE = 1 << 30;
+
+    private final Path dataFile;
+    private final Path indexFile;
+    private final int count;
+    private final ByteBuffer[] segments;
+    private final ByteBuffer index;
+    private final Map<Integer, String> cache;
+    /**
+     * 数据文件和下标文件的字节数
+     */
+    private final long size;
+
+    private FileBackedSharedStrings(Path dataFile, Path indexFile, int count, long dataSize, int cacheSize)
+            throws IOException {
+        this.dataFile = dataFile;
+        this.indexFile = indexFile;
+        this.count = count;
+        this.size = dataSize + (long) count * Long.BYTES;
+        this.segments = new ByteBuffer[(int) ((dataSize + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+        try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+            for (int i = 0; i < segments.length; i++) {
+                long position = (long) i * SEGMENT_SIZE;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(SEGMENT_SIZE, dataSize - position));
+            }
+        }
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            this.index = channel.map(FileChannel.MapMode.READ_ONLY, 0, (long) count * Long.BYTES);
+        }
+        this.cache = new StringCache(Math.max(cacheSize, 0));
+    }
+
+    /**
+     * 解析文件包中的共享字符串表并写入临时文件
+     *
+     * @param pkg       Excel文件包
+     * @param cacheSize 堆内存中缓存的字符串个数
+     * @return 共享字符串表
+     */
+    static FileBackedSharedStrings open(OPCPackage pkg, int cacheSize) throws IOException, SAXException {
+        Path dataFile = Files.createTempFile("ichen-poi-sst-", ".dat");
+        Path indexFile = null;
+        try {
+            indexFile = Files.createTempFile("ichen-poi-sst-", ".idx");
+            Writer writer = new Writer(dataFile, indexFile);
+            try {
+                List<PackagePart> parts = pkg.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
+                if (!parts.isEmpty()) {
+                    try (InputStream in = parts.get(0).getInputStream()) {
+                        XMLReader parser = SAXHelper.newXMLReader();
+                        parser.setContentHandler(writer);
+                        parser.parse(new InputSource(in));
+                    }
+                }
+            } catch (ParserConfigurationException e) {
+                throw new SAXException(e);
+            } finally {
+                writer.close();
+            }
+            return new FileBackedSharedStrings(dataFile, indexFile, writer.count, writer.position, cacheSize);
+        } catch (IOException | SAXException | RuntimeException e) {
+            delete(dataFile);
+            if (indexFile != null) {
+                delete(indexFile);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public String get(int idx) {
+        if (idx < 0 || idx >= count) {
+            throw new IndexOutOfBoundsException("共享字符串下标越界：" + idx);
+        }
+        synchronized (cache) {
+            String value = cache.get(idx);
+            if (value != null) {
+                return value;
+            }
+        }
+        long offset = index.getLong(idx * Long.BYTES);
+        // 每次读取使用独立的视图，多个线程读取时互不影响
+        ByteBuffer segment = segments[(int) (offset / SEGMENT_SIZE)].duplicate();
+        int position = (int) (offset % SEGMENT_SIZE);
+        byte[] bytes = new byte[segment.getInt(position)];
+        segment.position(position + Integer.BYTES);
+        segment.get(bytes);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        synchronized (cache) {
+            cache.put(idx, value);
+        }
+        return value;
+    }
+
+    @Override
+    public void close() {
+        synchronized (cache) {
+            cache.clear();
+        }
+        // Java 8无法主动解除映射，Linux下可以直接删除，其他系统删除失败时退出时再删除
+        delete(dataFile);
+        delete(indexFile);
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("共享字符串临时文件删除失败：{}", file);
+            file.toFile().deleteOnExit();
+        }
+    }
+
+    /**
+     * 解析sharedStrings.xml，每个si节点是一个字符串，富文本的多个t节点和注音拼接在一起，与{@code ReadOnlySharedStringsTable}的默认行为一致
+     */
+    private static final class Writer extends DefaultHandler {
+        private final DataOutputStream data;
+        private final DataOutputStream offsets;
+        private final StringBuilder text = new StringBuilder(64);
+        private boolean textOpen;
+        private long position;
+        private int count;
+
+        Writer(Path dataFile, Path indexFile) throws IOException {
+            this.data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(dataFile), 64 * 1024));
+            this.offsets = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile), 64 * 1024));
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            if ("si".equals(localName)) {
+                text.setLength(0);
+            } else if ("t".equals(localName)) {
+                textOpen = true;
+            } else if ("rPh".equals(localName) && text.length() > 0) {
+                // 注音与正文之间用空格分隔
+                text.append(' ');
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            if ("t".equals(localName)) {
+                textOpen = false;
+            } else if ("si".equals(localName)) {
+                try {
+                    write(text.toString().getBytes(StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    throw new SAXException(e);
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (textOpen) {
+                text.append(ch, start, length);
+            }
+        }
+
+        private void write(byte[] bytes) throws IOException {
+            if (count == Integer.MAX_VALUE / Long.BYTES) {
+                throw new IOException("共享字符串数量超出上限");
+            }
+            int size = Integer.BYTES + bytes.length;
+            long remaining = SEGMENT_SIZE - position % SEGMENT_SIZE;
+            if (size > remaining) {
+                // 不跨段，剩余空间补0
+                for (long i = 0; i < remaining; i++) {
+                    data.write(0);
+                }
+                position += remaining;
+            }
+            offsets.writeLong(position);
+            data.writeInt(bytes.length);
+            data.write(bytes);
+            position += size;
+            count++;
+        }
+
+        void close() throws IOException {
+            try {
+                data.close();
+            } finally {
+                offsets.close();
+            }
+        }
+    }
+
+    /**
+     * 按访问顺序淘汰的字符串缓存，访问时需要持有该对象的锁
+     */
+    private static final class StringCache extends LinkedHashMap<Integer, String> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        StringCache(int capacity) {
+            super(Math.min(capacity, 1024) * 2, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+            return size() > capacity;
+        }
+    }
+}
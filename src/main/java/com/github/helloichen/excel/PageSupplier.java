@@ -0,0 +1,19 @@
+package com.github.helloichen.excel;
+
+import java.util.List;
+
+/**
+ * 分页数据提供者，导出时按页拉取数据，适合从数据库分页查询
+ */
+@FunctionalInterface
+public interface PageSupplier<T> {
+
+    /**
+     * 查询一页数据
+     *
+     * @param pageNo   页码，从1开始
+     * @param pageSize 每页条数
+     * @return 该页数据，返回空集合或不足一页时导出结束
+     */
+    List<T> fetch(int pageNo, int pageSize);
+}
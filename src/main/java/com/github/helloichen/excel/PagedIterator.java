@@ -0,0 +1,51 @@
+package com.github.helloichen.excel;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 按页拉取数据的迭代器，内存中只保留当前页
+ */
+class PagedIterator<T> implements Iterator<T> {
+
+    private final PageSupplier<T> supplier;
+    private final int pageSize;
+    private int pageNo = 0;
+    private Iterator<T> current = Collections.emptyIterator();
+    private boolean lastPage = false;
+
+    PagedIterator(PageSupplier<T> supplier, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize必须大于0");
+        }
+        this.supplier = supplier;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (lastPage) {
+                return false;
+            }
+            List<T> page = supplier.fetch(++pageNo, pageSize);
+            if (page == null || page.isEmpty()) {
+                lastPage = true;
+                return false;
+            }
+            lastPage = page.size() < pageSize;
+            current = page.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+}
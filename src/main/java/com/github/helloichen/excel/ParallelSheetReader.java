@@ -0,0 +1,299 @@
+package com.github.helloichen.excel;
+
+import com.github.helloichen.excel.convert.CellConverter;
+import com.github.helloichen.excel.convert.CellData;
+import com.github.helloichen.excel.metadata.ExcelClassMeta;
+import com.github.helloichen.excel.metadata.ExcelColumn;
+import com.github.helloichen.excel.metrics.ExcelTrace;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.util.SAXHelper;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于fork/join的2007格式并行解析<br>
+ * 每个工作表由一个任务进行SAX解析，解析出的行按块交给子任务映射为对象，
+ * 工作表之间以及同一工作表的不同块之间都可以并行。共享字符串表和日期样式只读，由所有任务共享
+ */
+class ParallelSheetReader<T> {
+
+    private final ExcelClassMeta<T> meta;
+    private final ExcelColumn[] columns;
+    private final CellConverter<?>[] converters;
+    private final SharedStrings sharedStrings;
+    private final BitSet dateStyles;
+    private final int chunkSize;
+    private final ExcelReadOptions options;
+    private final ExcelTrace trace;
+    /**
+     * 不要求顺序时，各映射任务完成后直接放入该队列
+     */
+    private final Queue<List<T>> unorderedResults;
+    /**
+     * 第一个失败的工作表任务的异常，其他工作表任务看到后停止解析
+     */
+    private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+    /**
+     * 各工作表解析标题行的耗时，已由解析器记录为HEADER阶段
+     */
+    private final LongAdder headerNanos = new LongAdder();
+
+    private ParallelSheetReader(ExcelClassMeta<T> meta, SharedStrings sharedStrings, BitSet dateStyles,
+                                ExcelReadOptions options, ExcelTrace trace) {
+        this.meta = meta;
+        this.columns = meta.getImportColumns();
+        this.converters = ExcelReader.resolveConverters(meta);
+        this.sharedStrings = sharedStrings;
+        this.dateStyles = dateStyles;
+        this.chunkSize = Math.max(options.getChunkSize(), 1);
+        this.options = options;
+        this.trace = trace;
+        this.unorderedResults = options.isOrdered() ? null : new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * 并行解析所有工作表
+     *
+     * @param pkg     Excel文件包
+     * @param clazz   反射对象的Class
+     * @param options 导入配置
+     * @param trace   埋点
+     * @return 解析结果
+     */
+    static <T> List<T> read(OPCPackage pkg, Class<T> clazz, ExcelReadOptions options, ExcelTrace trace)
+            throws Exception {
+        long start = System.nanoTime();
+        XSSFReader reader = new XSSFReader(pkg);
+        BitSet dateStyles = XlsxSheetHandler.dateStyles(reader.getStylesTable());
+        SharedStrings sharedStrings = SharedStrings.open(pkg, options);
+        ParallelSheetReader<T> context = new ParallelSheetReader<>(ExcelClassMeta.of(clazz), sharedStrings,
+                dateStyles, options, trace);
+        trace.phase(ExcelTrace.Phase.OPEN, System.nanoTime() - start);
+
+        List<InputStream> sheets = new ArrayList<>();
+        try {
+            Iterator<InputStream> iterator = reader.getSheetsData();
+            while (iterator.hasNext()) {
+                sheets.add(iterator.next());
+            }
+            ForkJoinPool pool = options.getPool() != null ? options.getPool() : ForkJoinPool.commonPool();
+            try {
+                start = System.nanoTime();
+                List<T> resultList = pool.invoke(context.new WorkbookTask(sheets));
+                trace.phase(ExcelTrace.Phase.ROW_MAPPING, System.nanoTime() - start - context.headerNanos.sum());
+                trace.rows(resultList.size());
+                trace.bufferedRows(resultList.size());
+                return resultList;
+            } catch (RuntimeException e) {
+                // 还原工作表解析时被包装的受检异常，跨线程抛出时fork/join可能会再包装一层
+                for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                    if (cause instanceof SheetReadException) {
+                        throw (Exception) cause.getCause();
+                    }
+                }
+                throw e;
+            }
+        } finally {
+            for (InputStream sheet : sheets) {
+                sheet.close();
+            }
+            sharedStrings.close();
+        }
+    }
+
+    /**
+     * 解析整个工作簿，每个工作表一个子任务
+     */
+    private class WorkbookTask extends RecursiveTask<List<T>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<InputStream> sheets;
+
+        WorkbookTask(List<InputStream> sheets) {
+            this.sheets = sheets;
+        }
+
+        @Override
+        protected List<T> compute() {
+            List<SheetTask> tasks = new ArrayList<>(sheets.size());
+            for (InputStream sheet : sheets) {
+                tasks.add(new SheetTask(sheet));
+            }
+            for (SheetTask task : tasks) {
+                task.fork();
+            }
+
+            List<T> resultList = new ArrayList<>();
+            try {
+                for (SheetTask task : tasks) {
+                    List<T> sheetResult = task.join();
+                    if (unorderedResults == null) {
+                        resultList.addAll(sheetResult);
+                    }
+                }
+            } catch (RuntimeException | Error e) {
+                // 映射失败时工作表任务没有登记，在这里通知其余工作表任务停止解析
+                firstFailure.compareAndSet(null, e);
+                // 取消其余工作表任务并等待正在执行的任务结束，之后才能关闭工作表流和共享字符串表
+                for (SheetTask task : tasks) {
+                    task.cancel(true);
+                }
+                for (SheetTask task : tasks) {
+                    task.quietlyJoin();
+                }
+                Throwable failure = firstFailure.get();
+                if (failure instanceof RuntimeException) {
+                    throw (RuntimeException) failure;
+                }
+                if (failure instanceof Error) {
+                    throw (Error) failure;
+                }
+                throw e;
+            }
+            if (unorderedResults != null) {
+                for (List<T> chunk : unorderedResults) {
+                    resultList.addAll(chunk);
+                }
+            }
+            return resultList;
+        }
+    }
+
+    /**
+     * 解析一个工作表，解析出的行每满一块就分叉出一个映射任务
+     */
+    private class SheetTask extends RecursiveTask<List<T>> {
+        private static final long serialVersionUID = 1L;
+
+        private final InputStream sheet;
+
+        SheetTask(InputStream sheet) {
+            this.sheet = sheet;
+        }
+
+        @Override
+        protected List<T> compute() {
+            List<ChunkTask> chunks = new ArrayList<>();
+            List<CellData[]> buffer = new ArrayList<>(chunkSize);
+            XlsxSheetHandler handler = new XlsxSheetHandler(sharedStrings, dateStyles, columns, options, trace,
+                    (rowNum, values) -> {
+                        if (firstFailure.get() != null) {
+                            throw new CancellationException("其他工作表解析失败");
+                        }
+                        //谨防中间空一行
+                        if (ExcelReader.isBlankRow(values)) {
+                            return;
+                        }
+                        CellData[] row = new CellData[values.length];
+                        for (int i = 0; i < values.length; i++) {
+                            row[i] = values[i].copy();
+                        }
+                        buffer.add(row);
+                        if (buffer.size() >= chunkSize) {
+                            ChunkTask chunk = new ChunkTask(new ArrayList<>(buffer));
+                            chunk.fork();
+                            chunks.add(chunk);
+                            buffer.clear();
+                        }
+                    });
+            List<T> lastResult;
+            try {
+                parse(handler);
+                headerNanos.add(handler.getHeaderNanos());
+                // 最后不满一块的行在当前线程映射
+                lastResult = new ChunkTask(buffer).compute();
+            } catch (RuntimeException | Error e) {
+                if (!(e instanceof CancellationException)) {
+                    firstFailure.compareAndSet(null, e);
+                }
+                // 解析失败时取消已分叉的映射任务，并等待正在执行的任务结束，失败后不再产生结果
+                for (ChunkTask chunk : chunks) {
+                    chunk.cancel(true);
+                }
+                for (ChunkTask chunk : chunks) {
+                    chunk.quietlyJoin();
+                }
+                throw e;
+            }
+
+            if (unorderedResults != null) {
+                for (ChunkTask chunk : chunks) {
+                    chunk.join();
+                }
+                return null;
+            }
+            List<T> resultList = new ArrayList<>();
+            for (ChunkTask chunk : chunks) {
+                resultList.addAll(chunk.join());
+            }
+            resultList.addAll(lastResult);
+            return resultList;
+        }
+
+        private void parse(XlsxSheetHandler handler) {
+            try {
+                XMLReader parser = SAXHelper.newXMLReader();
+                parser.setContentHandler(handler);
+                parser.parse(new InputSource(sheet));
+            } catch (SAXException e) {
+                Exception cause = e.getException() != null ? e.getException() : e;
+                throw cause instanceof RuntimeException ? (RuntimeException) cause : new SheetReadException(cause);
+            } catch (IOException | ParserConfigurationException e) {
+                throw new SheetReadException(e);
+            }
+        }
+    }
+
+    /**
+     * 把一块行映射为对象
+     */
+    private class ChunkTask extends RecursiveTask<List<T>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<CellData[]> rows;
+
+        ChunkTask(List<CellData[]> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        protected List<T> compute() {
+            List<T> resultList = new ArrayList<>(rows.size());
+            for (CellData[] row : rows) {
+                resultList.add(ExcelReader.getObject(row, meta, columns, converters, trace));
+            }
+            if (unorderedResults != null) {
+                unorderedResults.add(resultList);
+            }
+            return resultList;
+        }
+    }
+
+    /**
+     * 在任务中传递受检异常
+     */
+    private static class SheetReadException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        SheetReadException(Exception cause) {
+            super("工作表解析失败", cause);
+        }
+    }
+}
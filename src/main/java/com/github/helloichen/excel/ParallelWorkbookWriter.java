@@ -0,0 +1,118 @@
+package com.github.helloichen.excel;
+
+import org.apache.poi.util.IOUtils;
+import org.apache.poi.util.TempFile;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * 并行压缩写出流式工作簿<br>
+ * 与{@link SXSSFWorkbook#write(OutputStream)}相同，先把不含行数据的模板工作簿写入临时文件，
+ * 再把各工作表刷写到临时文件中的行数据填入模板的sheetData，不同的是由{@link ParallelZipOutput}并行压缩组装xlsx，
+ * 不再由ZipOutputStream在当前线程中压缩
+ */
+final class ParallelWorkbookWriter {
+
+    private static final String SHEET_DATA = "<sheetData";
+    private static final String SHEET_DATA_END = "</sheetData>";
+
+    private ParallelWorkbookWriter() {
+    }
+
+    /**
+     * 写出工作簿，输出流由调用方关闭
+     *
+     * @param workbook     流式工作簿
+     * @param outputStream 输出流
+     * @param options      导出配置
+     */
+    static void write(SXSSFWorkbook workbook, OutputStream outputStream, ExcelWriteOptions options)
+            throws IOException {
+        ForkJoinPool pool = options.getCompressionPool() != null ? options.getCompressionPool()
+                : ForkJoinPool.commonPool();
+        XSSFWorkbook template = workbook.getXSSFWorkbook();
+        // 模板中工作表的条目名称到流式工作表的映射
+        Map<String, SXSSFSheet> sheets = new HashMap<>();
+        for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
+            String partName = template.getSheetAt(i).getPackagePart().getPartName().getName();
+            sheets.put(partName.substring(1), workbook.getSheetAt(i));
+        }
+
+        File templateFile = TempFile.createTempFile("ichen-sxssf-template", ".xlsx");
+        try {
+            try (OutputStream os = new FileOutputStream(templateFile)) {
+                template.write(os);
+            }
+            try (ZipFile zip = new ZipFile(templateFile);
+                 ParallelZipOutput out = new ParallelZipOutput(outputStream, options.getCompressionLevel(), pool)) {
+                Enumeration<? extends ZipEntry> entries = zip.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    SXSSFSheet sheet = sheets.get(entry.getName());
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        if (sheet == null) {
+                            out.putEntry(entry.getName(), in);
+                        } else {
+                            try (InputStream sheetData = sheet.getWorksheetXMLInputStream();
+                                 InputStream merged = injectSheetData(in, sheetData)) {
+                                out.putEntry(entry.getName(), merged);
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            if (!templateFile.delete()) {
+                templateFile.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * 用刷写的行数据替换模板工作表中的sheetData
+     *
+     * @param template  模板工作表XML
+     * @param sheetData 行数据，不含sheetData标签
+     * @return 完整的工作表XML
+     */
+    private static InputStream injectSheetData(InputStream template, InputStream sheetData) throws IOException {
+        String xml = new String(IOUtils.toByteArray(template), StandardCharsets.UTF_8);
+        int start = xml.indexOf(SHEET_DATA);
+        if (start < 0) {
+            throw new IOException("工作表模板中没有sheetData");
+        }
+        int tagEnd = xml.indexOf('>', start);
+        String prefix;
+        String suffix;
+        if (xml.charAt(tagEnd - 1) == '/') {
+            // <sheetData/>
+            prefix = xml.substring(0, start) + "<sheetData>";
+            suffix = SHEET_DATA_END + xml.substring(tagEnd + 1);
+        } else {
+            prefix = xml.substring(0, tagEnd + 1);
+            suffix = xml.substring(xml.indexOf(SHEET_DATA_END, tagEnd));
+        }
+        return new SequenceInputStream(Collections.enumeration(Arrays.asList(
+                new ByteArrayInputStream(prefix.getBytes(StandardCharsets.UTF_8)),
+                sheetData,
+                new ByteArrayInputStream(suffix.getBytes(StandardCharsets.UTF_8)))));
+    }
+}
@@ -0,0 +1,385 @@
+package com.github.helloichen.excel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 并行deflate的zip输出<br>
+ * 与pigz相同，每个条目的数据按固定大小切块，各块以前一块的末尾32KB作为预设字典在线程池中并行压缩，
+ * 非最后一块以SYNC_FLUSH结束并按字节对齐，按顺序拼接后就是一个完整的deflate流。
+ * CRC在读取线程中顺序计算。条目使用数据描述符记录大小，超过4GB的条目、偏移量或超过65535个条目时使用zip64
+ */
+class ParallelZipOutput implements Closeable {
+
+    /**
+     * 每块的输入字节数
+     */
+    private static final int BLOCK_SIZE = 128 * 1024;
+    /**
+     * deflate的最大回溯距离，也是预设字典的最大长度
+     */
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int DATA_DESCRIPTOR = 0x08074b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int ZIP64_END = 0x06064b50;
+    private static final int ZIP64_LOCATOR = 0x07064b50;
+    private static final int END = 0x06054b50;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+    private static final int VERSION = 20;
+    private static final int VERSION_ZIP64 = 45;
+    /**
+     * 使用数据描述符，文件名为UTF-8
+     */
+    private static final int FLAGS = 0x0808;
+    private static final int DEFLATED = 8;
+
+    private final OutputStream out;
+    private final int level;
+    private final ForkJoinPool pool;
+    /**
+     * 同时在压缩的块数，限制内存占用
+     */
+    private final int window;
+    private final int dosTime;
+    private final byte[] buffer = new byte[8];
+    private final List<EntryRecord> entries = new ArrayList<>();
+    private long written;
+    private boolean finished;
+
+    /**
+     * @param out   输出流，关闭时不会关闭该输出流
+     * @param level 压缩级别，0为只存储
+     * @param pool  压缩线程池
+     */
+    ParallelZipOutput(OutputStream out, int level, ForkJoinPool pool) {
+        this.out = out;
+        this.level = level;
+        this.pool = pool;
+        this.window = Math.max(pool.getParallelism(), 1) * 2;
+        this.dosTime = dosTime(System.currentTimeMillis());
+    }
+
+    /**
+     * 写入一个条目，读取完输入流后返回，输入流由调用方关闭
+     *
+     * @param name 条目名称
+     * @param in   条目数据
+     */
+    void putEntry(String name, InputStream in) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        long offset = written;
+        writeInt(LOCAL_HEADER);
+        writeShort(VERSION);
+        writeShort(FLAGS);
+        writeShort(DEFLATED);
+        writeInt(dosTime);
+        // crc和大小写在数据描述符中
+        writeInt(0);
+        writeInt(0);
+        writeInt(0);
+        writeShort(nameBytes.length);
+        writeShort(0);
+        writeBytes(nameBytes, 0, nameBytes.length);
+
+        CRC32 crc = new CRC32();
+        long size = 0;
+        long compressedSize = 0;
+        Deque<Future<byte[]>> pending = new ArrayDeque<>(window);
+        try {
+            byte[] block = readBlock(in);
+            if (block == null) {
+                // 空条目也需要一个结束块
+                pending.add(pool.submit(() -> deflate(new byte[0], null, true)));
+            }
+            byte[] dictionary = null;
+            while (block != null) {
+                byte[] next = readBlock(in);
+                crc.update(block, 0, block.length);
+                size += block.length;
+                byte[] input = block;
+                byte[] preset = dictionary;
+                boolean last = next == null;
+                pending.add(pool.submit(() -> deflate(input, preset, last)));
+                dictionary = block;
+                block = next;
+                while (pending.size() >= window) {
+                    compressedSize += writeBlock(pending.poll());
+                }
+            }
+            while (!pending.isEmpty()) {
+                compressedSize += writeBlock(pending.poll());
+            }
+        } finally {
+            for (Future<byte[]> future : pending) {
+                future.cancel(true);
+            }
+        }
+
+        boolean zip64 = size >= ZIP64_MAGIC || compressedSize >= ZIP64_MAGIC;
+        writeInt(DATA_DESCRIPTOR);
+        writeInt((int) crc.getValue());
+        if (zip64) {
+            writeLong(compressedSize);
+            writeLong(size);
+        } else {
+            writeInt((int) compressedSize);
+            writeInt((int) size);
+        }
+        entries.add(new EntryRecord(nameBytes, crc.getValue(), compressedSize, size, offset));
+    }
+
+    /**
+     * 写出中央目录，不会关闭底层输出流
+     */
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        long centralOffset = written;
+        for (EntryRecord entry : entries) {
+            writeCentralHeader(entry);
+        }
+        long centralSize = written - centralOffset;
+        boolean zip64 = entries.size() >= ZIP64_MAGIC_COUNT || centralOffset >= ZIP64_MAGIC
+                || centralSize >= ZIP64_MAGIC;
+        if (zip64) {
+            long zip64EndOffset = written;
+            writeInt(ZIP64_END);
+            // 记录除去前12字节后的长度
+            writeLong(44);
+            writeShort(VERSION_ZIP64);
+            writeShort(VERSION_ZIP64);
+            writeInt(0);
+            writeInt(0);
+            writeLong(entries.size());
+            writeLong(entries.size());
+            writeLong(centralSize);
+            writeLong(centralOffset);
+            writeInt(ZIP64_LOCATOR);
+            writeInt(0);
+            writeLong(zip64EndOffset);
+            writeInt(1);
+        }
+        int count = Math.min(entries.size(), ZIP64_MAGIC_COUNT);
+        writeInt(END);
+        writeShort(0);
+        writeShort(0);
+        writeShort(count);
+        writeShort(count);
+        writeInt((int) Math.min(centralSize, ZIP64_MAGIC));
+        writeInt((int) Math.min(centralOffset, ZIP64_MAGIC));
+        writeShort(0);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+
+    private void writeCentralHeader(EntryRecord entry) throws IOException {
+        // zip64扩展字段只包含超出范围的值，顺序为原始大小、压缩后大小、偏移量
+        int extraLength = 0;
+        if (entry.size >= ZIP64_MAGIC) {
+            extraLength += 8;
+        }
+        if (entry.compressedSize >= ZIP64_MAGIC) {
+            extraLength += 8;
+        }
+        if (entry.offset >= ZIP64_MAGIC) {
+            extraLength += 8;
+        }
+        int version = extraLength > 0 ? VERSION_ZIP64 : VERSION;
+        writeInt(CENTRAL_HEADER);
+        writeShort(version);
+        writeShort(version);
+        writeShort(FLAGS);
+        writeShort(DEFLATED);
+        writeInt(dosTime);
+        writeInt((int) entry.crc);
+        writeInt((int) Math.min(entry.compressedSize, ZIP64_MAGIC));
+        writeInt((int) Math.min(entry.size, ZIP64_MAGIC));
+        writeShort(entry.name.length);
+        writeShort(extraLength > 0 ? extraLength + 4 : 0);
+        // 注释长度、起始磁盘、内部属性、外部属性
+        writeShort(0);
+        writeShort(0);
+        writeShort(0);
+        writeInt(0);
+        writeInt((int) Math.min(entry.offset, ZIP64_MAGIC));
+        writeBytes(entry.name, 0, entry.name.length);
+        if (extraLength > 0) {
+            writeShort(0x0001);
+            writeShort(extraLength);
+            if (entry.size >= ZIP64_MAGIC) {
+                writeLong(entry.size);
+            }
+            if (entry.compressedSize >= ZIP64_MAGIC) {
+                writeLong(entry.compressedSize);
+            }
+            if (entry.offset >= ZIP64_MAGIC) {
+                writeLong(entry.offset);
+            }
+        }
+    }
+
+    /**
+     * 等待一块压缩完成并写出
+     *
+     * @return 压缩后的字节数
+     */
+    private long writeBlock(Future<byte[]> future) throws IOException {
+        byte[] compressed;
+        try {
+            compressed = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("压缩被中断");
+        } catch (ExecutionException e) {
+            throw new IOException("压缩失败", e.getCause());
+        }
+        writeBytes(compressed, 0, compressed.length);
+        return compressed.length;
+    }
+
+    /**
+     * 压缩一块数据
+     *
+     * @param input      输入
+     * @param dictionary 前一块的输入，第一块为null
+     * @param last       是否为最后一块
+     * @return 压缩后的数据，非最后一块按字节对齐且不带结束标记
+     */
+    private byte[] deflate(byte[] input, byte[] dictionary, boolean last) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            if (dictionary != null) {
+                int length = Math.min(dictionary.length, DICTIONARY_SIZE);
+                deflater.setDictionary(dictionary, dictionary.length - length, length);
+            }
+            deflater.setInput(input);
+            if (last) {
+                deflater.finish();
+            }
+            byte[] output = new byte[input.length + (input.length >> 3) + 64];
+            int length = 0;
+            while (true) {
+                if (length == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+                length += deflater.deflate(output, length, output.length - length,
+                        last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+                // SYNC_FLUSH在输出缓冲区未写满时已经输出了全部数据
+                if (last ? deflater.finished() : length < output.length) {
+                    break;
+                }
+            }
+            return length == output.length ? output : Arrays.copyOf(output, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 读取一块输入，除最后一块外都读满
+     *
+     * @return 读取的数据，已读完时返回null
+     */
+    private static byte[] readBlock(InputStream in) throws IOException {
+        byte[] block = new byte[BLOCK_SIZE];
+        int length = 0;
+        while (length < block.length) {
+            int n = in.read(block, length, block.length - length);
+            if (n < 0) {
+                break;
+            }
+            length += n;
+        }
+        if (length == 0) {
+            return null;
+        }
+        return length == block.length ? block : Arrays.copyOf(block, length);
+    }
+
+    private void writeShort(int value) throws IOException {
+        buffer[0] = (byte) value;
+        buffer[1] = (byte) (value >>> 8);
+        writeBytes(buffer, 0, 2);
+    }
+
+    private void writeInt(int value) throws IOException {
+        buffer[0] = (byte) value;
+        buffer[1] = (byte) (value >>> 8);
+        buffer[2] = (byte) (value >>> 16);
+        buffer[3] = (byte) (value >>> 24);
+        writeBytes(buffer, 0, 4);
+    }
+
+    private void writeLong(long value) throws IOException {
+        for (int i = 0; i < 8; i++) {
+            buffer[i] = (byte) (value >>> (i * 8));
+        }
+        writeBytes(buffer, 0, 8);
+    }
+
+    private void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+        out.write(bytes, offset, length);
+        written += length;
+    }
+
+    /**
+     * 转换为MS-DOS格式的时间，高16位为日期
+     */
+    private static int dosTime(long millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        int year = calendar.get(Calendar.YEAR);
+        if (year < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (year - 1980) << 25
+                | (calendar.get(Calendar.MONTH) + 1) << 21
+                | calendar.get(Calendar.DAY_OF_MONTH) << 16
+                | calendar.get(Calendar.HOUR_OF_DAY) << 11
+                | calendar.get(Calendar.MINUTE) << 5
+                | calendar.get(Calendar.SECOND) >> 1;
+    }
+
+    /**
+     * 已写出条目的中央目录信息
+     */
+    private static final class EntryRecord {
+        final byte[] name;
+        final long crc;
+        final long compressedSize;
+        final long size;
+        final long offset;
+
+        EntryRecord(byte[] name, long crc, long compressedSize, long size, long offset) {
+            this.name = name;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.offset = offset;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.github.helloichen.excel;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * 按字节数淘汰的引用计数缓存<br>
+ * 缓存项按最近使用的顺序淘汰，总字节数不超过上限；被淘汰或替换的缓存项在最后一个使用者释放后才销毁。
+ * 同一个构建标识的并发请求只构建一次，其余请求等待构建结果。超出上限的缓存项不放入缓存，只交给构建它的请求使用
+ *
+ * @param <V> 缓存项类型
+ */
+@Slf4j
+final class RefCountedCache<V extends RefCountedCache.Resource> {
+
+    /**
+     * 构建缓存项
+     */
+    @FunctionalInterface
+    interface Builder<V> {
+        /**
+         * 构建缓存项，返回的缓存项由调用方持有一个引用
+         *
+         * @return 缓存项
+         * @throws Exception 构建失败
+         */
+        V build() throws Exception;
+    }
+
+    /**
+     * 引用计数的缓存项，创建时由构建的请求持有一个引用，计数归零时销毁
+     */
+    abstract static class Resource {
+
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        /**
+         * 计入缓存上限的字节数
+         */
+        abstract long getSize();
+
+        /**
+         * 引用计数归零，释放占用的资源
+         */
+        abstract void destroy();
+
+        /**
+         * 增加引用，已经销毁的缓存项返回false
+         */
+        final boolean retain() {
+            int count;
+            do {
+                count = references.get();
+                if (count == 0) {
+                    return false;
+                }
+            } while (!references.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        /**
+         * 释放引用
+         */
+        final void release() {
+            if (references.decrementAndGet() == 0) {
+                destroy();
+            }
+        }
+    }
+
+    /**
+     * 日志中的缓存项名称
+     */
+    private final String name;
+    private final long maxBytes;
+    /**
+     * 缓存项，按访问顺序排列，访问时需要持有该对象的锁
+     */
+    private final LinkedHashMap<String, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    /**
+     * 正在构建的缓存项
+     */
+    private final Map<String, CompletableFuture<V>> building = new ConcurrentHashMap<>();
+
+    RefCountedCache(String name, long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("缓存的最大字节数必须大于0");
+        }
+        this.name = name;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 获取缓存项，未命中时构建，返回的缓存项使用后必须调用{@link Resource#release()}
+     *
+     * @param key     缓存key，构建完成后替换该key的旧缓存项
+     * @param current 缓存项是否仍然可用，如版本是否一致
+     * @param buildId 构建标识，相同标识的并发请求只构建一次
+     * @param builder 构建逻辑
+     * @return 缓存项
+     * @throws Exception 构建失败，等待同一次构建的请求都会收到该异常
+     */
+    V acquire(String key, Predicate<? super V> current, String buildId, Builder<V> builder) throws Exception {
+        while (true) {
+            V entry = lookup(key, current);
+            if (entry != null) {
+                return entry;
+            }
+            CompletableFuture<V> created = new CompletableFuture<>();
+            CompletableFuture<V> existing = building.putIfAbsent(buildId, created);
+            if (existing == null) {
+                try {
+                    // 另一个请求的构建可能在查找之后、登记之前完成
+                    entry = lookup(key, current);
+                    if (entry == null) {
+                        entry = builder.build();
+                        put(key, entry);
+                    }
+                    created.complete(entry);
+                    return entry;
+                } catch (Exception | Error e) {
+                    created.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    building.remove(buildId, created);
+                }
+            }
+            entry = await(existing);
+            // 没有放入缓存的缓存项可能已经被构建它的请求释放，此时重新查找或构建
+            if (entry.retain()) {
+                return entry;
+            }
+        }
+    }
+
+    /**
+     * 清空缓存，正在使用的缓存项在释放后销毁
+     */
+    void clear() {
+        synchronized (entries) {
+            for (V entry : entries.values()) {
+                entry.release();
+            }
+            entries.clear();
+            totalBytes = 0;
+        }
+    }
+
+    /**
+     * 当前缓存的字节数
+     */
+    long size() {
+        synchronized (entries) {
+            return totalBytes;
+        }
+    }
+
+    private V lookup(String key, Predicate<? super V> current) {
+        synchronized (entries) {
+            V entry = entries.get(key);
+            return entry != null && current.test(entry) && entry.retain() ? entry : null;
+        }
+    }
+
+    /**
+     * 不超过上限时放入缓存，缓存持有一个引用
+     */
+    private void put(String key, V entry) {
+        long size = entry.getSize();
+        if (size > maxBytes) {
+            log.warn("{}{}字节超出缓存上限，不缓存", name, size);
+            return;
+        }
+        synchronized (entries) {
+            entry.retain();
+            V previous = entries.put(key, entry);
+            totalBytes += size;
+            if (previous != null) {
+                totalBytes -= previous.getSize();
+                previous.release();
+            }
+            evict();
+        }
+    }
+
+    /**
+     * 淘汰最久未使用的缓存项，直到不超过上限
+     */
+    private void evict() {
+        Iterator<V> iterator = entries.values().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            V eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.getSize();
+            eldest.release();
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (Exception) cause;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.github.helloichen.excel;
+
+import com.github.helloichen.excel.convert.CellConverter;
+import com.github.helloichen.excel.convert.CellData;
+import com.github.helloichen.excel.convert.ConvertResult;
+import com.github.helloichen.excel.metadata.ExcelClassMeta;
+import com.github.helloichen.excel.metadata.ExcelColumn;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * 校验导入的行回调<br>
+ * 每个单元格通过{@link CellConverter#tryConvert(CellData, ConvertResult)}转换，再检查属性上的约束，
+ * 转换失败不抛出异常。一行全部通过时才构建对象交给consumer，否则把每个错误记录到报告中，继续解析下一行。
+ * 与按对象读取一样跳过空行
+ */
+final class RowValidator<T> implements XlsxSheetHandler.RowCallback {
+
+    private final ExcelClassMeta<T> meta;
+    private final ExcelColumn[] columns;
+    private final CellConverter<?>[] converters;
+    private final ColumnConstraint[] constraints;
+    private final Consumer<T> consumer;
+    private final ExcelErrorReport report;
+    private final ConvertResult result = new ConvertResult();
+    /**
+     * 当前行转换后的值，按导入列下标存放，每行复用
+     */
+    private final Object[] converted;
+    private int sheetIndex;
+    private ColumnProjection projection;
+
+    RowValidator(ExcelClassMeta<T> meta, CellConverter<?>[] converters, Consumer<T> consumer,
+                 ExcelErrorReport report) {
+        this.meta = meta;
+        this.columns = meta.getImportColumns();
+        this.converters = converters;
+        this.constraints = ColumnConstraint.of(meta.getType(), columns);
+        this.consumer = consumer;
+        this.report = report;
+        this.converted = new Object[columns.length];
+        report.start(columns);
+    }
+
+    ExcelColumn[] getColumns() {
+        return columns;
+    }
+
+    @Override
+    public void onSheet(int sheetIndex, ColumnProjection projection) {
+        this.sheetIndex = sheetIndex;
+        this.projection = projection;
+    }
+
+    @Override
+    public void onRow(int rowNum, CellData[] values) {
+        //谨防中间空一行
+        if (ExcelReader.isBlankRow(values)) {
+            return;
+        }
+        boolean valid = true;
+        for (ExcelColumn column : columns) {
+            int index = column.getIndex();
+            String reason = check(index, values[index]);
+            if (reason != null) {
+                valid = false;
+                report.addError(sheetIndex, rowNum, projection.sheetColumnOf(index), column, values[index], reason);
+            }
+        }
+        if (!valid) {
+            report.invalidRow(sheetIndex, rowNum, values);
+            Arrays.fill(converted, null);
+            return;
+        }
+        T object = meta.newInstance();
+        for (ExcelColumn column : columns) {
+            Object value = converted[column.getIndex()];
+            if (value != null) {
+                column.set(object, value);
+                converted[column.getIndex()] = null;
+            }
+        }
+        consumer.accept(object);
+        report.validRow();
+    }
+
+    /**
+     * 转换并校验一个单元格，转换后的值存放在{@link #converted}中
+     *
+     * @return 错误原因，通过时为null
+     */
+    private String check(int index, CellData cell) {
+        ColumnConstraint constraint = constraints[index];
+        if (cell.isBlank()) {
+            return constraint == null ? null : constraint.checkBlank();
+        }
+        CellConverter<?> converter = converters[index];
+        if (converter == null) {
+            return null;
+        }
+        if (!converter.tryConvert(cell, result)) {
+            return result.getError();
+        }
+        converted[index] = result.getValue();
+        return constraint == null ? null : constraint.check(converted[index], cell);
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.helloichen.excel;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.xml.sax.SAXException;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 2007格式的共享字符串表<br>
+ * 默认使用POI的{@link ReadOnlySharedStringsTable}，所有字符串都在堆内存中；
+ * 开启{@link ExcelReadOptions#isFileBackedSharedStrings()}后字符串存放在内存映射的临时文件中，堆内存只保留最近使用的字符串
+ */
+interface SharedStrings extends Closeable {
+
+    /**
+     * 按下标获取字符串，可以被多个线程同时调用
+     *
+     * @param index 下标
+     * @return 字符串
+     */
+    String get(int index);
+
+    /**
+     * 占用的字节数，堆内存中的表按字符数估算，文件存储时为临时文件的大小
+     */
+    long size();
+
+    /**
+     * 释放占用的资源
+     */
+    @Override
+    void close();
+
+    /**
+     * 按导入配置加载共享字符串表
+     *
+     * @param pkg     Excel文件包
+     * @param options 导入配置
+     * @return 共享字符串表，使用后需要关闭
+     */
+    static SharedStrings open(OPCPackage pkg, ExcelReadOptions options) throws IOException, SAXException {
+        if (options.isFileBackedSharedStrings()) {
+            return FileBackedSharedStrings.open(pkg, options.getSharedStringsCacheSize());
+        }
+        ReadOnlySharedStringsTable table = new ReadOnlySharedStringsTable(pkg);
+        long size = 0;
+        for (int i = 0; i < table.getUniqueCount(); i++) {
+            // String对象头、字段和char数组的开销约48字节
+            size += 48 + 2L * table.getEntryAt(i).length();
+        }
+        long heapBytes = size;
+        return new SharedStrings() {
+            @Override
+            public String get(int index) {
+                return table.getEntryAt(index);
+            }
+
+            @Override
+            public long size() {
+                return heapBytes;
+            }
+
+            @Override
+            public void close() {
+                // 堆内存中的表由GC回收
+            }
+        };
+    }
+}
@@ -0,0 +1,459 @@
+package com.github.helloichen.excel;
+
+import com.github.helloichen.excel.convert.CellConverter;
+import com.github.helloichen.excel.metadata.ExcelClassMeta;
+import com.github.helloichen.excel.metadata.ExcelColumn;
+import com.github.helloichen.excel.metrics.ExcelTrace;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.util.SAXHelper;
+import org.apache.poi.util.TempFile;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 2007格式工作表的行偏移索引<br>
+ * 建立索引时把工作表XML解压到临时文件，同时扫描字节记录row节点的起始位置，不解析单元格。
+ * 每隔{@link #INTERVAL}个数据行记录一个偏移量，读取某一页时只把文件头、标题行和该页所在的字节区间交给SAX解析，
+ * 不需要从头解压和解析整个工作表。共享字符串表和日期样式在建立索引时加载，可以被多个线程同时读取
+ */
+@Slf4j
+final class SheetRowIndex extends RefCountedCache.Resource {
+
+    /**
+     * 每隔多少个数据行记录一次偏移量，读取时最多多解析这么多行
+     */
+    static final int INTERVAL = 32;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * 只需要识别row和sheetData两种节点，更长的节点名直接跳过
+     */
+    private static final int MAX_NAME = 16;
+    /**
+     * 第一个row节点的属性最多读取的字节数，用于判断是否为标题行
+     */
+    private static final int MAX_ATTRIBUTES = 1024;
+    private static final byte[] ROW = "row".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SHEET_DATA = "sheetData".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * 解压后的工作表XML
+     */
+    private final File file;
+    private final SharedStrings sharedStrings;
+    private final BitSet dateStyles;
+    private final ExcelReadOptions options;
+    /**
+     * 第一个row节点的位置，此前为工作表的文件头
+     */
+    private final long prefixEnd;
+    /**
+     * 标题行的字节区间，没有标题行时都为-1
+     */
+    private final long headerStart;
+    private final long headerEnd;
+    /**
+     * 第i*INTERVAL个数据行的起始位置
+     */
+    private final long[] checkpoints;
+    private final int rowCount;
+    /**
+     * sheetData结束标签的位置，此后为工作表的文件尾
+     */
+    private final long dataEnd;
+    private final long size;
+
+    private SheetRowIndex(File file, SharedStrings sharedStrings, BitSet dateStyles, ExcelReadOptions options,
+                          Scanner scanner) {
+        this.file = file;
+        this.sharedStrings = sharedStrings;
+        this.dateStyles = dateStyles;
+        this.options = options;
+        this.prefixEnd = scanner.prefixEnd;
+        this.headerStart = scanner.header ? scanner.firstRow : -1;
+        this.headerEnd = scanner.header ? scanner.headerEnd : -1;
+        this.checkpoints = Arrays.copyOf(scanner.checkpoints, scanner.checkpointCount);
+        this.rowCount = scanner.rowCount;
+        this.dataEnd = scanner.dataEnd;
+        this.size = file.length();
+    }
+
+    /**
+     * 为工作簿中的一个工作表建立索引
+     *
+     * @param workbook   Excel文件，只支持2007格式
+     * @param sheetIndex 工作表下标，从0开始
+     * @param directory  临时文件目录，为null时使用POI的临时目录
+     * @param options    导入配置，决定共享字符串表的存放方式和是否对字符串去重
+     * @return 行偏移索引，使用后需要调用{@link #release()}
+     */
+    static SheetRowIndex build(File workbook, int sheetIndex, File directory, ExcelReadOptions options)
+            throws Exception {
+        OPCPackage pkg = OPCPackage.open(workbook, PackageAccess.READ);
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            InputStream sheet = null;
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            for (int i = 0; i <= sheetIndex && sheets.hasNext(); i++) {
+                InputStream next = sheets.next();
+                if (i == sheetIndex) {
+                    sheet = next;
+                } else {
+                    next.close();
+                }
+            }
+            if (sheet == null) {
+                throw new Exception("第" + (sheetIndex + 1) + "个工作表不存在");
+            }
+            BitSet dateStyles = XlsxSheetHandler.dateStyles(reader.getStylesTable());
+
+            File file = directory == null ? TempFile.createTempFile("ichen-page-", ".xml")
+                    : File.createTempFile("ichen-page-", ".xml", directory);
+            SharedStrings sharedStrings = null;
+            try {
+                Scanner scanner = new Scanner();
+                try (InputStream in = sheet; OutputStream out = new FileOutputStream(file)) {
+                    scanner.copy(in, out);
+                }
+                sharedStrings = SharedStrings.open(pkg, options);
+                return new SheetRowIndex(file, sharedStrings, dateStyles, options, scanner);
+            } catch (Exception | Error e) {
+                if (sharedStrings != null) {
+                    sharedStrings.close();
+                }
+                delete(file);
+                throw e;
+            }
+        } finally {
+            pkg.revert();
+        }
+    }
+
+    /**
+     * 数据行数，不含标题行，包含空行
+     */
+    int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 解压后工作表XML与共享字符串表占用的字节数
+     */
+    @Override
+    long getSize() {
+        return size + sharedStrings.size();
+    }
+
+    /**
+     * 读取[offset, offset+limit)范围内的数据行，空行不映射，因此返回的行数可能少于limit
+     *
+     * @param offset 起始数据行，从0开始，不含标题行
+     * @param limit  最多读取的数据行数
+     * @param clazz  反射对象的Class
+     * @param trace  埋点
+     * @return 该范围内的对象
+     */
+    <T> List<T> read(int offset, int limit, Class<T> clazz, ExcelTrace trace) throws Exception {
+        if (offset >= rowCount || limit == 0) {
+            return Collections.emptyList();
+        }
+        int end = (int) Math.min((long) offset + limit, rowCount);
+        int first = offset / INTERVAL;
+        // 结束位置取下一个偏移量，最后一段读到sheetData结束
+        int last = (end + INTERVAL - 1) / INTERVAL;
+        long from = checkpoints[first];
+        long to = last < checkpoints.length ? checkpoints[last] : dataEnd;
+
+        ExcelClassMeta<T> meta = ExcelClassMeta.of(clazz);
+        ExcelColumn[] columns = meta.getImportColumns();
+        CellConverter<?>[] converters = ExcelReader.resolveConverters(meta);
+        List<T> result = new ArrayList<>(end - offset);
+        int[] ordinal = {first * INTERVAL};
+        XlsxSheetHandler handler = new XlsxSheetHandler(sharedStrings, dateStyles, columns, options, trace,
+                (rowNum, values) -> {
+                    int current = ordinal[0]++;
+                    if (current < offset || current >= end || ExcelReader.isBlankRow(values)) {
+                        return;
+                    }
+                    result.add(ExcelReader.getObject(values, meta, columns, converters, trace));
+                });
+        XMLReader parser = SAXHelper.newXMLReader();
+        parser.setContentHandler(handler);
+
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            List<InputStream> ranges = new ArrayList<>(4);
+            ranges.add(new RangeInputStream(channel, 0, prefixEnd));
+            if (headerStart >= 0) {
+                ranges.add(new RangeInputStream(channel, headerStart, headerEnd));
+            }
+            ranges.add(new RangeInputStream(channel, from, to));
+            ranges.add(new RangeInputStream(channel, dataEnd, size));
+            try (InputStream in = new BufferedInputStream(
+                    new SequenceInputStream(Collections.enumeration(ranges)), BUFFER_SIZE)) {
+                parser.parse(new InputSource(in));
+            } catch (SAXException e) {
+                // 还原行处理过程中抛出的原始异常
+                throw e.getException() != null ? e.getException() : e;
+            }
+            trace.bytes(prefixEnd + (headerEnd - headerStart) + (to - from) + (size - dataEnd));
+        } finally {
+            trace.phase(ExcelTrace.Phase.ROW_MAPPING, System.nanoTime() - start - handler.getHeaderNanos());
+            trace.rows(result.size());
+            trace.bufferedRows(result.size());
+        }
+        return result;
+    }
+
+    /**
+     * 引用计数归零，关闭共享字符串表并删除临时文件
+     */
+    @Override
+    void destroy() {
+        sharedStrings.close();
+        delete(file);
+    }
+
+    private static void delete(File file) {
+        if (!file.delete()) {
+            log.warn("分页索引文件{}删除失败", file);
+        }
+    }
+
+    /**
+     * 复制工作表XML的同时按字节扫描节点名<br>
+     * 单元格文本和属性值中的'<'都会被转义，只要遇到'<'就是节点的开始，不需要完整的XML解析。
+     * 带命名空间前缀的节点去掉前缀后比较
+     */
+    private static final class Scanner {
+        private static final int TEXT = 0;
+        private static final int NAME = 1;
+        private static final int ATTRIBUTES = 2;
+
+        private long prefixEnd = -1;
+        private long firstRow = -1;
+        private boolean header;
+        private long headerEnd = -1;
+        private long[] checkpoints = new long[64];
+        private int checkpointCount;
+        private int rowCount;
+        private long dataEnd = -1;
+
+        private int state = TEXT;
+        private long tagStart;
+        private boolean closing;
+        private final byte[] name = new byte[MAX_NAME];
+        private int nameLength;
+        private final byte[] attributes = new byte[MAX_ATTRIBUTES];
+        private int attributesLength;
+
+        void copy(InputStream in, OutputStream out) throws IOException {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long position = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                if (dataEnd < 0) {
+                    scan(buffer, read, position);
+                }
+                position += read;
+            }
+            if (dataEnd < 0) {
+                // <sheetData/>，没有任何行
+                prefixEnd = -1;
+                rowCount = 0;
+                checkpointCount = 0;
+            }
+        }
+
+        private void scan(byte[] buffer, int length, long position) {
+            for (int i = 0; i < length && dataEnd < 0; i++) {
+                byte b = buffer[i];
+                switch (state) {
+                    case TEXT:
+                        if (b == '<') {
+                            tagStart = position + i;
+                            closing = false;
+                            nameLength = 0;
+                            state = NAME;
+                        }
+                        break;
+                    case NAME:
+                        if (nameLength == 0 && b == '/') {
+                            closing = true;
+                        } else if (b == ':') {
+                            // 去掉命名空间前缀
+                            nameLength = 0;
+                        } else if (b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == '>' || b == '/') {
+                            state = TEXT;
+                            tagEnd(b);
+                        } else if (nameLength < MAX_NAME) {
+                            name[nameLength++] = b;
+                        } else {
+                            state = TEXT;
+                        }
+                        break;
+                    case ATTRIBUTES:
+                        if (b == '>') {
+                            state = TEXT;
+                            firstRowEnd();
+                        } else if (attributesLength < MAX_ATTRIBUTES) {
+                            attributes[attributesLength++] = b;
+                        }
+                        break;
+                    default:
+                }
+            }
+        }
+
+        private void tagEnd(byte terminator) {
+            if (closing) {
+                if (nameIs(SHEET_DATA)) {
+                    dataEnd = tagStart;
+                    if (header && headerEnd < 0) {
+                        headerEnd = tagStart;
+                    }
+                }
+                return;
+            }
+            if (!nameIs(ROW)) {
+                return;
+            }
+            if (firstRow < 0) {
+                // 第一行需要读取r属性，判断是否为标题行
+                firstRow = tagStart;
+                prefixEnd = tagStart;
+                attributesLength = 0;
+                if (terminator == '>' || terminator == '/') {
+                    firstRowEnd();
+                } else {
+                    state = ATTRIBUTES;
+                }
+                return;
+            }
+            if (header && headerEnd < 0) {
+                headerEnd = tagStart;
+            }
+            dataRow(tagStart);
+        }
+
+        /**
+         * 第一行的属性读取完成，与XlsxSheetHandler一致，行号为1或没有行号时视为标题行
+         */
+        private void firstRowEnd() {
+            String r = attribute(new String(attributes, 0, attributesLength, StandardCharsets.UTF_8), "r");
+            header = r == null || "1".equals(r);
+            if (!header) {
+                dataRow(firstRow);
+            }
+        }
+
+        private void dataRow(long start) {
+            if (rowCount % INTERVAL == 0) {
+                if (checkpointCount == checkpoints.length) {
+                    checkpoints = Arrays.copyOf(checkpoints, checkpointCount * 2);
+                }
+                checkpoints[checkpointCount++] = start;
+            }
+            rowCount++;
+        }
+
+        private boolean nameIs(byte[] expected) {
+            if (nameLength != expected.length) {
+                return false;
+            }
+            for (int i = 0; i < nameLength; i++) {
+                if (name[i] != expected[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 从节点的属性文本中读取属性值，属性值中不会出现未转义的引号
+         */
+        private static String attribute(String text, String attributeName) {
+            int from = 0;
+            while (true) {
+                int index = text.indexOf(attributeName, from);
+                if (index < 0) {
+                    return null;
+                }
+                from = index + attributeName.length();
+                boolean boundary = index == 0 || Character.isWhitespace(text.charAt(index - 1));
+                int equals = from;
+                while (equals < text.length() && Character.isWhitespace(text.charAt(equals))) {
+                    equals++;
+                }
+                if (!boundary || equals >= text.length() || text.charAt(equals) != '=') {
+                    continue;
+                }
+                int quote = equals + 1;
+                while (quote < text.length() && Character.isWhitespace(text.charAt(quote))) {
+                    quote++;
+                }
+                if (quote >= text.length()) {
+                    return null;
+                }
+                int close = text.indexOf(text.charAt(quote), quote + 1);
+                return close < 0 ? null : text.substring(quote + 1, close);
+            }
+        }
+    }
+
+    /**
+     * 按位置读取文件的一个字节区间，多个区间可以共用同一个FileChannel
+     */
+    private static final class RangeInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+
+        RangeInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int length = (int) Math.min(len, end - position);
+            int read = channel.read(ByteBuffer.wrap(b, off, length), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.github.helloichen.excel;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 一次导入中一列的字符串去重<br>
+ * 状态、地区、分类等列在几十万行中只有几百个不同的值，解析时每个单元格都会得到一个新的String。
+ * 共享字符串按下标缓存，命中时只需一次数组查找，不需要计算哈希；内联字符串和2003格式的旧式文本按内容去重。
+ * 不同的值超过上限后不再缓存，新值直接返回，内存占用有上限。不是线程安全的，每个解析处理器每列使用各自的实例
+ */
+final class StringDeduplicator {
+
+    private static final int NO_INDEX = -1;
+    /**
+     * 下标表的容量上限对应的个数
+     */
+    private static final int MAX_ENTRIES = 1 << 24;
+
+    private final int maxEntries;
+    /**
+     * 共享字符串下标的开放寻址表，容量为2的幂，空位为{@link #NO_INDEX}
+     */
+    private final int[] indexKeys;
+    private final String[] indexValues;
+    private final int mask;
+    /**
+     * 散列取乘积的高位
+     */
+    private final int shift;
+    private int indexCount;
+    /**
+     * 按内容去重的字典
+     */
+    private final Map<String, String> values;
+
+    StringDeduplicator(int maxEntries) {
+        this.maxEntries = Math.min(maxEntries, MAX_ENTRIES);
+        // 装载因子不超过0.5，冲突时线性探测的距离很短
+        int capacity = Integer.highestOneBit(Math.min(Math.max(maxEntries, 1), MAX_ENTRIES) * 2 - 1) << 1;
+        this.indexKeys = new int[capacity];
+        Arrays.fill(indexKeys, NO_INDEX);
+        this.indexValues = new String[capacity];
+        this.mask = capacity - 1;
+        this.shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        this.values = new HashMap<>(Math.min(maxEntries, 1024) * 2);
+    }
+
+    /**
+     * 按共享字符串下标查找已缓存的字符串
+     *
+     * @param index 共享字符串下标
+     * @return 缓存的字符串，未缓存时为null
+     */
+    String shared(int index) {
+        int slot = slot(index);
+        while (indexKeys[slot] != NO_INDEX) {
+            if (indexKeys[slot] == index) {
+                return indexValues[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * 缓存共享字符串，内容相同的字符串(如不同下标的相同文本)也只保留一个实例
+     *
+     * @param index 共享字符串下标
+     * @param value 字符串
+     * @return 去重后的字符串
+     */
+    String putShared(int index, String value) {
+        String canonical = intern(value);
+        if (indexCount < maxEntries) {
+            int slot = slot(index);
+            while (indexKeys[slot] != NO_INDEX) {
+                slot = (slot + 1) & mask;
+            }
+            indexKeys[slot] = index;
+            indexValues[slot] = canonical;
+            indexCount++;
+        }
+        return canonical;
+    }
+
+    /**
+     * 按内容去重
+     *
+     * @param value 字符串，可以为null
+     * @return 内容相同时返回缓存的实例
+     */
+    String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String cached = values.get(value);
+        if (cached != null) {
+            return cached;
+        }
+        if (values.size() < maxEntries) {
+            values.put(value, value);
+        }
+        return value;
+    }
+
+    private int slot(int index) {
+        // 斐波那契散列，连续的下标分散到不同位置
+        return (index * 0x9E3779B9) >>> shift;
+    }
+
+    /**
+     * 按导入配置为每个导入列创建去重器
+     *
+     * @param columns 导入列个数
+     * @param options 导入配置
+     * @return 按导入列下标存放的去重器，未开启时为null
+     */
+    static StringDeduplicator[] forColumns(int columns, ExcelReadOptions options) {
+        if (!options.isDeduplicateStrings()) {
+            return null;
+        }
+        StringDeduplicator[] deduplicators = new StringDeduplicator[columns];
+        for (int i = 0; i < columns; i++) {
+            deduplicators[i] = new StringDeduplicator(options.getStringDictionarySize());
+        }
+        return deduplicators;
+    }
+}
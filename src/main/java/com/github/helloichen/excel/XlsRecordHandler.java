@@ -0,0 +1,354 @@
+package com.github.helloichen.excel;
+
+import com.github.helloichen.excel.convert.CellData;
+import com.github.helloichen.excel.metadata.ExcelColumn;
+import com.github.helloichen.excel.metrics.ExcelTrace;
+import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFUserException;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.ExtendedFormatRecord;
+import org.apache.poi.hssf.record.FormatRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.MulRKRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.RKRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 2003格式工作簿的事件解析处理器<br>
+ * 基于HSSFEventFactory逐条处理记录，按行收集单元格的原始值后交给{@link XlsxSheetHandler.RowCallback}，
+ * 与2007格式的流式解析使用同一套标题匹配、列投影和行映射逻辑，内存占用与行数无关
+ */
+class XlsRecordHandler extends AbortableHSSFListener {
+
+    private static final int NO_ROW = -1;
+    /**
+     * FormulaRecord缓存结果类型的编码，与CellType的编码相同，3.17中CellType.forInt和getCode都已过时
+     */
+    private static final int RESULT_NUMERIC = 0;
+    private static final int RESULT_STRING = 1;
+    private static final int RESULT_BOOLEAN = 4;
+
+    private final ExcelColumn[] columns;
+    private final ExcelTrace trace;
+    private final XlsxSheetHandler.RowCallback callback;
+    private final CellData[] values;
+    private final List<String> headers = new ArrayList<>();
+    private final CellData headerCell = new CellData();
+    /**
+     * 按导入列下标存放的字符串去重器，未开启去重时为null
+     */
+    private final StringDeduplicator[] deduplicators;
+
+    /**
+     * 按样式(XF)下标存放的格式下标
+     */
+    private final List<Short> xfFormats = new ArrayList<>();
+    /**
+     * 工作簿自定义的格式
+     */
+    private final Map<Integer, String> formats = new HashMap<>();
+    /**
+     * 日期格式的样式下标，解析第一个工作表前计算
+     */
+    private BitSet dateStyles;
+    private SSTRecord sharedStrings;
+
+    private int depth;
+    private int sheetDepth;
+    private ColumnProjection projection;
+    private int sheetIndex = -1;
+    private long headerNanos;
+    private int rowNum = NO_ROW;
+    /**
+     * 字符串结果的公式单元格，值在随后的StringRecord中
+     */
+    private CellData pendingFormula;
+    private int pendingColumn;
+    private int pendingTargetColumn;
+    /**
+     * 最近一次{@link #cellTarget(int, int)}的导入列下标，标题行为-1
+     */
+    private int targetColumn;
+
+    XlsRecordHandler(ExcelColumn[] columns, ExcelReadOptions options, ExcelTrace trace,
+                     XlsxSheetHandler.RowCallback callback) {
+        this.columns = columns;
+        this.trace = trace;
+        this.callback = callback;
+        this.values = new CellData[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = new CellData();
+        }
+        this.deduplicators = StringDeduplicator.forColumns(columns.length, options);
+    }
+
+    @Override
+    public short abortableProcessRecord(Record record) throws HSSFUserException {
+        switch (record.getSid()) {
+            case BOFRecord.sid:
+                depth++;
+                if (((BOFRecord) record).getType() == BOFRecord.TYPE_WORKSHEET && sheetDepth == 0) {
+                    startSheet();
+                }
+                break;
+            case EOFRecord.sid:
+                if (depth == sheetDepth) {
+                    endRow();
+                    sheetDepth = 0;
+                }
+                depth--;
+                break;
+            case ExtendedFormatRecord.sid:
+                xfFormats.add(((ExtendedFormatRecord) record).getFormatIndex());
+                break;
+            case FormatRecord.sid:
+                FormatRecord format = (FormatRecord) record;
+                formats.put(format.getIndexCode(), format.getFormatString());
+                break;
+            case SSTRecord.sid:
+                sharedStrings = (SSTRecord) record;
+                break;
+            default:
+                if (sheetDepth != 0) {
+                    processCell(record);
+                }
+        }
+        return 0;
+    }
+
+    private void startSheet() {
+        // 每个工作表的标题行可能不同
+        sheetDepth = depth;
+        sheetIndex++;
+        projection = null;
+        headers.clear();
+        rowNum = NO_ROW;
+        pendingFormula = null;
+        if (dateStyles == null) {
+            dateStyles = dateStyles();
+        }
+    }
+
+    private void processCell(Record record) throws HSSFUserException {
+        CellData target;
+        switch (record.getSid()) {
+            case NumberRecord.sid:
+                NumberRecord number = (NumberRecord) record;
+                target = cellTarget(number.getRow(), number.getColumn());
+                if (target != null) {
+                    target.setNumeric(number.getValue(), dateStyles.get(number.getXFIndex()));
+                    headerCellEnd(number.getColumn());
+                }
+                break;
+            case RKRecord.sid:
+                RKRecord rk = (RKRecord) record;
+                target = cellTarget(rk.getRow(), rk.getColumn());
+                if (target != null) {
+                    target.setNumeric(rk.getRKNumber(), dateStyles.get(rk.getXFIndex()));
+                    headerCellEnd(rk.getColumn());
+                }
+                break;
+            case MulRKRecord.sid:
+                MulRKRecord mulRk = (MulRKRecord) record;
+                for (int i = 0; i < mulRk.getNumColumns(); i++) {
+                    int column = mulRk.getFirstColumn() + i;
+                    target = cellTarget(mulRk.getRow(), column);
+                    if (target != null) {
+                        target.setNumeric(mulRk.getRKNumberAt(i), dateStyles.get(mulRk.getXFAt(i)));
+                        headerCellEnd(column);
+                    }
+                }
+                break;
+            case LabelSSTRecord.sid:
+                LabelSSTRecord label = (LabelSSTRecord) record;
+                target = cellTarget(label.getRow(), label.getColumn());
+                if (target != null) {
+                    target.setString(sharedString(label.getSSTIndex()));
+                    headerCellEnd(label.getColumn());
+                }
+                break;
+            case LabelRecord.sid:
+                LabelRecord oldLabel = (LabelRecord) record;
+                target = cellTarget(oldLabel.getRow(), oldLabel.getColumn());
+                if (target != null) {
+                    target.setString(deduplicate(targetColumn, oldLabel.getValue()));
+                    headerCellEnd(oldLabel.getColumn());
+                }
+                break;
+            case BoolErrRecord.sid:
+                BoolErrRecord boolErr = (BoolErrRecord) record;
+                target = cellTarget(boolErr.getRow(), boolErr.getColumn());
+                if (target != null && boolErr.isBoolean()) {
+                    target.setBoolean(boolErr.getBooleanValue());
+                    headerCellEnd(boolErr.getColumn());
+                }
+                break;
+            case FormulaRecord.sid:
+                processFormula((FormulaRecord) record);
+                break;
+            case StringRecord.sid:
+                if (pendingFormula != null) {
+                    pendingFormula.setString(deduplicate(pendingTargetColumn, ((StringRecord) record).getString()));
+                    headerCellEnd(pendingColumn);
+                    pendingFormula = null;
+                }
+                break;
+            default:
+        }
+    }
+
+    /**
+     * 公式单元格读取缓存的计算结果
+     */
+    private void processFormula(FormulaRecord formula) throws HSSFUserException {
+        CellData target = cellTarget(formula.getRow(), formula.getColumn());
+        if (target == null) {
+            return;
+        }
+        switch (formula.getCachedResultType()) {
+            case RESULT_NUMERIC:
+                target.setNumeric(formula.getValue(), dateStyles.get(formula.getXFIndex()));
+                break;
+            case RESULT_BOOLEAN:
+                target.setBoolean(formula.getCachedBooleanValue());
+                break;
+            case RESULT_STRING:
+                if (formula.hasCachedResultString()) {
+                    pendingFormula = target;
+                    pendingColumn = formula.getColumn();
+                    pendingTargetColumn = targetColumn;
+                }
+                return;
+            default:
+                return;
+        }
+        headerCellEnd(formula.getColumn());
+    }
+
+    /**
+     * 找出单元格值存放的位置，换行时先结束上一行，标题行的单元格都需要读取，数据行只读取需要导入的列
+     */
+    private CellData cellTarget(int row, int sheetColumn) throws HSSFUserException {
+        if (row != rowNum) {
+            endRow();
+            startRow(row);
+        }
+        if (rowNum == 0) {
+            headerCell.setBlank();
+            targetColumn = -1;
+            return headerCell;
+        }
+        targetColumn = projection.columnOf(sheetColumn);
+        return targetColumn < 0 ? null : values[targetColumn];
+    }
+
+    /**
+     * 读取共享字符串，开启去重时先按下标查找当前列已缓存的实例，不再从SST记录复制
+     */
+    private String sharedString(int index) {
+        if (deduplicators == null || targetColumn < 0) {
+            return sharedStrings.getString(index).getString();
+        }
+        StringDeduplicator deduplicator = deduplicators[targetColumn];
+        String value = deduplicator.shared(index);
+        return value != null ? value : deduplicator.putShared(index, sharedStrings.getString(index).getString());
+    }
+
+    /**
+     * 开启去重时按内容返回该列已缓存的实例
+     */
+    private String deduplicate(int column, String value) {
+        if (deduplicators == null || column < 0) {
+            return value;
+        }
+        return deduplicators[column].intern(value);
+    }
+
+    private void startRow(int row) {
+        rowNum = row;
+        if (rowNum > 0 && projection == null) {
+            // 没有标题行时按位置读取
+            resolveProjection();
+        }
+        for (CellData value : values) {
+            value.setBlank();
+        }
+    }
+
+    private void endRow() throws HSSFUserException {
+        if (rowNum == 0) {
+            // 标题行只用来计算列对应关系
+            resolveProjection();
+            headers.clear();
+        } else if (rowNum > 0) {
+            try {
+                callback.onRow(rowNum, values);
+            } catch (Exception e) {
+                throw new HSSFUserException(e);
+            }
+        }
+        rowNum = NO_ROW;
+    }
+
+    private void resolveProjection() {
+        long start = System.nanoTime();
+        projection = ColumnProjection.resolve(columns, headers);
+        long nanos = System.nanoTime() - start;
+        headerNanos += nanos;
+        trace.phase(ExcelTrace.Phase.HEADER, nanos);
+        callback.onSheet(sheetIndex, projection);
+    }
+
+    /**
+     * 已上报为{@link ExcelTrace.Phase#HEADER}的耗时，调用方统计行映射耗时时需要扣除
+     */
+    long getHeaderNanos() {
+        return headerNanos;
+    }
+
+    /**
+     * 标题单元格读取完成，按列下标记录标题
+     */
+    private void headerCellEnd(int column) {
+        if (rowNum != 0) {
+            return;
+        }
+        while (headers.size() <= column) {
+            headers.add(null);
+        }
+        headers.set(column, headerCell.getText());
+    }
+
+    /**
+     * 找出所有日期格式的样式，样式和格式记录都在工作表之前
+     */
+    private BitSet dateStyles() {
+        BitSet dateStyles = new BitSet();
+        for (int i = 0; i < xfFormats.size(); i++) {
+            int formatIndex = xfFormats.get(i);
+            String format = formats.get(formatIndex);
+            if (format == null) {
+                format = BuiltinFormats.getBuiltinFormat(formatIndex);
+            }
+            if (DateUtil.isADateFormat(formatIndex, format)) {
+                dateStyles.set(i);
+            }
+        }
+        return dateStyles;
+    }
+}
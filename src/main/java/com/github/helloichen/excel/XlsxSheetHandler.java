@@ -0,0 +1,315 @@
+package com.github.helloichen.excel;
+
+import com.github.helloichen.excel.convert.CellData;
+import com.github.helloichen.excel.metadata.ExcelColumn;
+import com.github.helloichen.excel.metrics.ExcelTrace;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * 2007格式工作表的SAX解析处理器<br>
+ * 参考XSSFSheetXMLHandler的实现，按行收集单元格的原始值，不构建DOM，内存占用与文件大小无关。
+ * 数字和布尔值保持原生类型，由转换器直接读取。每个工作表先根据标题行计算{@link ColumnProjection}，
+ * 不需要导入的单元格只跳过节点，不拼接文本也不转换
+ */
+class XlsxSheetHandler extends DefaultHandler {
+
+    /**
+     * 行回调
+     */
+    interface RowCallback {
+        /**
+         * 一行解析完成
+         *
+         * @param rowNum 行号，从0开始
+         * @param values 按导入列下标存放的单元格值，该数组会被复用
+         * @throws Exception 处理异常
+         */
+        void onRow(int rowNum, CellData[] values) throws Exception;
+
+        /**
+         * 一个工作表的列对应关系计算完成，在该工作表的第一个数据行之前调用
+         *
+         * @param sheetIndex 该处理器解析的第几个工作表，从0开始
+         * @param projection 工作表列与导入列的对应关系
+         */
+        default void onSheet(int sheetIndex, ColumnProjection projection) {
+        }
+    }
+
+    private final SharedStrings sharedStrings;
+    /**
+     * 日期格式的样式下标
+     */
+    private final BitSet dateStyles;
+    private final RowCallback callback;
+    private final ExcelColumn[] columns;
+    private final ExcelTrace trace;
+    /**
+     * 当前行的单元格值，只保留需要映射的列
+     */
+    private final CellData[] values;
+    private final StringBuilder text = new StringBuilder(64);
+    /**
+     * 标题行的单元格值，计算出列对应关系后清空
+     */
+    private final List<String> headers = new ArrayList<>();
+    private final CellData headerCell = new CellData();
+    /**
+     * 按导入列下标存放的字符串去重器，未开启去重时为null
+     */
+    private final StringDeduplicator[] deduplicators;
+
+    private ColumnProjection projection;
+    private int sheetIndex = -1;
+    private long headerNanos;
+    private int rowNum = -1;
+    private int column = -1;
+    /**
+     * 当前单元格存放的位置，不需要读取时为null
+     */
+    private CellData target;
+    /**
+     * 当前单元格的导入列下标，标题行为-1
+     */
+    private int targetColumn;
+    private String cellType;
+    private int cellStyle;
+    private boolean textOpen;
+    private boolean inlineString;
+
+    XlsxSheetHandler(SharedStrings sharedStrings, BitSet dateStyles, ExcelColumn[] columns,
+                     ExcelReadOptions options, ExcelTrace trace, RowCallback callback) {
+        this.sharedStrings = sharedStrings;
+        this.dateStyles = dateStyles;
+        this.callback = callback;
+        this.columns = columns;
+        this.trace = trace;
+        this.values = new CellData[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = new CellData();
+        }
+        this.deduplicators = StringDeduplicator.forColumns(columns.length, options);
+    }
+
+    @Override
+    public void startDocument() {
+        // 同一个处理器会依次解析多个工作表，每个工作表的标题行可能不同
+        sheetIndex++;
+        projection = null;
+        headers.clear();
+        rowNum = -1;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+        switch (localName) {
+            case "row":
+                String r = attributes.getValue("r");
+                rowNum = r == null ? rowNum + 1 : Integer.parseInt(r) - 1;
+                column = -1;
+                if (rowNum > 0 && projection == null) {
+                    // 没有标题行时按位置读取
+                    resolveProjection();
+                }
+                for (CellData value : values) {
+                    value.setBlank();
+                }
+                break;
+            case "c":
+                String ref = attributes.getValue("r");
+                column = ref == null ? column + 1 : columnIndex(ref);
+                target = cellTarget(column);
+                if (target == null) {
+                    break;
+                }
+                cellType = attributes.getValue("t");
+                String style = attributes.getValue("s");
+                cellStyle = style == null ? 0 : Integer.parseInt(style);
+                break;
+            case "v":
+                textOpen = target != null;
+                text.setLength(0);
+                break;
+            case "is":
+                inlineString = target != null;
+                text.setLength(0);
+                break;
+            case "t":
+                // 富文本的内联字符串会有多个t节点，需要拼接
+                textOpen = inlineString;
+                break;
+            default:
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        switch (localName) {
+            case "v":
+                if (textOpen) {
+                    textOpen = false;
+                    setValue(target);
+                    headerCellEnd();
+                }
+                break;
+            case "t":
+                textOpen = false;
+                break;
+            case "is":
+                if (inlineString) {
+                    inlineString = false;
+                    target.setString(deduplicate(text.toString()));
+                    headerCellEnd();
+                }
+                break;
+            case "row":
+                if (rowNum == 0) {
+                    // 标题行只用来计算列对应关系
+                    resolveProjection();
+                    headers.clear();
+                } else if (rowNum > 0) {
+                    try {
+                        callback.onRow(rowNum, values);
+                    } catch (SAXException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new SAXException(e);
+                    }
+                }
+                break;
+            default:
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (textOpen) {
+            text.append(ch, start, length);
+        }
+    }
+
+    private void resolveProjection() {
+        long start = System.nanoTime();
+        projection = ColumnProjection.resolve(columns, headers);
+        long nanos = System.nanoTime() - start;
+        headerNanos += nanos;
+        trace.phase(ExcelTrace.Phase.HEADER, nanos);
+        callback.onSheet(sheetIndex, projection);
+    }
+
+    /**
+     * 已上报为{@link ExcelTrace.Phase#HEADER}的耗时，调用方统计行映射耗时时需要扣除
+     */
+    long getHeaderNanos() {
+        return headerNanos;
+    }
+
+    /**
+     * 找出单元格值存放的位置，标题行的单元格都需要读取，数据行只读取需要导入的列
+     */
+    private CellData cellTarget(int sheetColumn) {
+        if (rowNum == 0) {
+            targetColumn = -1;
+            return headerCell;
+        }
+        targetColumn = projection.columnOf(sheetColumn);
+        return targetColumn < 0 ? null : values[targetColumn];
+    }
+
+    /**
+     * 标题单元格读取完成，按列下标记录标题
+     */
+    private void headerCellEnd() {
+        if (rowNum != 0) {
+            return;
+        }
+        while (headers.size() <= column) {
+            headers.add(null);
+        }
+        headers.set(column, headerCell.getText());
+    }
+
+    private void setValue(CellData value) {
+        if (cellType == null || "n".equals(cellType)) {
+            value.setNumeric(Double.parseDouble(text.toString()), dateStyles.get(cellStyle));
+            return;
+        }
+        switch (cellType) {
+            case "s":
+                value.setString(sharedString(Integer.parseInt(text.toString())));
+                break;
+            case "b":
+                value.setBoolean(text.length() == 1 && text.charAt(0) == '1');
+                break;
+            case "e":
+                value.setBlank();
+                break;
+            default:
+                // 公式字符串结果等
+                value.setString(deduplicate(text.toString()));
+        }
+    }
+
+    /**
+     * 读取共享字符串，开启去重时先按下标查找当前列已缓存的实例
+     */
+    private String sharedString(int index) {
+        if (deduplicators == null || targetColumn < 0) {
+            return sharedStrings.get(index);
+        }
+        StringDeduplicator deduplicator = deduplicators[targetColumn];
+        String value = deduplicator.shared(index);
+        return value != null ? value : deduplicator.putShared(index, sharedStrings.get(index));
+    }
+
+    /**
+     * 开启去重时按内容返回当前列已缓存的实例
+     */
+    private String deduplicate(String value) {
+        if (deduplicators == null || targetColumn < 0) {
+            return value;
+        }
+        return deduplicators[targetColumn].intern(value);
+    }
+
+    /**
+     * 找出所有日期格式的样式，同一个工作簿只需计算一次，结果可以被多个线程共享
+     *
+     * @param styles 工作簿样式
+     * @return 日期格式的样式下标
+     */
+    static BitSet dateStyles(StylesTable styles) {
+        BitSet dateStyles = new BitSet();
+        if (styles == null) {
+            return dateStyles;
+        }
+        for (int i = 0; i < styles.getNumCellStyles(); i++) {
+            XSSFCellStyle style = styles.getStyleAt(i);
+            if (style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString())) {
+                dateStyles.set(i);
+            }
+        }
+        return dateStyles;
+    }
+
+    /**
+     * 单元格引用(如AB12)转换为列下标
+     */
+    private static int columnIndex(String ref) {
+        int end = 0;
+        while (end < ref.length() && Character.isLetter(ref.charAt(end))) {
+            end++;
+        }
+        return CellReference.convertColStringToIndex(ref.substring(0, end));
+    }
+}
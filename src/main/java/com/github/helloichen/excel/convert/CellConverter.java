@@ -0,0 +1,32 @@
+package com.github.helloichen.excel.convert;
+
+/**
+ * 单元格转换器，把单元格的原始值转换为属性值
+ */
+@FunctionalInterface
+public interface CellConverter<T> {
+
+    /**
+     * 转换单元格的值，空单元格不会调用该方法
+     *
+     * @param cell 单元格的原始值
+     * @return 属性值，返回null时不给属性赋值
+     */
+    T convert(CellData cell);
+
+    /**
+     * 校验模式下转换单元格的值，失败时记录原因而不抛出异常<br>
+     * 默认调用{@link #convert(CellData)}并捕获异常，内置转换器都重写了该方法，不会构建异常
+     *
+     * @param cell   单元格的原始值
+     * @param result 转换结果
+     * @return 是否转换成功
+     */
+    default boolean tryConvert(CellData cell, ConvertResult result) {
+        try {
+            return result.success(convert(cell));
+        } catch (RuntimeException e) {
+            return result.failure(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+    }
+}
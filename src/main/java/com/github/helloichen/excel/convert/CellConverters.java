@@ -0,0 +1,433 @@
+package com.github.helloichen.excel.convert;
+
+import com.github.helloichen.util.DateUtils;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 单元格转换器注册表<br>
+ * 内置常用类型的转换器，枚举类型按名称转换，其余类型可以通过{@link #register(Class, CellConverter)}注册。
+ * 解析时每一列只查找一次转换器。内置转换器的{@link CellConverter#tryConvert(CellData, ConvertResult)}
+ * 按与{@link CellConverter#convert(CellData)}相同的规则解析，格式不正确时只记录原因，不构建异常
+ */
+public final class CellConverters {
+
+    private static final Map<Class<?>, CellConverter<?>> CONVERTERS = new ConcurrentHashMap<>(32);
+
+    private static final String NOT_INTEGER = "不是整数";
+    private static final String NOT_NUMBER = "不是数字";
+    private static final String OUT_OF_RANGE = "超出范围";
+    private static final String INVALID_DATE = "时间格式不正确";
+    private static final String INVALID_ENUM = "不是有效的枚举值";
+    /**
+     * {@link #compactOrEmpty(CellData)}表示空单元格
+     */
+    private static final long EMPTY = -2L;
+
+    static {
+        CellConverter<String> stringConverter = CellData::getText;
+        CellConverter<Integer> intConverter = of(cell -> {
+            if (cell.getType() == CellType.NUMERIC) {
+                return Math.toIntExact(integral(cell));
+            }
+            String text = trimToNull(cell);
+            return text == null ? null : Integer.valueOf(text);
+        }, (cell, result) -> tryIntegral(cell, result, Integer.MIN_VALUE, Integer.MAX_VALUE)
+                && (result.getValue() == null || result.success(((Long) result.getValue()).intValue())));
+        CellConverter<Long> longConverter = of(cell -> {
+            if (cell.getType() == CellType.NUMERIC) {
+                return integral(cell);
+            }
+            String text = trimToNull(cell);
+            return text == null ? null : Long.valueOf(text);
+        }, (cell, result) -> tryIntegral(cell, result, Long.MIN_VALUE, Long.MAX_VALUE));
+        CellConverter<Double> doubleConverter = of(cell -> {
+            if (cell.getType() == CellType.NUMERIC) {
+                return cell.getNumericValue();
+            }
+            String text = trimToNull(cell);
+            return text == null ? null : Double.valueOf(text);
+        }, (cell, result) -> {
+            if (cell.getType() == CellType.NUMERIC) {
+                return result.success(cell.getNumericValue());
+            }
+            String text = trimToNull(cell);
+            if (text == null) {
+                return result.success(null);
+            }
+            return isDecimal(text) ? result.success(Double.valueOf(text)) : result.failure(NOT_NUMBER);
+        });
+        CellConverter<Float> floatConverter = of(cell -> {
+            Double value = doubleConverter.convert(cell);
+            return value == null ? null : value.floatValue();
+        }, (cell, result) -> doubleConverter.tryConvert(cell, result)
+                && (result.getValue() == null || result.success(((Double) result.getValue()).floatValue())));
+        CellConverter<Short> shortConverter = of(cell -> {
+            if (cell.getType() == CellType.NUMERIC) {
+                long value = integral(cell);
+                if (value != (short) value) {
+                    throw new ArithmeticException(cell.getText() + "超出short范围");
+                }
+                return (short) value;
+            }
+            String text = trimToNull(cell);
+            return text == null ? null : Short.valueOf(text);
+        }, (cell, result) -> tryIntegral(cell, result, Short.MIN_VALUE, Short.MAX_VALUE)
+                && (result.getValue() == null || result.success(((Long) result.getValue()).shortValue())));
+        CellConverter<Boolean> booleanConverter = cell -> {
+            switch (cell.getType()) {
+                case BOOLEAN:
+                    return cell.getBooleanValue();
+                case NUMERIC:
+                    return cell.getNumericValue() != 0;
+                default:
+                    String text = trimToNull(cell);
+                    return text == null ? null : Boolean.valueOf(text);
+            }
+        };
+        CellConverter<BigDecimal> bigDecimalConverter = of(cell -> {
+            if (cell.getType() == CellType.NUMERIC) {
+                double value = cell.getNumericValue();
+                long longValue = (long) value;
+                return longValue == value ? BigDecimal.valueOf(longValue) : BigDecimal.valueOf(value);
+            }
+            String text = trimToNull(cell);
+            return text == null ? null : new BigDecimal(text);
+        }, (cell, result) -> {
+            if (cell.getType() == CellType.NUMERIC) {
+                double value = cell.getNumericValue();
+                long longValue = (long) value;
+                return result.success(longValue == value ? BigDecimal.valueOf(longValue) : BigDecimal.valueOf(value));
+            }
+            String text = trimToNull(cell);
+            if (text == null) {
+                return result.success(null);
+            }
+            return isDecimal(text) ? result.success(new BigDecimal(text)) : result.failure(NOT_NUMBER);
+        });
+        CellConverter<Date> dateConverter = of(CellConverters::toDate, (cell, result) -> {
+            if (cell.isDateFormatted()) {
+                return result.success(DateUtil.getJavaDate(cell.getNumericValue()));
+            }
+            long compact = compactOrEmpty(cell);
+            if (compact == EMPTY) {
+                return result.success(null);
+            }
+            return compact == DateUtils.INVALID ? result.failure(INVALID_DATE) : result.success(DateUtils.toDate(compact));
+        });
+
+        register(String.class, stringConverter);
+        register(Integer.class, intConverter);
+        register(int.class, intConverter);
+        register(Long.class, longConverter);
+        register(long.class, longConverter);
+        register(Double.class, doubleConverter);
+        register(double.class, doubleConverter);
+        register(Float.class, floatConverter);
+        register(float.class, floatConverter);
+        register(Short.class, shortConverter);
+        register(short.class, shortConverter);
+        register(Boolean.class, booleanConverter);
+        register(boolean.class, booleanConverter);
+        register(BigDecimal.class, bigDecimalConverter);
+        register(Date.class, dateConverter);
+        register(Timestamp.class, of(cell -> {
+            Date date = toDate(cell);
+            return date == null ? null : new Timestamp(date.getTime());
+        }, (cell, result) -> dateConverter.tryConvert(cell, result)
+                && (result.getValue() == null || result.success(new Timestamp(((Date) result.getValue()).getTime())))));
+        register(LocalDateTime.class, of(cell -> {
+            if (cell.isDateFormatted()) {
+                return DateUtils.excelToLocalDateTime(cell.getNumericValue());
+            }
+            long compact = toCompact(cell);
+            return compact == DateUtils.INVALID ? null : DateUtils.toLocalDateTime(compact);
+        }, (cell, result) -> {
+            if (cell.isDateFormatted()) {
+                return result.success(DateUtils.excelToLocalDateTime(cell.getNumericValue()));
+            }
+            long compact = compactOrEmpty(cell);
+            if (compact == EMPTY) {
+                return result.success(null);
+            }
+            return compact == DateUtils.INVALID ? result.failure(INVALID_DATE)
+                    : result.success(DateUtils.toLocalDateTime(compact));
+        }));
+        register(LocalDate.class, of(cell -> {
+            if (cell.isDateFormatted()) {
+                return DateUtils.excelToLocalDateTime(cell.getNumericValue()).toLocalDate();
+            }
+            long compact = toCompact(cell);
+            return compact == DateUtils.INVALID ? null : DateUtils.toLocalDate(compact);
+        }, (cell, result) -> {
+            if (cell.isDateFormatted()) {
+                return result.success(DateUtils.excelToLocalDateTime(cell.getNumericValue()).toLocalDate());
+            }
+            long compact = compactOrEmpty(cell);
+            if (compact == EMPTY) {
+                return result.success(null);
+            }
+            return compact == DateUtils.INVALID ? result.failure(INVALID_DATE)
+                    : result.success(DateUtils.toLocalDate(compact));
+        }));
+    }
+
+    private CellConverters() {
+    }
+
+    /**
+     * 注册转换器，已存在的转换器会被覆盖
+     *
+     * @param type      属性类型
+     * @param converter 转换器
+     */
+    public static <T> void register(Class<T> type, CellConverter<? extends T> converter) {
+        CONVERTERS.put(type, converter);
+    }
+
+    /**
+     * 查找属性类型对应的转换器
+     *
+     * @param type 属性类型
+     * @return 转换器，不支持的类型返回null
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static CellConverter<?> find(Class<?> type) {
+        CellConverter<?> converter = CONVERTERS.get(type);
+        if (converter == null && type.isEnum()) {
+            converter = CONVERTERS.computeIfAbsent(type, key -> enumConverter((Class<? extends Enum>) key));
+        }
+        return converter;
+    }
+
+    /**
+     * 校验模式的转换，格式不正确时返回false
+     */
+    @FunctionalInterface
+    private interface TryConverter {
+
+        boolean tryConvert(CellData cell, ConvertResult result);
+    }
+
+    /**
+     * 组合内置转换器的两种转换方式
+     */
+    private static <T> CellConverter<T> of(CellConverter<T> converter, TryConverter tryConverter) {
+        return new CellConverter<T>() {
+            @Override
+            public T convert(CellData cell) {
+                return converter.convert(cell);
+            }
+
+            @Override
+            public boolean tryConvert(CellData cell, ConvertResult result) {
+                return tryConverter.tryConvert(cell, result);
+            }
+        };
+    }
+
+    /**
+     * 枚举按名称转换
+     */
+    private static <E extends Enum<E>> CellConverter<E> enumConverter(Class<E> type) {
+        Map<String, E> constants = new HashMap<>();
+        for (E constant : type.getEnumConstants()) {
+            constants.put(constant.name(), constant);
+        }
+        return of(cell -> {
+            String text = trimToNull(cell);
+            return text == null ? null : Enum.valueOf(type, text);
+        }, (cell, result) -> {
+            String text = trimToNull(cell);
+            if (text == null) {
+                return result.success(null);
+            }
+            E constant = constants.get(text);
+            return constant != null ? result.success(constant) : result.failure(INVALID_ENUM);
+        });
+    }
+
+    /**
+     * 校验模式下转换为[min, max]范围内的整数，成功时结果为Long
+     */
+    private static boolean tryIntegral(CellData cell, ConvertResult result, long min, long max) {
+        long value;
+        if (cell.getType() == CellType.NUMERIC) {
+            double number = cell.getNumericValue();
+            value = (long) number;
+            if (value != number) {
+                // 超出long范围的数字强转后也不相等
+                return result.failure(Math.abs(number) >= 0x1p63 ? OUT_OF_RANGE : NOT_INTEGER);
+            }
+        } else {
+            String text = trimToNull(cell);
+            if (text == null) {
+                return result.success(null);
+            }
+            int status = parseLong(text, result);
+            if (status != 0) {
+                return result.failure(status > 0 ? OUT_OF_RANGE : NOT_INTEGER);
+            }
+            value = (Long) result.getValue();
+        }
+        return value < min || value > max ? result.failure(OUT_OF_RANGE) : result.success(value);
+    }
+
+    /**
+     * 按{@link Long#parseLong(String)}的格式解析整数，不抛出异常
+     *
+     * @return 0为成功，结果存放在result中；大于0为溢出；小于0为格式不正确
+     */
+    private static int parseLong(String text, ConvertResult result) {
+        int length = text.length();
+        int i = 0;
+        boolean negative = false;
+        char first = text.charAt(0);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++i == length) {
+                return -1;
+            }
+        }
+        // 与JDK相同按负数累加，Long.MIN_VALUE不会溢出
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyMin = limit / 10;
+        long value = 0;
+        boolean overflow = false;
+        for (; i < length; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            if (overflow || value < multiplyMin || value * 10 < limit + digit) {
+                // 继续检查格式，格式不正确优先
+                overflow = true;
+                continue;
+            }
+            value = value * 10 - digit;
+        }
+        if (overflow) {
+            return 1;
+        }
+        result.success(negative ? value : -value);
+        return 0;
+    }
+
+    /**
+     * 是否为Double.valueOf和BigDecimal都能解析的十进制小数，如-1、1.5、.5、1e-3<br>
+     * 指数最多9位，BigDecimal不会溢出
+     */
+    private static boolean isDecimal(String text) {
+        int length = text.length();
+        int i = 0;
+        char first = text.charAt(0);
+        if (first == '-' || first == '+') {
+            i++;
+        }
+        int digits = 0;
+        while (i < length && isDigit(text.charAt(i))) {
+            i++;
+            digits++;
+        }
+        if (i < length && text.charAt(i) == '.') {
+            i++;
+            while (i < length && isDigit(text.charAt(i))) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i < length && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+                i++;
+            }
+            int start = i;
+            while (i < length && isDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i == start || i - start > 9) {
+                return false;
+            }
+        }
+        return i == length;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * 数字单元格转换为整数，有小数部分时抛出异常
+     */
+    private static long integral(CellData cell) {
+        double value = cell.getNumericValue();
+        long longValue = (long) value;
+        if (longValue != value) {
+            throw new NumberFormatException(cell.getText() + "不是整数");
+        }
+        return longValue;
+    }
+
+    private static Date toDate(CellData cell) {
+        if (cell.isDateFormatted()) {
+            return DateUtil.getJavaDate(cell.getNumericValue());
+        }
+        long compact = toCompact(cell);
+        return compact == DateUtils.INVALID ? null : DateUtils.toDate(compact);
+    }
+
+    /**
+     * 文本或数字形式的时间，如20210405、2021-04-05 12:00:00，转换为yyyyMMddHHmmss形式
+     *
+     * @return yyyyMMddHHmmss形式的数字，空单元格返回{@link DateUtils#INVALID}
+     */
+    private static long toCompact(CellData cell) {
+        long compact;
+        if (cell.getType() == CellType.NUMERIC) {
+            compact = DateUtils.parseCompact(integral(cell));
+        } else {
+            String value = cell.getStringValue();
+            if (value == null || value.trim().isEmpty()) {
+                return DateUtils.INVALID;
+            }
+            compact = DateUtils.parseCompact(value);
+        }
+        if (compact == DateUtils.INVALID) {
+            throw new RuntimeException("时间格式转换失败");
+        }
+        return compact;
+    }
+
+    /**
+     * 与{@link #toCompact(CellData)}相同，格式不正确时返回{@link DateUtils#INVALID}，空单元格返回{@link #EMPTY}
+     */
+    private static long compactOrEmpty(CellData cell) {
+        if (cell.getType() == CellType.NUMERIC) {
+            double value = cell.getNumericValue();
+            long longValue = (long) value;
+            return longValue == value ? DateUtils.parseCompact(longValue) : DateUtils.INVALID;
+        }
+        String value = cell.getStringValue();
+        if (value == null || value.trim().isEmpty()) {
+            return EMPTY;
+        }
+        return DateUtils.parseCompact(value);
+    }
+
+    private static String trimToNull(CellData cell) {
+        String text = cell.getText().trim();
+        return text.isEmpty() ? null : text;
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.helloichen.excel.convert;
+
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.util.NumberToTextConverter;
+
+/**
+ * 单元格的原始值<br>
+ * DOM解析和流式解析都把单元格读取到该对象中交给转换器，数字、布尔值保持原生类型，不经过字符串转换。
+ * 解析时每一列复用同一个实例，转换器不能持有它的引用
+ */
+public final class CellData {
+
+    private CellType type = CellType.BLANK;
+    private String stringValue;
+    private double numericValue;
+    private boolean booleanValue;
+    private boolean dateFormatted;
+
+    public void setBlank() {
+        type = CellType.BLANK;
+        stringValue = null;
+    }
+
+    public void setString(String value) {
+        type = CellType.STRING;
+        stringValue = value;
+    }
+
+    /**
+     * @param value         数值
+     * @param dateFormatted 单元格是否为日期格式
+     */
+    public void setNumeric(double value, boolean dateFormatted) {
+        type = CellType.NUMERIC;
+        stringValue = null;
+        numericValue = value;
+        this.dateFormatted = dateFormatted;
+    }
+
+    public void setBoolean(boolean value) {
+        type = CellType.BOOLEAN;
+        stringValue = null;
+        booleanValue = value;
+    }
+
+    /**
+     * 复制当前的值，用于需要在解析之后保留单元格值的场景
+     *
+     * @return 新的CellData
+     */
+    public CellData copy() {
+        CellData copy = new CellData();
+        copy.type = type;
+        copy.stringValue = stringValue;
+        copy.numericValue = numericValue;
+        copy.booleanValue = booleanValue;
+        copy.dateFormatted = dateFormatted;
+        return copy;
+    }
+
+    /**
+     * 单元格类型，只会是BLANK、STRING、NUMERIC、BOOLEAN之一
+     */
+    public CellType getType() {
+        return type;
+    }
+
+    public boolean isBlank() {
+        return type == CellType.BLANK;
+    }
+
+    public String getStringValue() {
+        return stringValue;
+    }
+
+    public double getNumericValue() {
+        return numericValue;
+    }
+
+    public boolean getBooleanValue() {
+        return booleanValue;
+    }
+
+    public boolean isDateFormatted() {
+        return type == CellType.NUMERIC && dateFormatted;
+    }
+
+    /**
+     * 单元格的文本形式，数字按Excel的显示规则转换
+     *
+     * @return 文本，空单元格为空字符串
+     */
+    public String getText() {
+        switch (type) {
+            case STRING:
+                return stringValue;
+            case NUMERIC:
+                return NumberToTextConverter.toText(numericValue);
+            case BOOLEAN:
+                return String.valueOf(booleanValue);
+            default:
+                return "";
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getText();
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.helloichen.excel.convert;
+
+/**
+ * 校验模式下的转换结果<br>
+ * 转换失败时记录原因，不抛出异常，脏数据很多时也不需要为每个单元格构建异常和堆栈。
+ * 解析时每一列复用同一个实例，转换器不能持有它的引用
+ */
+public final class ConvertResult {
+
+    private Object value;
+    private String error;
+
+    /**
+     * 转换成功
+     *
+     * @param value 属性值，为null时不给属性赋值
+     * @return 始终为true
+     */
+    public boolean success(Object value) {
+        this.value = value;
+        this.error = null;
+        return true;
+    }
+
+    /**
+     * 转换失败
+     *
+     * @param reason 失败原因
+     * @return 始终为false
+     */
+    public boolean failure(String reason) {
+        this.value = null;
+        this.error = reason;
+        return false;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * 失败原因，转换成功时为null
+     */
+    public String getError() {
+        return error;
+    }
+}
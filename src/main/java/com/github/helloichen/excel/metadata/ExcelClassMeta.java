@@ -0,0 +1,202 @@
+package com.github.helloichen.excel.metadata;
+
+import com.github.helloichen.annotation.IChenExcelField;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 类的Excel映射元数据<br>
+ * 每个类只解析一次{@code @IChenExcelField}注解，按{@code order()}排序生成不可变的列描述数组，
+ * 读写时通过MethodHandle访问属性，不再逐个单元格反射和查找Map。<br>
+ * 通过ServiceLoader找到编译期生成的{@link ExcelRowMapper}时直接使用映射器，不再反射解析该类
+ */
+@Slf4j
+public final class ExcelClassMeta<T> {
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+    /**
+     * ClassValue保证每个类只计算一次，并且不会阻止类卸载
+     */
+    private static final ClassValue<ExcelClassMeta<?>> CACHE = new ClassValue<ExcelClassMeta<?>>() {
+        @Override
+        protected ExcelClassMeta<?> computeValue(Class<?> type) {
+            ExcelRowMapper<?> mapper = findMapper(type);
+            return mapper == null ? new ExcelClassMeta<>(type) : new ExcelClassMeta<>(mapper);
+        }
+    };
+
+    private final Class<T> type;
+    /**
+     * 无参构造方法句柄，签名为()Object，不存在时为null
+     */
+    private final MethodHandle constructor;
+    /**
+     * 编译期生成的映射器，反射解析时为null
+     */
+    private final ExcelRowMapper<T> mapper;
+    private final ExcelColumn[] importColumns;
+    private final ExcelColumn[] exportColumns;
+
+    /**
+     * 获取类的映射元数据
+     *
+     * @param clazz 类
+     * @return 映射元数据
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ExcelClassMeta<T> of(Class<T> clazz) {
+        return (ExcelClassMeta<T>) CACHE.get(clazz);
+    }
+
+    private ExcelClassMeta(ExcelRowMapper<T> mapper) {
+        this.type = mapper.getType();
+        this.constructor = null;
+        this.mapper = mapper;
+        this.importColumns = mapper.getImportColumns();
+        this.exportColumns = mapper.getExportColumns();
+    }
+
+    private ExcelClassMeta(Class<T> type) {
+        this.type = type;
+        this.mapper = null;
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        MethodHandle ctor;
+        try {
+            ctor = lookup.findConstructor(type, MethodType.methodType(void.class)).asType(CONSTRUCTOR_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            ctor = null;
+        }
+        this.constructor = ctor;
+
+        // 按方法名和参数个数查找，重载的方法和静态方法不影响getter/setter的匹配
+        Map<String, Method> methodMap = Arrays.stream(type.getDeclaredMethods())
+                .filter(method -> Modifier.isPublic(method.getModifiers()) && !Modifier.isStatic(method.getModifiers()))
+                .collect(Collectors.toMap(method -> methodKey(method.getName(), method.getParameterCount()),
+                        Function.identity(), (a, b) -> a));
+
+        // 按order排序，相同时保持声明顺序
+        List<Field> fields = Arrays.stream(type.getDeclaredFields())
+                .filter(field -> field.isAnnotationPresent(IChenExcelField.class))
+                .sorted(Comparator.comparingInt(field -> field.getAnnotation(IChenExcelField.class).order()))
+                .collect(Collectors.toList());
+
+        List<ExcelColumn> importList = new ArrayList<>();
+        List<ExcelColumn> exportList = new ArrayList<>();
+        for (Field field : fields) {
+            IChenExcelField excelField = field.getAnnotation(IChenExcelField.class);
+            String attr = field.getName();
+            String suffix = Character.toUpperCase(attr.charAt(0)) + attr.substring(1);
+            if (excelField.importField()) {
+                Method method = methodMap.get(methodKey("set" + suffix, 1));
+                if (method == null) {
+                    // setter方法不为null才可以导入
+                    log.warn("{}类{}属性无setter方法，无法导入", type.getName(), attr);
+                } else {
+                    importList.add(new ExcelColumn(importList.size(), attr, excelField.value(), excelField.format(),
+                            field.getType(), unreflect(lookup, method, SETTER_TYPE), null));
+                }
+            }
+            if (excelField.exportField()) {
+                Method method = methodMap.get(methodKey("get" + suffix, 0));
+                if (method == null) {
+                    // getter方法不为null才可以导出
+                    log.warn("{}类{}属性无getter方法，无法导出", type.getName(), attr);
+                } else {
+                    exportList.add(new ExcelColumn(exportList.size(), attr, excelField.value(), excelField.format(),
+                            field.getType(), null, unreflect(lookup, method, GETTER_TYPE)));
+                }
+            }
+        }
+        this.importColumns = importList.toArray(new ExcelColumn[0]);
+        this.exportColumns = exportList.toArray(new ExcelColumn[0]);
+    }
+
+    private static String methodKey(String name, int parameterCount) {
+        return name + '/' + parameterCount;
+    }
+
+    /**
+     * 查找类对应的生成映射器，从类自身的类加载器加载，每个类只查找一次
+     *
+     * @param type 类
+     * @return 映射器，未生成时返回null
+     */
+    private static ExcelRowMapper<?> findMapper(Class<?> type) {
+        try {
+            for (ExcelRowMapper<?> mapper : ServiceLoader.load(ExcelRowMapper.class, type.getClassLoader())) {
+                if (mapper.getType() == type) {
+                    return mapper;
+                }
+            }
+        } catch (ServiceConfigurationError e) {
+            log.warn("加载{}类的生成映射器失败，使用反射解析", type.getName(), e);
+        }
+        return null;
+    }
+
+    private static MethodHandle unreflect(MethodHandles.Lookup lookup, Method method, MethodType methodType) {
+        try {
+            return lookup.unreflect(method).asType(methodType);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(method + "无法访问", e);
+        }
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * 导入列，按列下标排序，调用方不可修改
+     */
+    public ExcelColumn[] getImportColumns() {
+        return importColumns;
+    }
+
+    /**
+     * 导出列，按列下标排序，调用方不可修改
+     */
+    public ExcelColumn[] getExportColumns() {
+        return exportColumns;
+    }
+
+    /**
+     * 通过无参构造方法创建对象
+     *
+     * @return 新对象
+     */
+    @SuppressWarnings("unchecked")
+    public T newInstance() {
+        if (mapper != null) {
+            return mapper.newInstance();
+        }
+        if (constructor == null) {
+            throw new IllegalStateException(type.getName() + "类无公共的无参构造方法");
+        }
+        try {
+            return (T) (Object) constructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(type.getName() + "类实例化失败", e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.helloichen.excel.metadata;
+
+import java.lang.invoke.MethodHandle;
+
+/**
+ * 一个{@code @IChenExcelField}属性对应的列描述，创建后不可变
+ */
+public final class ExcelColumn {
+
+    /**
+     * 列下标
+     */
+    private final int index;
+    /**
+     * 属性名
+     */
+    private final String name;
+    /**
+     * 表头
+     */
+    private final String title;
+    /**
+     * 导出时的单元格格式，未指定时为空字符串
+     */
+    private final String format;
+    /**
+     * 属性类型
+     */
+    private final Class<?> type;
+    /**
+     * setter方法句柄，签名为(Object, Object)void，不可导入时为null
+     */
+    private final MethodHandle setter;
+    /**
+     * getter方法句柄，签名为(Object)Object，不可导出时为null
+     */
+    private final MethodHandle getter;
+    /**
+     * 编译期生成的映射器，不为null时通过映射器直接调用getter/setter，不使用方法句柄
+     */
+    private final ExcelRowMapper<Object> mapper;
+
+    ExcelColumn(int index, String name, String title, String format, Class<?> type, MethodHandle setter,
+                MethodHandle getter) {
+        this(index, name, title, format, type, setter, getter, null);
+    }
+
+    ExcelColumn(int index, String name, String title, String format, Class<?> type, ExcelRowMapper<Object> mapper) {
+        this(index, name, title, format, type, null, null, mapper);
+    }
+
+    private ExcelColumn(int index, String name, String title, String format, Class<?> type, MethodHandle setter,
+                        MethodHandle getter, ExcelRowMapper<Object> mapper) {
+        this.index = index;
+        this.name = name;
+        this.title = title;
+        this.format = format;
+        this.type = type;
+        this.setter = setter;
+        this.getter = getter;
+        this.mapper = mapper;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * 给对象的属性赋值，基本类型属性忽略null值
+     *
+     * @param target 对象
+     * @param value  属性值
+     */
+    public void set(Object target, Object value) {
+        if (value == null && type.isPrimitive()) {
+            return;
+        }
+        if (mapper != null) {
+            mapper.set(target, index, value);
+            return;
+        }
+        try {
+            setter.invokeExact(target, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(name + "属性赋值失败", e);
+        }
+    }
+
+    /**
+     * 获取对象的属性值
+     *
+     * @param target 对象
+     * @return 属性值
+     */
+    public Object get(Object target) {
+        if (mapper != null) {
+            return mapper.get(target, index);
+        }
+        try {
+            return (Object) getter.invokeExact(target);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(name + "属性取值失败", e);
+        }
+    }
+}
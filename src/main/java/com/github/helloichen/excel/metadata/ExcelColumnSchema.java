@@ -0,0 +1,136 @@
+package com.github.helloichen.excel.metadata;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 按列读取时的列定义<br>
+ * 可以由{@code @IChenExcelField}注解的类生成，也可以按表头逐列声明。每一列按类型存放到基本类型数组、
+ * 字典编码的字符串或毫秒数形式的时间中，不为每一行创建对象
+ */
+public final class ExcelColumnSchema {
+
+    /**
+     * 列的存放类型
+     */
+    public enum Type {
+        /**
+         * int数组，适用于int、short、byte和boolean(1/0)
+         */
+        INT,
+        /**
+         * long数组
+         */
+        LONG,
+        /**
+         * double数组，适用于double、float和BigDecimal
+         */
+        DOUBLE,
+        /**
+         * 字典编码的字符串，每一行存放字典下标
+         */
+        STRING,
+        /**
+         * long数组，存放单元格显示时间按UTC换算的毫秒数，不涉及时区
+         */
+        DATE;
+
+        /**
+         * 属性类型对应的存放类型，其余类型都按字符串存放
+         *
+         * @param type 属性类型
+         * @return 存放类型
+         */
+        public static Type of(Class<?> type) {
+            if (type == int.class || type == Integer.class || type == short.class || type == Short.class
+                    || type == byte.class || type == Byte.class || type == boolean.class || type == Boolean.class) {
+                return INT;
+            }
+            if (type == long.class || type == Long.class || type == BigInteger.class) {
+                return LONG;
+            }
+            if (type == double.class || type == Double.class || type == float.class || type == Float.class
+                    || type == BigDecimal.class) {
+                return DOUBLE;
+            }
+            if (Date.class.isAssignableFrom(type) || TemporalAccessor.class.isAssignableFrom(type)) {
+                return DATE;
+            }
+            return STRING;
+        }
+    }
+
+    /**
+     * 生成该定义的类，按表头声明时为null
+     */
+    private final Class<?> source;
+    private final List<ExcelColumn> columns = new ArrayList<>();
+    private final List<Type> types = new ArrayList<>();
+
+    /**
+     * 按表头逐列声明
+     */
+    public ExcelColumnSchema() {
+        this.source = null;
+    }
+
+    private ExcelColumnSchema(Class<?> source) {
+        this.source = source;
+    }
+
+    /**
+     * 由类的导入列生成，列名为属性名
+     *
+     * @param clazz {@code @IChenExcelField}注解的类
+     * @return 列定义
+     */
+    public static ExcelColumnSchema of(Class<?> clazz) {
+        ExcelColumnSchema schema = new ExcelColumnSchema(clazz);
+        for (ExcelColumn column : ExcelClassMeta.of(clazz).getImportColumns()) {
+            schema.columns.add(column);
+            schema.types.add(Type.of(column.getType()));
+        }
+        return schema;
+    }
+
+    /**
+     * 增加一列，列名为表头，按表头匹配工作表的列，匹配不到时按声明的位置读取
+     *
+     * @param title 表头
+     * @param type  存放类型
+     * @return 当前对象
+     */
+    public ExcelColumnSchema add(String title, Type type) {
+        if (source != null) {
+            throw new IllegalStateException("由类生成的列定义不能再增加列");
+        }
+        columns.add(new ExcelColumn(columns.size(), title, title, "", Object.class, null, null));
+        types.add(type);
+        return this;
+    }
+
+    /**
+     * 生成该定义的类，按表头声明时为null
+     */
+    public Class<?> getSource() {
+        return source;
+    }
+
+    /**
+     * 导入列，下标与{@link #getTypes()}一一对应
+     */
+    public ExcelColumn[] getColumns() {
+        return columns.toArray(new ExcelColumn[0]);
+    }
+
+    /**
+     * 每一列的存放类型
+     */
+    public Type[] getTypes() {
+        return types.toArray(new Type[0]);
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.helloichen.excel.metadata;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 编译期生成的行映射器<br>
+ * 由ichen-poi-processor为带{@code @IChenExcelField}属性的类生成，构造方法中按{@code order()}登记列，
+ * 读写时直接调用构造方法和getter/setter。生成的映射器通过ServiceLoader注册，
+ * {@link ExcelClassMeta}找到类对应的映射器时不再反射解析该类
+ *
+ * @param <T> 映射的类
+ */
+public abstract class ExcelRowMapper<T> {
+
+    private final Class<T> type;
+    private final List<ExcelColumn> importColumns = new ArrayList<>();
+    private final List<ExcelColumn> exportColumns = new ArrayList<>();
+
+    protected ExcelRowMapper(Class<T> type) {
+        this.type = type;
+    }
+
+    /**
+     * 登记导入列，列下标为登记顺序
+     *
+     * @param name      属性名
+     * @param title     表头
+     * @param format    单元格格式
+     * @param fieldType 属性类型
+     */
+    @SuppressWarnings("unchecked")
+    protected final void importColumn(String name, String title, String format, Class<?> fieldType) {
+        importColumns.add(new ExcelColumn(importColumns.size(), name, title, format, fieldType,
+                (ExcelRowMapper<Object>) this));
+    }
+
+    /**
+     * 登记导出列，列下标为登记顺序
+     *
+     * @param name      属性名
+     * @param title     表头
+     * @param format    单元格格式
+     * @param fieldType 属性类型
+     */
+    @SuppressWarnings("unchecked")
+    protected final void exportColumn(String name, String title, String format, Class<?> fieldType) {
+        exportColumns.add(new ExcelColumn(exportColumns.size(), name, title, format, fieldType,
+                (ExcelRowMapper<Object>) this));
+    }
+
+    public final Class<T> getType() {
+        return type;
+    }
+
+    ExcelColumn[] getImportColumns() {
+        return importColumns.toArray(new ExcelColumn[0]);
+    }
+
+    ExcelColumn[] getExportColumns() {
+        return exportColumns.toArray(new ExcelColumn[0]);
+    }
+
+    /**
+     * 通过无参构造方法创建对象
+     *
+     * @return 新对象
+     */
+    public abstract T newInstance();
+
+    /**
+     * 给导入列对应的属性赋值
+     *
+     * @param target 对象
+     * @param column 导入列下标
+     * @param value  属性值，基本类型属性不会传入null
+     */
+    public abstract void set(T target, int column, Object value);
+
+    /**
+     * 获取导出列对应的属性值
+     *
+     * @param target 对象
+     * @param column 导出列下标
+     * @return 属性值
+     */
+    public abstract Object get(T target, int column);
+}
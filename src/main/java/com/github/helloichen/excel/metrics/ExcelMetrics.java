@@ -0,0 +1,24 @@
+package com.github.helloichen.excel.metrics;
+
+/**
+ * 导入导出埋点SPI<br>
+ * 通过{@link ExcelMetricsRegistry#register(ExcelMetrics)}注册，或者在
+ * META-INF/services/com.github.helloichen.excel.metrics.ExcelMetrics中声明实现类，未注册时不记录任何数据
+ */
+@FunctionalInterface
+public interface ExcelMetrics {
+
+    /**
+     * 不记录任何数据
+     */
+    ExcelMetrics NOOP = (type, clazz) -> ExcelTrace.NOOP;
+
+    /**
+     * 开始一次导入或导出
+     *
+     * @param type  操作类型
+     * @param clazz 导入导出数据所属类型
+     * @return 本次操作的埋点
+     */
+    ExcelTrace start(ExcelTrace.Type type, Class<?> clazz);
+}
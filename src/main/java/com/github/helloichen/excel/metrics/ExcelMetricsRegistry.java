@@ -0,0 +1,65 @@
+package com.github.helloichen.excel.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * 当前生效的埋点实现<br>
+ * 首次使用时通过ServiceLoader加载第一个实现，没有实现时使用{@link ExcelMetrics#NOOP}
+ */
+@Slf4j
+public final class ExcelMetricsRegistry {
+
+    private static volatile ExcelMetrics metrics = load();
+
+    private ExcelMetricsRegistry() {
+    }
+
+    /**
+     * 注册埋点实现，替换当前的实现
+     *
+     * @param excelMetrics 埋点实现，为null时不再记录
+     */
+    public static void register(ExcelMetrics excelMetrics) {
+        metrics = excelMetrics == null ? ExcelMetrics.NOOP : excelMetrics;
+    }
+
+    /**
+     * 当前生效的埋点实现
+     */
+    public static ExcelMetrics get() {
+        return metrics;
+    }
+
+    /**
+     * 开始一次导入或导出，埋点实现出错时不影响导入导出
+     *
+     * @param type  操作类型
+     * @param clazz 导入导出数据所属类型
+     * @return 本次操作的埋点
+     */
+    public static ExcelTrace start(ExcelTrace.Type type, Class<?> clazz) {
+        try {
+            ExcelTrace trace = metrics.start(type, clazz);
+            return trace == null ? ExcelTrace.NOOP : trace;
+        } catch (RuntimeException e) {
+            log.warn("埋点初始化失败：{}", e.getMessage());
+            return ExcelTrace.NOOP;
+        }
+    }
+
+    private static ExcelMetrics load() {
+        try {
+            Iterator<ExcelMetrics> iterator = ServiceLoader.load(ExcelMetrics.class).iterator();
+            if (iterator.hasNext()) {
+                return iterator.next();
+            }
+        } catch (ServiceConfigurationError e) {
+            log.warn("埋点实现加载失败：{}", e.getMessage());
+        }
+        return ExcelMetrics.NOOP;
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.helloichen.excel.metrics;
+
+/**
+ * 一次导入或导出的埋点<br>
+ * 由{@link ExcelMetrics#start(Type, Class)}创建，在执行导入导出的线程中调用，
+ * 分批读取和并行解析时会在多个线程中调用，实现需要线程安全。方法默认不做任何事，按需覆盖
+ */
+public interface ExcelTrace {
+
+    /**
+     * 不记录任何数据
+     */
+    ExcelTrace NOOP = new ExcelTrace() {
+    };
+
+    /**
+     * 操作类型
+     */
+    enum Type {
+        /**
+         * 导入
+         */
+        IMPORT,
+        /**
+         * 导出
+         */
+        EXPORT
+    }
+
+    /**
+     * 阶段
+     */
+    enum Phase {
+        /**
+         * 打开文件或创建工作簿
+         */
+        OPEN,
+        /**
+         * 解析标题行或写入表头
+         */
+        HEADER,
+        /**
+         * 行与对象之间的映射，包括解析、转换、创建单元格和样式
+         */
+        ROW_MAPPING,
+        /**
+         * 工作簿序列化，包括zip压缩和写出
+         */
+        SERIALIZE,
+        /**
+         * 刷新输出流
+         */
+        FLUSH
+    }
+
+    /**
+     * 一个阶段完成
+     *
+     * @param phase 阶段
+     * @param nanos 耗时，纳秒
+     */
+    default void phase(Phase phase, long nanos) {
+    }
+
+    /**
+     * 处理的行数，不含标题行
+     *
+     * @param rows 行数
+     */
+    default void rows(long rows) {
+    }
+
+    /**
+     * 读取或写出的字节数
+     *
+     * @param bytes 字节数
+     */
+    default void bytes(long bytes) {
+    }
+
+    /**
+     * 单元格转换失败
+     *
+     * @param column 属性名
+     * @param cause  转换异常
+     */
+    default void conversionFailure(String column, RuntimeException cause) {
+    }
+
+    /**
+     * 内存中同时缓存的行数，可能多次调用，实现记录最大值
+     *
+     * @param rows 行数
+     */
+    default void bufferedRows(long rows) {
+    }
+
+    /**
+     * 操作结束
+     *
+     * @param error 失败时的异常，成功时为null
+     */
+    default void end(Throwable error) {
+    }
+}
@@ -0,0 +1,237 @@
+package com.github.helloichen.excel.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 进程内的埋点汇总，不依赖外部监控系统<br>
+ * 按导入、导出分别累计各阶段耗时、行数、字节数、转换失败次数和缓存行数峰值，
+ * 可以定时打印{@link #toString()}或者读取{@link #summary(ExcelTrace.Type)}上报到已有的监控系统。
+ * <pre>
+ * InMemoryExcelMetrics metrics = new InMemoryExcelMetrics();
+ * ExcelMetricsRegistry.register(metrics);
+ * </pre>
+ */
+public class InMemoryExcelMetrics implements ExcelMetrics {
+
+    private volatile Map<ExcelTrace.Type, Stats> stats = newStats();
+
+    @Override
+    public ExcelTrace start(ExcelTrace.Type type, Class<?> clazz) {
+        return new Trace(stats.get(type));
+    }
+
+    /**
+     * 当前的汇总数据
+     *
+     * @param type 操作类型
+     * @return 汇总数据
+     */
+    public Summary summary(ExcelTrace.Type type) {
+        return new Summary(type, stats.get(type));
+    }
+
+    /**
+     * 清空汇总数据
+     */
+    public void reset() {
+        stats = newStats();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (ExcelTrace.Type type : ExcelTrace.Type.values()) {
+            builder.append(summary(type)).append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static Map<ExcelTrace.Type, Stats> newStats() {
+        Map<ExcelTrace.Type, Stats> map = new EnumMap<>(ExcelTrace.Type.class);
+        for (ExcelTrace.Type type : ExcelTrace.Type.values()) {
+            map.put(type, new Stats());
+        }
+        return map;
+    }
+
+    private static final class Stats {
+        private final LongAdder operations = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder conversionFailures = new LongAdder();
+        private final LongAccumulator peakBufferedRows = new LongAccumulator(Math::max, 0);
+        private final LongAdder[] phaseNanos = new LongAdder[ExcelTrace.Phase.values().length];
+        private final LongAccumulator[] phaseMaxNanos = new LongAccumulator[ExcelTrace.Phase.values().length];
+
+        Stats() {
+            for (int i = 0; i < phaseNanos.length; i++) {
+                phaseNanos[i] = new LongAdder();
+                phaseMaxNanos[i] = new LongAccumulator(Math::max, 0);
+            }
+        }
+    }
+
+    /**
+     * 单次操作的埋点，结束时计入汇总
+     */
+    private static final class Trace implements ExcelTrace {
+        private final Stats stats;
+        private final long startNanos = System.nanoTime();
+
+        Trace(Stats stats) {
+            this.stats = stats;
+        }
+
+        @Override
+        public void phase(Phase phase, long nanos) {
+            stats.phaseNanos[phase.ordinal()].add(nanos);
+            stats.phaseMaxNanos[phase.ordinal()].accumulate(nanos);
+        }
+
+        @Override
+        public void rows(long rows) {
+            stats.rows.add(rows);
+        }
+
+        @Override
+        public void bytes(long bytes) {
+            stats.bytes.add(bytes);
+        }
+
+        @Override
+        public void conversionFailure(String column, RuntimeException cause) {
+            stats.conversionFailures.increment();
+        }
+
+        @Override
+        public void bufferedRows(long rows) {
+            stats.peakBufferedRows.accumulate(rows);
+        }
+
+        @Override
+        public void end(Throwable error) {
+            stats.totalNanos.add(System.nanoTime() - startNanos);
+            stats.operations.increment();
+            if (error != null) {
+                stats.failures.increment();
+            }
+        }
+    }
+
+    /**
+     * 某一时刻的汇总数据
+     */
+    public static final class Summary {
+        private final ExcelTrace.Type type;
+        private final long operations;
+        private final long failures;
+        private final long totalNanos;
+        private final long rows;
+        private final long bytes;
+        private final long conversionFailures;
+        private final long peakBufferedRows;
+        private final long[] phaseNanos;
+        private final long[] phaseMaxNanos;
+
+        private Summary(ExcelTrace.Type type, Stats stats) {
+            this.type = type;
+            this.operations = stats.operations.sum();
+            this.failures = stats.failures.sum();
+            this.totalNanos = stats.totalNanos.sum();
+            this.rows = stats.rows.sum();
+            this.bytes = stats.bytes.sum();
+            this.conversionFailures = stats.conversionFailures.sum();
+            this.peakBufferedRows = stats.peakBufferedRows.get();
+            this.phaseNanos = new long[stats.phaseNanos.length];
+            this.phaseMaxNanos = new long[stats.phaseMaxNanos.length];
+            for (int i = 0; i < phaseNanos.length; i++) {
+                phaseNanos[i] = stats.phaseNanos[i].sum();
+                phaseMaxNanos[i] = stats.phaseMaxNanos[i].get();
+            }
+        }
+
+        public ExcelTrace.Type getType() {
+            return type;
+        }
+
+        /**
+         * 已结束的操作次数
+         */
+        public long getOperations() {
+            return operations;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * 已结束操作的总耗时，纳秒
+         */
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getConversionFailures() {
+            return conversionFailures;
+        }
+
+        public long getPeakBufferedRows() {
+            return peakBufferedRows;
+        }
+
+        /**
+         * 阶段累计耗时，纳秒
+         */
+        public long getPhaseNanos(ExcelTrace.Phase phase) {
+            return phaseNanos[phase.ordinal()];
+        }
+
+        /**
+         * 阶段单次最大耗时，纳秒
+         */
+        public long getPhaseMaxNanos(ExcelTrace.Phase phase) {
+            return phaseMaxNanos[phase.ordinal()];
+        }
+
+        /**
+         * 按总耗时计算的每秒行数
+         */
+        public double getRowsPerSecond() {
+            return totalNanos == 0 ? 0 : rows * (double) TimeUnit.SECONDS.toNanos(1) / totalNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(256);
+            builder.append(type).append(": operations=").append(operations)
+                    .append(", failures=").append(failures)
+                    .append(", rows=").append(rows)
+                    .append(", rows/s=").append(Math.round(getRowsPerSecond()))
+                    .append(", bytes=").append(bytes)
+                    .append(", conversionFailures=").append(conversionFailures)
+                    .append(", peakBufferedRows=").append(peakBufferedRows)
+                    .append(", totalMs=").append(TimeUnit.NANOSECONDS.toMillis(totalNanos));
+            for (ExcelTrace.Phase phase : ExcelTrace.Phase.values()) {
+                builder.append(", ").append(phase.name().toLowerCase()).append("Ms=")
+                        .append(TimeUnit.NANOSECONDS.toMillis(getPhaseNanos(phase)))
+                        .append("(max ").append(TimeUnit.NANOSECONDS.toMillis(getPhaseMaxNanos(phase))).append(')');
+            }
+            return builder.toString();
+        }
+    }
+}
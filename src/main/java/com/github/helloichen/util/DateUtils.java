@@ -1,68 +1,263 @@
 package com.github.helloichen.util;
 
-import java.text.DateFormat;
-import java.text.ParsePosition;
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * 获取SimpleDateFormat保证线程安全
- * 格式化时间
+ * 基于不可变的DateTimeFormatter格式化时间，线程安全<br>
+ * 固定宽度的yyyyMMdd[HH[mm[ss]]]以及yyyy-MM-dd[ HH:mm[:ss]]格式由手写的数字解析器处理，解析过程不创建任何对象
  *
  * @author Chenwp
  */
 public class DateUtils {
     /**
-     * 存放不同的日期模板格式的SimpleDateFormat的Map
+     * 存放不同的日期模板格式的DateTimeFormatter的Map
      */
-    private static Map<String, ThreadLocal<SimpleDateFormat>> SDF_FORMATTER_HOLDER = new HashMap<>(16);
+    private static final Map<String, DateTimeFormatter> FORMATTER_HOLDER = new ConcurrentHashMap<>(16);
 
     /**
-     * 返回一个ThreadLocal的sdf,每个线程只会new一次sdf
+     * 无法解析时的返回值
+     */
+    public static final long INVALID = -1L;
+
+    /**
+     * 1900日期系统中1970-01-01的序号
+     */
+    private static final int EXCEL_EPOCH_OFFSET = 25569;
+    private static final long SECONDS_PER_DAY = 86400L;
+    private static final long MILLIS_PER_DAY = SECONDS_PER_DAY * 1000L;
+
+    private static final String DEFAULT_DATE_PATTERN = "yyyy-MM-dd";
+    private static final String DEFAULT_OUT_PATTERN = "yyyy年MM月dd日";
+
+    /**
+     * 返回缓存的DateTimeFormatter，每种格式只会创建一次
      *
      * @param pattern 格式
-     * @return SimpleDateFormat
-     */
-    private static SimpleDateFormat getSimpleDateFormat(final String pattern) {
-        ThreadLocal<SimpleDateFormat> threadLocal = SDF_FORMATTER_HOLDER.get(pattern);
-
-        // 此处的双重判断和同步是为了防止sdfMap这个单例被多次put重复的sdf
-        if (threadLocal == null) {
-            synchronized (DateUtils.class) {
-                threadLocal = SDF_FORMATTER_HOLDER.get(pattern);
-                // 只有Map中还没有这个pattern的sdf才会生成新的sdf并放入map
-                if (threadLocal == null) {
-                    // 这里是关键,使用ThreadLocal<SimpleDateFormat>替代原来直接new SimpleDateFormat
-                    threadLocal = ThreadLocal.withInitial(() -> new SimpleDateFormat(pattern));
-                    SDF_FORMATTER_HOLDER.put(pattern, threadLocal);
-                }
-            }
+     * @return DateTimeFormatter
+     */
+    public static DateTimeFormatter getFormatter(final String pattern) {
+        DateTimeFormatter formatter = FORMATTER_HOLDER.get(pattern);
+        if (formatter == null) {
+            formatter = FORMATTER_HOLDER.computeIfAbsent(pattern, DateTimeFormatter::ofPattern);
         }
-        return threadLocal.get();
+        return formatter;
     }
 
     /**
      * 将字符串(格式符合规范)转换成Date
      *
      * @param value   需要转换的字符串
-     * @param pattern 日期格式
+     * @param pattern 快速解析不支持的格式时使用的日期格式
      * @return Date
      */
     public static Date string2Date(String value, String pattern) {
         if (value == null || "".equals(value)) {
             return null;
         }
-        SimpleDateFormat sdFormat = getSimpleDateFormat(pattern);
-        Date date;
+        long compact = parseCompact(value);
+        if (compact != INVALID) {
+            return toDate(compact);
+        }
         try {
-            value = formatDate(value, pattern);
-            date = sdFormat.parse(value);
+            TemporalAccessor parsed = getFormatter(pattern).parseBest(value.trim(), LocalDateTime::from, LocalDate::from);
+            LocalDateTime dateTime = parsed instanceof LocalDateTime
+                    ? (LocalDateTime) parsed : ((LocalDate) parsed).atStartOfDay();
+            return toDate(dateTime);
         } catch (Exception e) {
             throw new RuntimeException("时间格式转换失败");
         }
-        return date;
+    }
+
+    /**
+     * 解析yyyyMMdd[HH[mm[ss]]]、yyyyMM以及yyyy-MM-dd[ HH:mm[:ss]]格式的时间
+     *
+     * @param value 时间字符串
+     * @return LocalDateTime，空字符串返回null
+     * @throws RuntimeException 格式不正确
+     */
+    public static LocalDateTime parseLocalDateTime(CharSequence value) {
+        if (isBlank(value)) {
+            return null;
+        }
+        long compact = parseCompact(value);
+        if (compact == INVALID) {
+            throw new RuntimeException("时间格式转换失败");
+        }
+        return toLocalDateTime(compact);
+    }
+
+    /**
+     * 解析日期，时间部分被忽略，支持的格式同{@link #parseLocalDateTime(CharSequence)}
+     *
+     * @param value 日期字符串
+     * @return LocalDate，空字符串返回null
+     * @throws RuntimeException 格式不正确
+     */
+    public static LocalDate parseLocalDate(CharSequence value) {
+        if (isBlank(value)) {
+            return null;
+        }
+        long compact = parseCompact(value);
+        if (compact == INVALID) {
+            throw new RuntimeException("时间格式转换失败");
+        }
+        return toLocalDate(compact);
+    }
+
+    /**
+     * 不创建任何对象地解析时间字符串，支持以下格式，首尾空白会被忽略：
+     * <ul>
+     * <li>yyyyMM、yyyyMMdd、yyyyMMddHH、yyyyMMddHHmm、yyyyMMddHHmmss</li>
+     * <li>yyyy-MM-dd、yyyy-MM-dd HH:mm、yyyy-MM-dd HH:mm:ss，日期分隔符也可以是/，日期与时间之间也可以是T</li>
+     * </ul>
+     *
+     * @param value 时间字符串
+     * @return yyyyMMddHHmmss形式的数字，格式不正确或日期不存在时返回{@link #INVALID}
+     */
+    public static long parseCompact(CharSequence value) {
+        if (value == null) {
+            return INVALID;
+        }
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        int length = end - start;
+        if (length == 10 && !isDigit(value.charAt(start + 4))) {
+            // yyyy-MM-dd
+            long date = parseDatePart(value, start);
+            return date < 0 ? INVALID : check(date * 1000000L);
+        }
+        switch (length) {
+            case 6:
+            case 8:
+            case 10:
+            case 12:
+            case 14:
+                long digits = digits(value, start, end);
+                return digits < 0 ? INVALID : parseCompact(digits, length);
+            case 16:
+            case 19:
+                // yyyy-MM-dd HH:mm[:ss]
+                if (!isTimeSeparator(value.charAt(start + 10)) || value.charAt(start + 13) != ':'
+                        || (length == 19 && value.charAt(start + 16) != ':')) {
+                    return INVALID;
+                }
+                long date = parseDatePart(value, start);
+                long hour = digits(value, start + 11, start + 13);
+                long minute = digits(value, start + 14, start + 16);
+                long second = length == 19 ? digits(value, start + 17, start + 19) : 0L;
+                if (date < 0 || hour < 0 || minute < 0 || second < 0) {
+                    return INVALID;
+                }
+                return check(date * 1000000L + hour * 10000L + minute * 100L + second);
+            default:
+                return INVALID;
+        }
+    }
+
+    /**
+     * 把纯数字形式的时间，如数字单元格中的20210405，转换为yyyyMMddHHmmss形式
+     *
+     * @param number 6、8、10、12、14位的数字
+     * @return yyyyMMddHHmmss形式的数字，位数不正确或日期不存在时返回{@link #INVALID}
+     */
+    public static long parseCompact(long number) {
+        int length = 0;
+        for (long n = number; n > 0; n /= 10) {
+            length++;
+        }
+        return parseCompact(number, length);
+    }
+
+    /**
+     * 把Excel 1900日期系统的序号转换为LocalDateTime，按单元格显示的时间，不涉及时区
+     *
+     * @param excelDate Excel日期序号
+     * @return LocalDateTime
+     */
+    public static LocalDateTime excelToLocalDateTime(double excelDate) {
+        long wholeDays = (long) Math.floor(excelDate);
+        long millis = Math.round((excelDate - wholeDays) * MILLIS_PER_DAY);
+        if (millis >= MILLIS_PER_DAY) {
+            wholeDays++;
+            millis -= MILLIS_PER_DAY;
+        }
+        // Excel把1900年当作闰年，1900-03-01之前的序号需要多加一天
+        long epochDay = wholeDays - EXCEL_EPOCH_OFFSET + (wholeDays < 61 ? 1 : 0);
+        return LocalDateTime.of(LocalDate.ofEpochDay(epochDay), LocalTime.ofNanoOfDay(millis * 1000000L));
+    }
+
+    /**
+     * 把Excel 1900日期系统的序号转换为单元格显示时间的毫秒数，按UTC计算，不涉及时区，也不创建对象<br>
+     * 与{@link #excelToLocalDateTime(double)}的结果按UTC换算的毫秒数相同
+     *
+     * @param excelDate Excel日期序号
+     * @return 1970-01-01T00:00起的毫秒数
+     */
+    public static long excelToEpochMillis(double excelDate) {
+        long wholeDays = (long) Math.floor(excelDate);
+        long millis = Math.round((excelDate - wholeDays) * MILLIS_PER_DAY);
+        long epochDay = wholeDays - EXCEL_EPOCH_OFFSET + (wholeDays < 61 ? 1 : 0);
+        return epochDay * MILLIS_PER_DAY + millis;
+    }
+
+    /**
+     * yyyyMMddHHmmss形式的数字转换为毫秒数，按UTC计算，不涉及时区
+     *
+     * @param compact yyyyMMddHHmmss形式的数字
+     * @return 1970-01-01T00:00起的毫秒数
+     */
+    public static long toEpochMillis(long compact) {
+        long time = compact % 1000000L;
+        long seconds = time / 10000 * 3600 + time / 100 % 100 * 60 + time % 100;
+        return toLocalDate(compact).toEpochDay() * MILLIS_PER_DAY + seconds * 1000L;
+    }
+
+    /**
+     * yyyyMMddHHmmss形式的数字转换为LocalDateTime
+     */
+    public static LocalDateTime toLocalDateTime(long compact) {
+        long date = compact / 1000000L;
+        long time = compact % 1000000L;
+        return LocalDateTime.of((int) (date / 10000), (int) (date / 100 % 100), (int) (date % 100),
+                (int) (time / 10000), (int) (time / 100 % 100), (int) (time % 100));
+    }
+
+    /**
+     * yyyyMMddHHmmss形式的数字转换为LocalDate
+     */
+    public static LocalDate toLocalDate(long compact) {
+        long date = compact / 1000000L;
+        return LocalDate.of((int) (date / 10000), (int) (date / 100 % 100), (int) (date % 100));
+    }
+
+    /**
+     * yyyyMMddHHmmss形式的数字转换为系统时区的Date
+     */
+    public static Date toDate(long compact) {
+        return toDate(toLocalDateTime(compact));
+    }
+
+    /**
+     * LocalDateTime转换为系统时区的Date
+     */
+    public static Date toDate(LocalDateTime dateTime) {
+        return dateTime == null ? null : Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
     }
 
     /**
@@ -71,8 +266,7 @@ public class DateUtils {
      * @return yyyy-MM-dd
      */
     public static String format() {
-        DateFormat format = getSimpleDateFormat("yyyy-MM-dd");
-        return format.format(new Date());
+        return getFormatter(DEFAULT_DATE_PATTERN).format(LocalDate.now());
     }
 
     /**
@@ -82,8 +276,7 @@ public class DateUtils {
      * @return 格式化后的时间字符串
      */
     public static String format(String pattern) {
-        SimpleDateFormat format = getSimpleDateFormat(pattern);
-        return format.format(new Date());
+        return getFormatter(pattern).format(ZonedDateTime.now());
     }
 
     /**
@@ -94,8 +287,19 @@ public class DateUtils {
      * @return 格式化后的时间字符串
      */
     public static String format(Date date, String pattern) {
-        SimpleDateFormat format = getSimpleDateFormat(pattern);
-        return format.format(date);
+        ZonedDateTime dateTime = ZonedDateTime.ofInstant(Instant.ofEpochMilli(date.getTime()), ZoneId.systemDefault());
+        return getFormatter(pattern).format(dateTime);
+    }
+
+    /**
+     * 时间格式化
+     *
+     * @param temporal 被格式化的时间，如LocalDate、LocalDateTime
+     * @param pattern  时间格式
+     * @return 格式化后的时间字符串
+     */
+    public static String format(TemporalAccessor temporal, String pattern) {
+        return getFormatter(pattern).format(temporal);
     }
 
     /**
@@ -106,78 +310,140 @@ public class DateUtils {
      * @return 格式化后的时间
      */
     public static String formatDate(String dateStr, String pattern) {
-        if (dateStr == null || "".equals(dateStr)) {
+        if (isBlank(dateStr)) {
             return "";
         }
-        Date date;
-        DateFormat formatIn;
-        DateFormat formatOut;
-        ParsePosition pos = new ParsePosition(0);
-        dateStr = dateStr.replace("-", "").replace(":", "");
-        if ("".equals(dateStr.trim())) {
-            return "";
+        long compact = parseCompact(dateStr);
+        if (compact == INVALID) {
+            // 全为0的时间视为空
+            return isZero(dateStr) ? "" : dateStr;
         }
-        try {
-            if (Long.parseLong(dateStr) == 0L) {
-                return "";
-            }
-        } catch (Exception e) {
-            return dateStr;
+        if ((pattern == null) || ("".equals(pattern.trim()))) {
+            pattern = DEFAULT_OUT_PATTERN;
         }
         try {
-            switch (dateStr.trim().length()) {
-                case 14:
-                    formatIn = getSimpleDateFormat("yyyyMMddHHmmss");
-                    break;
-                case 12:
-                    formatIn = getSimpleDateFormat("yyyyMMddHHmm");
-                    break;
-                case 10:
-                    formatIn = getSimpleDateFormat("yyyyMMddHH");
-                    break;
-                case 8:
-                    formatIn = getSimpleDateFormat("yyyyMMdd");
-                    break;
-                case 6:
-                    formatIn = getSimpleDateFormat("yyyyMM");
-                    break;
-                case 7:
-                case 9:
-                case 11:
-                case 13:
-                default:
-                    return dateStr;
-            }
-            date = formatIn.parse(dateStr, pos);
-            if (date == null) {
-                return dateStr;
-            }
-            if ((pattern == null) || ("".equals(pattern.trim()))) {
-                formatOut = getSimpleDateFormat("yyyy年MM月dd日");
-            } else {
-                formatOut = getSimpleDateFormat(pattern);
-            }
-            return formatOut.format(date);
+            return getFormatter(pattern).format(toLocalDateTime(compact));
         } catch (Exception ex) {
             return dateStr;
         }
     }
-}
-
-
-
-
-
-
-
-
-
 
+    /**
+     * 解析[start, end)范围内的数字，不是数字时返回-1
+     */
+    private static long digits(CharSequence value, int start, int end) {
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
 
+    /**
+     * 解析从start开始的yyyy-MM-dd，返回yyyyMMdd
+     */
+    private static long parseDatePart(CharSequence value, int start) {
+        char separator = value.charAt(start + 4);
+        if ((separator != '-' && separator != '/') || value.charAt(start + 7) != separator) {
+            return -1;
+        }
+        long year = digits(value, start, start + 4);
+        long month = digits(value, start + 5, start + 7);
+        long day = digits(value, start + 8, start + 10);
+        if (year < 0 || month < 0 || day < 0) {
+            return -1;
+        }
+        return year * 10000 + month * 100 + day;
+    }
 
+    /**
+     * 按位数补齐为yyyyMMddHHmmss并校验
+     */
+    private static long parseCompact(long digits, int length) {
+        switch (length) {
+            case 6:
+                // yyyyMM 取当月1日
+                return check((digits * 100 + 1) * 1000000L);
+            case 8:
+                return check(digits * 1000000L);
+            case 10:
+                return check(digits * 10000L);
+            case 12:
+                return check(digits * 100L);
+            case 14:
+                return check(digits);
+            default:
+                return INVALID;
+        }
+    }
 
+    /**
+     * 校验yyyyMMddHHmmss各字段的范围
+     */
+    private static long check(long compact) {
+        long date = compact / 1000000L;
+        long time = compact % 1000000L;
+        int year = (int) (date / 10000);
+        int month = (int) (date / 100 % 100);
+        int day = (int) (date % 100);
+        int hour = (int) (time / 10000);
+        int minute = (int) (time / 100 % 100);
+        int second = (int) (time % 100);
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour > 23 || minute > 59 || second > 59) {
+            return INVALID;
+        }
+        return compact;
+    }
 
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
 
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
 
+    private static boolean isTimeSeparator(char c) {
+        return c == ' ' || c == 'T';
+    }
 
+    private static boolean isBlank(CharSequence value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
 
+    private static boolean isZero(CharSequence value) {
+        boolean hasDigit = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '1' && c <= '9') {
+                return false;
+            }
+            hasDigit |= c == '0';
+        }
+        return hasDigit;
+    }
+}
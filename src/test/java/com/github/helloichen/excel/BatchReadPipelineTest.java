@@ -0,0 +1,148 @@
+package com.github.helloichen.excel;
+
+import com.github.helloichen.excel.metrics.ExcelTrace;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 分批读取：批次拼接后与整体读取一致，队列满时解析等待，任何一方失败时另一方停止
+ */
+public class BatchReadPipelineTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void batchesMatchRead() throws Exception {
+        File file = folder.newFile();
+        try (OutputStream out = new FileOutputStream(file)) {
+            ExcelWriter.write(out, TestRow.rows(1000), TestRow.class, ExcelWriteOptions.streaming());
+        }
+        List<TestRow> expected = ExcelReader.read(file, TestRow.class);
+
+        List<List<TestRow>> batches = Collections.synchronizedList(new ArrayList<>());
+        ExcelReader.read(file, TestRow.class, 64, batches::add);
+        List<TestRow> actual = new ArrayList<>();
+        for (int i = 0; i < batches.size(); i++) {
+            // 只有最后一批可能不满
+            assertEquals(i < batches.size() - 1 ? 64 : 1000 % 64, batches.get(i).size());
+            actual.addAll(batches.get(i));
+        }
+        assertEquals(expected, actual);
+
+        // 多个处理线程时批次之间不保证顺序
+        batches.clear();
+        ExcelReader.read(file, TestRow.class, 50, batches::add, new ExcelReadOptions().setConsumerThreads(4));
+        actual.clear();
+        batches.forEach(actual::addAll);
+        actual.sort(Comparator.comparing(TestRow::getId));
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void queueFullBlocksParsing() throws Exception {
+        int batchSize = 10;
+        ExcelReadOptions options = new ExcelReadOptions().setConsumerThreads(1).setBatchQueueSize(2);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger produced = new AtomicInteger();
+        AtomicInteger consumed = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            try {
+                BatchReadPipeline.<Integer>read(rows -> {
+                    for (int i = 0; i < 1000; i++) {
+                        produced.incrementAndGet();
+                        rows.accept(i);
+                    }
+                }, batchSize, batch -> {
+                    await(release);
+                    consumed.addAndGet(batch.size());
+                }, options, ExcelTrace.NOOP);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        reader.start();
+
+        Thread.sleep(500);
+        // 队列中的两批、处理线程正在处理的一批以及正在收集的一批
+        assertTrue("produced=" + produced.get(), produced.get() <= batchSize * (2 + 1 + 1));
+        release.countDown();
+        reader.join(10000);
+        assertEquals(1000, produced.get());
+        assertEquals(1000, consumed.get());
+    }
+
+    @Test
+    public void consumerFailureStopsParsing() throws Exception {
+        IllegalStateException failure = new IllegalStateException("入库失败");
+        AtomicInteger produced = new AtomicInteger();
+        try {
+            BatchReadPipeline.<Integer>read(rows -> {
+                for (int i = 0; i < 1000000; i++) {
+                    produced.incrementAndGet();
+                    rows.accept(i);
+                }
+            }, 10, batch -> {
+                if (batch.get(0) >= 30) {
+                    throw failure;
+                }
+            }, new ExcelReadOptions().setConsumerThreads(2).setBatchQueueSize(2), ExcelTrace.NOOP);
+            fail();
+        } catch (IllegalStateException e) {
+            assertSame(failure, e);
+        }
+        assertTrue("produced=" + produced.get(), produced.get() < 1000000);
+    }
+
+    @Test
+    public void sourceFailureStopsConsumers() throws Exception {
+        IOException failure = new IOException("文件损坏");
+        AtomicInteger consumed = new AtomicInteger();
+        try {
+            BatchReadPipeline.<Integer>read(rows -> {
+                for (int i = 0; i < 95; i++) {
+                    rows.accept(i);
+                }
+                throw failure;
+            }, 10, batch -> consumed.addAndGet(batch.size()), new ExcelReadOptions(), ExcelTrace.NOOP);
+            fail();
+        } catch (IOException e) {
+            assertSame(failure, e);
+        }
+        // 最后不满的一批不会交给consumer
+        assertTrue("consumed=" + consumed.get(), consumed.get() <= 90);
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("ichen-excel-batch-")) {
+                thread.join(1000);
+                assertFalse(thread.getName(), thread.isAlive());
+            }
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
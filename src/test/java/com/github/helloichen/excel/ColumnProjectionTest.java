@@ -0,0 +1,99 @@
+package com.github.helloichen.excel;
+
+import com.github.helloichen.annotation.IChenExcelField;
+import lombok.Data;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 按标题匹配列：DOM解析和事件解析的结果必须一致
+ */
+public class ColumnProjectionTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Data
+    public static class DuplicateRow {
+        @IChenExcelField("A")
+        private String first;
+        @IChenExcelField("A")
+        private String second;
+    }
+
+    @Data
+    public static class ReorderedRow {
+        @IChenExcelField("编号")
+        private String id;
+        @IChenExcelField("名称")
+        private String name;
+        @IChenExcelField("备注")
+        private String remark;
+    }
+
+    @Test
+    public void duplicateTitlesMapInOrder() throws Exception {
+        for (Workbook workbook : new Workbook[]{new XSSFWorkbook(), new HSSFWorkbook()}) {
+            File file = write(workbook, new String[]{"A", "A"}, new String[]{"x", "y"});
+            for (List<DuplicateRow> rows : readAllPaths(file, DuplicateRow.class)) {
+                assertEquals(1, rows.size());
+                assertEquals("x", rows.get(0).getFirst());
+                assertEquals("y", rows.get(0).getSecond());
+            }
+        }
+    }
+
+    @Test
+    public void titlesMatchRegardlessOfPosition() throws Exception {
+        for (Workbook workbook : new Workbook[]{new XSSFWorkbook(), new HSSFWorkbook()}) {
+            // 多出的列不读取，缺少的列为空
+            File file = write(workbook, new String[]{"名称", "其他", "编号"}, new String[]{"张三", "-", "7"});
+            for (List<ReorderedRow> rows : readAllPaths(file, ReorderedRow.class)) {
+                assertEquals(1, rows.size());
+                assertEquals("7", rows.get(0).getId());
+                assertEquals("张三", rows.get(0).getName());
+                assertNull(rows.get(0).getRemark());
+            }
+        }
+    }
+
+    private static <T> List<List<T>> readAllPaths(File file, Class<T> clazz) throws Exception {
+        List<List<T>> results = new ArrayList<>();
+        results.add(ExcelReader.read(file, clazz));
+        results.add(ExcelReader.read(file, clazz, new ExcelReadOptions().setParallel(true)));
+        List<T> streamed = new ArrayList<>();
+        ExcelReader.read(file, clazz, (T row) -> streamed.add(row));
+        results.add(streamed);
+        return results;
+    }
+
+    private File write(Workbook workbook, String[] headers, String[] values) throws Exception {
+        File file = folder.newFile();
+        try (Workbook book = workbook; OutputStream out = new FileOutputStream(file)) {
+            Sheet sheet = book.createSheet();
+            Row header = sheet.createRow(0);
+            Row row = sheet.createRow(1);
+            for (int i = 0; i < headers.length; i++) {
+                header.createCell(i).setCellValue(headers[i]);
+                row.createCell(i).setCellValue(values[i]);
+            }
+            book.write(out);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.helloichen.excel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 分页读取拼接起来必须与整体读取的结果一致
+ */
+public class ExcelPageReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ExcelPageReader pageReader;
+
+    @Before
+    public void setUp() throws Exception {
+        pageReader = new ExcelPageReader(folder.newFolder("index"), 64L * 1024 * 1024);
+    }
+
+    @After
+    public void tearDown() {
+        pageReader.clear();
+    }
+
+    @Test
+    public void sharedStringsPagesMatchRead() throws Exception {
+        // XSSFWorkbook写出共享字符串表
+        assertPagesMatchRead(write(TestRow.rows(1000), ExcelWriteOptions.defaults()));
+    }
+
+    @Test
+    public void inlineStringsPagesMatchRead() throws Exception {
+        assertPagesMatchRead(write(TestRow.rows(1000), ExcelWriteOptions.streaming()));
+    }
+
+    @Test
+    public void eachSheetPagesMatchRead() throws Exception {
+        File file = write(TestRow.rows(2500), ExcelWriteOptions.streaming().setMaxRowsPerSheet(1000));
+        List<TestRow> expected = ExcelReader.read(file, TestRow.class);
+        List<TestRow> actual = new ArrayList<>();
+        for (int sheet = 0; sheet < 3; sheet++) {
+            actual.addAll(readPages(file, sheet, 50));
+        }
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void offsetOutOfRange() throws Exception {
+        File file = write(TestRow.rows(100), ExcelWriteOptions.defaults());
+        assertEquals(100, pageReader.getRowCount(file, 0));
+        assertTrue(pageReader.read(file, 0, 100, 10, TestRow.class).isEmpty());
+        assertEquals(ExcelReader.read(file, TestRow.class).subList(95, 100),
+                pageReader.read(file, 0, 95, 10, TestRow.class));
+    }
+
+    private void assertPagesMatchRead(File file) throws Exception {
+        List<TestRow> expected = ExcelReader.read(file, TestRow.class);
+        assertEquals(expected.size(), pageReader.getRowCount(file, 0));
+        // 页大小小于、等于、不整除和大于索引间隔
+        for (int pageSize : new int[]{1, 7, SheetRowIndex.INTERVAL, 50, 333}) {
+            assertEquals("pageSize=" + pageSize, expected, readPages(file, 0, pageSize));
+        }
+    }
+
+    private List<TestRow> readPages(File file, int sheet, int pageSize) throws Exception {
+        int total = pageReader.getRowCount(file, sheet);
+        List<TestRow> rows = new ArrayList<>(total);
+        for (int offset = 0; offset < total; offset += pageSize) {
+            List<TestRow> page = pageReader.read(file, sheet, offset, pageSize, TestRow.class);
+            assertEquals(Math.min(pageSize, total - offset), page.size());
+            rows.addAll(page);
+        }
+        return rows;
+    }
+
+    private File write(List<TestRow> rows, ExcelWriteOptions options) throws Exception {
+        File file = folder.newFile();
+        try (OutputStream out = new FileOutputStream(file)) {
+            ExcelWriter.write(out, rows, TestRow.class, options);
+        }
+        return file;
+    }
+}
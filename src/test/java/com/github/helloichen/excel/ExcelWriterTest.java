@@ -0,0 +1,153 @@
+package com.github.helloichen.excel;
+
+import com.github.helloichen.annotation.IChenExcelField;
+import lombok.Data;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 导出的单元格值和工作表拆分
+ */
+public class ExcelWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Data
+    public static class NumberRow {
+        @IChenExcelField("单精度")
+        private Float ratio;
+        @IChenExcelField("小数")
+        private BigDecimal amount;
+        @IChenExcelField("长整型")
+        private Long id;
+        @IChenExcelField("雪花id")
+        private Long snowflake;
+    }
+
+    @Test
+    public void numbersWrittenAsDisplayed() throws Exception {
+        NumberRow data = new NumberRow();
+        data.setRatio(0.1f);
+        data.setAmount(new BigDecimal("1234.5678"));
+        data.setId(1L << 53);
+        data.setSnowflake(1380215473489825793L);
+
+        for (ExcelWriteOptions options : new ExcelWriteOptions[]{ExcelWriteOptions.defaults(),
+                ExcelWriteOptions.streaming()}) {
+            try (XSSFWorkbook book = writeAndOpen(Collections.singletonList(data), NumberRow.class, options)) {
+                Row row = book.getSheetAt(0).getRow(1);
+                assertEquals(0.1, row.getCell(0).getNumericCellValue(), 0);
+                assertEquals(1234.5678, row.getCell(1).getNumericCellValue(), 0);
+                assertEquals((double) (1L << 53), row.getCell(2).getNumericCellValue(), 0);
+                // 超出double精度的长整型写为文本
+                assertEquals(CellType.STRING, row.getCell(3).getCellTypeEnum());
+                assertEquals("1380215473489825793", row.getCell(3).getStringCellValue());
+            }
+        }
+    }
+
+    @Test
+    public void rollsOverAtMaxRows() throws Exception {
+        for (ExcelWriteOptions options : new ExcelWriteOptions[]{ExcelWriteOptions.defaults(),
+                ExcelWriteOptions.streaming()}) {
+            options.setMaxRowsPerSheet(10);
+            List<TestRow> rows = TestRow.rows(25);
+            File file = write(rows, options);
+            try (XSSFWorkbook book = new XSSFWorkbook(file)) {
+                assertSheets(book, 10, 10, 5);
+            }
+            assertEquals(rows, ExcelReader.read(file, TestRow.class));
+
+            // 恰好写满时不创建多余的工作表，没有数据时保留只有表头的工作表
+            try (XSSFWorkbook book = new XSSFWorkbook(write(TestRow.rows(20), options))) {
+                assertSheets(book, 10, 10);
+            }
+            try (XSSFWorkbook book = new XSSFWorkbook(write(Collections.emptyList(), options))) {
+                assertSheets(book, 0);
+            }
+        }
+    }
+
+    @Test
+    public void partitionsKeepOrder() throws Exception {
+        List<TestRow> rows = TestRow.rows(40);
+        List<List<TestRow>> partitions = Arrays.asList(rows.subList(0, 15), rows.subList(15, 15),
+                rows.subList(15, 22), rows.subList(22, 40));
+
+        // 并行时每个分区写入各自的工作表，空分区不产生工作表
+        ExcelWriteOptions parallel = ExcelWriteOptions.streaming().setParallelSheets(true).setMaxRowsPerSheet(10);
+        File file = writePartitioned(partitions, parallel);
+        try (XSSFWorkbook book = new XSSFWorkbook(file)) {
+            assertSheets(book, 10, 5, 7, 10, 8);
+        }
+        assertEquals(rows, ExcelReader.read(file, TestRow.class));
+
+        // 顺序写入时分区连续写在同一组工作表中
+        file = writePartitioned(partitions, ExcelWriteOptions.streaming().setMaxRowsPerSheet(10));
+        try (XSSFWorkbook book = new XSSFWorkbook(file)) {
+            assertSheets(book, 10, 10, 10, 10);
+        }
+        assertEquals(rows, ExcelReader.read(file, TestRow.class));
+    }
+
+    /**
+     * 工作表按顺序命名，每个工作表都有表头，数据行数依次为counts
+     */
+    private static void assertSheets(XSSFWorkbook book, int... counts) {
+        assertEquals(counts.length, book.getNumberOfSheets());
+        for (int i = 0; i < counts.length; i++) {
+            Sheet sheet = book.getSheetAt(i);
+            assertEquals("Sheet" + i, sheet.getSheetName());
+            assertEquals(counts[i], sheet.getLastRowNum());
+            Row header = sheet.getRow(0);
+            assertEquals("编号", header.getCell(0).getStringCellValue());
+            assertEquals("启用", header.getCell(4).getStringCellValue());
+        }
+    }
+
+    private File write(List<TestRow> rows, ExcelWriteOptions options) throws Exception {
+        File file = folder.newFile();
+        try (OutputStream out = new FileOutputStream(file)) {
+            ExcelWriter.write(out, rows, TestRow.class, options);
+        }
+        return file;
+    }
+
+    private File writePartitioned(List<List<TestRow>> partitions, ExcelWriteOptions options) throws Exception {
+        List<Iterator<TestRow>> iterators = new ArrayList<>();
+        for (List<TestRow> partition : partitions) {
+            iterators.add(partition.iterator());
+        }
+        File file = folder.newFile();
+        try (OutputStream out = new FileOutputStream(file)) {
+            ExcelWriter.writePartitioned(out, iterators, TestRow.class, options);
+        }
+        return file;
+    }
+
+    private XSSFWorkbook writeAndOpen(List<?> rows, Class<?> clazz, ExcelWriteOptions options) throws Exception {
+        File file = folder.newFile();
+        try (OutputStream out = new FileOutputStream(file)) {
+            ExcelWriter.write(out, rows, clazz, options);
+        }
+        return new XSSFWorkbook(file);
+    }
+}
@@ -0,0 +1,135 @@
+package com.github.helloichen.excel;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * 并行压缩写出的zip必须能被标准实现和POI读取
+ */
+public class ParallelZipOutputTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void entriesRoundTrip() throws Exception {
+        Map<String, byte[]> entries = entries();
+        for (int level : new int[]{Deflater.NO_COMPRESSION, Deflater.BEST_SPEED, Deflater.DEFAULT_COMPRESSION}) {
+            File file = folder.newFile("level" + level + ".zip");
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try (OutputStream out = new FileOutputStream(file)) {
+                ParallelZipOutput zip = new ParallelZipOutput(out, level, pool);
+                for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                    zip.putEntry(entry.getKey(), new ByteArrayInputStream(entry.getValue()));
+                }
+                zip.finish();
+            } finally {
+                pool.shutdown();
+            }
+            assertEntries(file, entries);
+        }
+    }
+
+    @Test
+    public void workbookOpensWithPoi() throws Exception {
+        List<TestRow> rows = TestRow.rows(20000);
+        File file = folder.newFile("parallel.xlsx");
+        try (OutputStream out = new FileOutputStream(file)) {
+            ExcelWriter.write(out, rows, TestRow.class, ExcelWriteOptions.streaming()
+                    .setMaxRowsPerSheet(7000)
+                    .setParallelCompression(true));
+        }
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(file)) {
+            assertEquals(3, workbook.getNumberOfSheets());
+            int index = 0;
+            for (Sheet sheet : workbook) {
+                assertEquals("编号", sheet.getRow(0).getCell(0).getStringCellValue());
+                for (int r = 1; r <= sheet.getLastRowNum(); r++) {
+                    Row row = sheet.getRow(r);
+                    assertNotNull(row);
+                    assertEquals(rows.get(index++).getId().longValue(), (long) row.getCell(0).getNumericCellValue());
+                }
+            }
+            assertEquals(rows.size(), index);
+        }
+        assertEquals(rows, ExcelReader.read(file, TestRow.class));
+    }
+
+    private static Map<String, byte[]> entries() {
+        Random random = new Random(42);
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("empty.txt", new byte[0]);
+        entries.put("small.txt", "你好, zip".getBytes(StandardCharsets.UTF_8));
+        // 正好一个块和跨块的重复数据，后一块引用前一块作为预设字典
+        entries.put("block.xml", repeat("<row r=\"1\"><c t=\"s\"><v>0</v></c></row>", 128 * 1024));
+        entries.put("dir/repeat.xml", repeat("<row r=\"1\"><c t=\"s\"><v>0</v></c></row>", 1024 * 1024 + 17));
+        byte[] noise = new byte[512 * 1024 + 3];
+        random.nextBytes(noise);
+        entries.put("dir/random.bin", noise);
+        return entries;
+    }
+
+    private static byte[] repeat(String text, int size) {
+        byte[] pattern = text.getBytes(StandardCharsets.UTF_8);
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = pattern[i % pattern.length];
+        }
+        return data;
+    }
+
+    private static void assertEntries(File file, Map<String, byte[]> expected) throws IOException {
+        try (ZipFile zip = new ZipFile(file)) {
+            assertEquals(expected.size(), zip.size());
+            for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+                ZipEntry zipEntry = zip.getEntry(entry.getKey());
+                assertNotNull(entry.getKey(), zipEntry);
+                byte[] data = readAll(zip.getInputStream(zipEntry));
+                assertArrayEquals(entry.getKey(), entry.getValue(), data);
+                assertEquals(entry.getValue().length, zipEntry.getSize());
+                CRC32 crc = new CRC32();
+                crc.update(entry.getValue());
+                assertEquals(crc.getValue(), zipEntry.getCrc());
+            }
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try (InputStream input = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = input.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.github.helloichen.excel;
+
+import com.github.helloichen.annotation.IChenExcelConstraint;
+import com.github.helloichen.annotation.IChenExcelField;
+import lombok.Data;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 校验导入：通过的行交给consumer，错误记录单元格位置和原因，错误明细按上限保留
+ */
+public class RowValidatorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Data
+    public static class ValidatedRow {
+        @IChenExcelField("编号")
+        @IChenExcelConstraint(required = true)
+        private Long id;
+        @IChenExcelField("名称")
+        @IChenExcelConstraint(required = true, maxLength = 4)
+        private String name;
+        @IChenExcelField("数量")
+        @IChenExcelConstraint(min = 0, max = 100)
+        private Integer quantity;
+        @IChenExcelField("手机")
+        @IChenExcelConstraint(pattern = "1\\d{10}", message = "手机号格式不正确")
+        private String phone;
+    }
+
+    /**
+     * 第一列不导入，错误位置为工作表中的列
+     */
+    private static final Object[][] ROWS = {
+            {"备注", "编号", "名称", "数量", "手机"},
+            {"", 1, "张三", 5, "13800000000"},
+            {"", null, "李四", 5, "13800000001"},
+            {"", 3, "名字太长了啊", 200, "123"},
+            {"", "abc", "王五", 1.5, null},
+            {null, null, null, null, null},
+            {"", 6, "赵六", 0, "13900000000"},
+    };
+
+    @Test
+    public void validRowsAndErrors() throws Exception {
+        for (Workbook workbook : new Workbook[]{new XSSFWorkbook(), new HSSFWorkbook()}) {
+            File file = write(workbook);
+            List<ValidatedRow> valid = new ArrayList<>();
+            ExcelErrorReport report = ExcelReader.validate(file, ValidatedRow.class, valid::add,
+                    new ExcelErrorReport(100));
+
+            assertEquals(2, valid.size());
+            assertEquals(Long.valueOf(1), valid.get(0).getId());
+            assertEquals("张三", valid.get(0).getName());
+            assertEquals(Integer.valueOf(0), valid.get(1).getQuantity());
+            assertEquals("13900000000", valid.get(1).getPhone());
+
+            assertFalse(report.isValid());
+            assertFalse(report.isTruncated());
+            assertEquals(6, report.getErrorCount());
+            assertEquals(3, report.getInvalidRowCount());
+            assertEquals(2, report.getValidRowCount());
+            assertEquals(Arrays.asList("编号", "名称", "数量", "手机"), report.getTitles());
+            assertErrors(report.getErrors(),
+                    "B3 编号 不能为空",
+                    "C4 名称 长度不能大于4",
+                    "D4 数量 应在0到100之间",
+                    "E4 手机 手机号格式不正确",
+                    "B5 编号 不是整数",
+                    "D5 数量 不是整数");
+            ExcelErrorReport.InvalidRow row = report.getInvalidRows().get(1);
+            assertEquals(3, row.getRowNum());
+            assertEquals("名字太长了啊", row.getValues().get(1));
+            assertEquals("123", row.getErrors().get(2).getValue());
+        }
+    }
+
+    @Test
+    public void maxErrorsLimitsRetainedDetails() throws Exception {
+        File file = write(new XSSFWorkbook());
+        List<ExcelCellError> listened = new ArrayList<>();
+        ExcelErrorReport report = ExcelReader.validate(file, ValidatedRow.class, row -> {
+        }, new ExcelErrorReport(2, listened::add));
+
+        // 统计始终完整，明细只保留前两个，达到上限的那一行不完整
+        assertTrue(report.isTruncated());
+        assertEquals(6, report.getErrorCount());
+        assertEquals(2, report.getRetainedErrorCount());
+        assertEquals(3, report.getInvalidRowCount());
+        assertEquals(2, report.getInvalidRows().size());
+        assertErrors(report.getErrors(), "B3 编号 不能为空", "C4 名称 长度不能大于4");
+        assertEquals(6, listened.size());
+
+        // 只通过listener处理时不保留明细
+        listened.clear();
+        report = ExcelReader.validate(file, ValidatedRow.class, row -> {
+        }, new ExcelErrorReport(0, listened::add));
+        assertEquals(6, listened.size());
+        assertTrue(report.getInvalidRows().isEmpty());
+    }
+
+    @Test
+    public void writeErrorReport() throws Exception {
+        File file = write(new XSSFWorkbook());
+        ExcelErrorReport report = ExcelReader.validate(file, ValidatedRow.class, row -> {
+        }, new ExcelErrorReport(2));
+        File output = folder.newFile();
+        try (OutputStream out = new FileOutputStream(output)) {
+            ExcelWriter.writeErrorReport(out, report);
+        }
+
+        try (XSSFWorkbook book = new XSSFWorkbook(output)) {
+            Sheet sheet = book.getSheet("错误报告");
+            Row header = sheet.getRow(0);
+            assertEquals("编号", header.getCell(0).getStringCellValue());
+            assertEquals("错误原因", header.getCell(6).getStringCellValue());
+            Row first = sheet.getRow(1);
+            assertEquals(1, (int) first.getCell(4).getNumericCellValue());
+            assertEquals(3, (int) first.getCell(5).getNumericCellValue());
+            assertEquals("编号：不能为空", first.getCell(6).getStringCellValue());
+            // 批注在出错的单元格上
+            assertEquals("不能为空", first.getCell(0).getCellComment().getString().getString());
+            assertNull(first.getCell(1).getCellComment());
+            Row second = sheet.getRow(2);
+            assertEquals("名字太长了啊", second.getCell(1).getStringCellValue());
+            assertEquals("名称：长度不能大于4", second.getCell(6).getStringCellValue());
+            assertEquals("长度不能大于4", second.getCell(1).getCellComment().getString().getString());
+            // 超出上限时最后一行说明总数
+            assertEquals("共3行、6个错误，只列出前2个错误", sheet.getRow(3).getCell(0).getStringCellValue());
+            assertEquals(3, sheet.getLastRowNum());
+        }
+    }
+
+    private static void assertErrors(List<ExcelCellError> errors, String... expected) {
+        List<String> actual = new ArrayList<>();
+        for (ExcelCellError error : errors) {
+            actual.add(error.getCellReference() + " " + error.getTitle() + " " + error.getReason());
+        }
+        assertEquals(Arrays.asList(expected), actual);
+    }
+
+    private File write(Workbook workbook) throws Exception {
+        File file = folder.newFile();
+        try (Workbook book = workbook; OutputStream out = new FileOutputStream(file)) {
+            Sheet sheet = book.createSheet();
+            for (int i = 0; i < ROWS.length; i++) {
+                Row row = sheet.createRow(i);
+                for (int j = 0; j < ROWS[i].length; j++) {
+                    Object value = ROWS[i][j];
+                    if (value instanceof Number) {
+                        row.createCell(j).setCellValue(((Number) value).doubleValue());
+                    } else if (value != null) {
+                        row.createCell(j).setCellValue((String) value);
+                    }
+                }
+            }
+            book.write(out);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.helloichen.excel;
+
+import com.github.helloichen.annotation.IChenExcelField;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 测试数据：混合类型，部分单元格为空
+ */
+@Data
+public class TestRow {
+    @IChenExcelField("编号")
+    private Long id;
+    @IChenExcelField("名称")
+    private String name;
+    @IChenExcelField("数量")
+    private Integer quantity;
+    @IChenExcelField("金额")
+    private Double amount;
+    @IChenExcelField("启用")
+    private Boolean enabled;
+
+    static List<TestRow> rows(int count) {
+        String[] cities = {"北京", "上海", "广州", "深圳", "杭州"};
+        List<TestRow> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TestRow row = new TestRow();
+            row.setId((long) i);
+            // 空单元格会让行内的列不连续
+            row.setName(i % 7 == 0 ? null : cities[i % cities.length] + "-" + i);
+            row.setQuantity(i % 11 == 0 ? null : i * 3);
+            row.setAmount(i * 1.25);
+            row.setEnabled(i % 2 == 0);
+            rows.add(row);
+        }
+        return rows;
+    }
+}
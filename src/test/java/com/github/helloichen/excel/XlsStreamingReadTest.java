@@ -0,0 +1,158 @@
+package com.github.helloichen.excel;
+
+import com.github.helloichen.annotation.IChenExcelField;
+import lombok.Data;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 2003格式的事件解析与DOM解析的结果必须一致
+ */
+public class XlsStreamingReadTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Data
+    public static class XlsRow {
+        @IChenExcelField("名称")
+        private String name;
+        @IChenExcelField("数量")
+        private Integer quantity;
+        @IChenExcelField("金额")
+        private Double amount;
+        @IChenExcelField("日期")
+        private LocalDate date;
+        @IChenExcelField("时间")
+        private LocalDateTime time;
+        @IChenExcelField("启用")
+        private Boolean enabled;
+        @IChenExcelField("合计")
+        private Double total;
+        @IChenExcelField("标签")
+        private String label;
+        @IChenExcelField("超量")
+        private Boolean large;
+    }
+
+    @Test
+    public void streamingMatchesDom() throws Exception {
+        File file = folder.newFile("rows.xls");
+        try (HSSFWorkbook book = new HSSFWorkbook(); OutputStream out = new FileOutputStream(file)) {
+            // 内置日期格式和自定义日期格式
+            CellStyle date = book.createCellStyle();
+            date.setDataFormat((short) 14);
+            CellStyle time = book.createCellStyle();
+            time.setDataFormat(book.createDataFormat().getFormat("yyyy/m/d h:mm:ss"));
+            writeSheet(book.createSheet("一"), date, time, 0,
+                    new String[]{"名称", "数量", "金额", "日期", "时间", "启用", "合计", "标签", "超量"});
+            // 第二个工作表的列顺序不同，并且缺少时间列
+            writeSheet(book.createSheet("二"), date, time, 100,
+                    new String[]{"超量", "标签", "合计", "启用", "日期", "金额", "数量", "名称"});
+            book.getCreationHelper().createFormulaEvaluator().evaluateAll();
+            book.write(out);
+        }
+
+        List<XlsRow> dom = ExcelReader.read(file, XlsRow.class);
+        List<XlsRow> streamed = new ArrayList<>();
+        ExcelReader.read(file, XlsRow.class, (XlsRow row) -> streamed.add(row));
+        List<XlsRow> fromStream = new ArrayList<>();
+        try (InputStream in = new FileInputStream(file)) {
+            ExcelReader.read(in, XlsRow.class, (XlsRow row) -> fromStream.add(row));
+        }
+        assertEquals(dom, streamed);
+        assertEquals(dom, fromStream);
+
+        // 每个工作表30行，其中整行为空的行被跳过
+        assertEquals(2 * 27, dom.size());
+        XlsRow first = dom.get(1);
+        assertEquals("名称1", first.getName());
+        assertEquals(Integer.valueOf(1), first.getQuantity());
+        assertEquals(1.25, first.getAmount(), 0);
+        assertEquals(LocalDate.of(2021, 4, 6), first.getDate());
+        assertEquals(LocalDateTime.of(2021, 4, 5, 8, 1, 30), first.getTime());
+        assertEquals(Boolean.FALSE, first.getEnabled());
+        assertEquals(1.25, first.getTotal(), 0);
+        assertEquals("名称1-1", first.getLabel());
+        assertEquals(Boolean.FALSE, first.getLarge());
+        // 空白单元格读取为null
+        XlsRow blank = dom.get(3);
+        assertNull(blank.getQuantity());
+        assertNull(blank.getDate());
+        assertEquals("名称3-", blank.getLabel());
+        XlsRow second = dom.get(27);
+        assertEquals("名称100", second.getName());
+        assertNull(second.getTime());
+        assertEquals(Boolean.TRUE, second.getLarge());
+    }
+
+    /**
+     * 按标题写入一个工作表，公式的缓存结果分别为数字、字符串和布尔值
+     */
+    private static void writeSheet(Sheet sheet, CellStyle dateStyle, CellStyle timeStyle, int offset,
+                                   String[] headers) {
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < headers.length; i++) {
+            header.createCell(i).setCellValue(headers[i]);
+        }
+        List<String> titles = Arrays.asList(headers);
+        int rowNum = 1;
+        for (int i = 0; i < 30; i++) {
+            Row row = sheet.createRow(rowNum++);
+            if (i % 10 == 7) {
+                // 只有空白单元格的行
+                row.createCell(0);
+                continue;
+            }
+            int id = offset + i;
+            boolean blank = i % 4 == 3;
+            String name = cell(titles, "名称");
+            String quantity = cell(titles, "数量");
+            String amount = cell(titles, "金额");
+            row.createCell(titles.indexOf("名称")).setCellValue("名称" + id);
+            if (!blank) {
+                row.createCell(titles.indexOf("数量")).setCellValue(id);
+            }
+            row.createCell(titles.indexOf("金额")).setCellValue(id * 1.25);
+            if (!blank) {
+                row.createCell(titles.indexOf("日期")).setCellValue(
+                        java.sql.Date.valueOf(LocalDate.of(2021, 4, 5).plusDays(id)));
+                row.getCell(titles.indexOf("日期")).setCellStyle(dateStyle);
+            }
+            if (titles.contains("时间")) {
+                row.createCell(titles.indexOf("时间")).setCellValue(
+                        Timestamp.valueOf(LocalDateTime.of(2021, 4, 5, 8, id % 60, 30)));
+                row.getCell(titles.indexOf("时间")).setCellStyle(timeStyle);
+            }
+            row.createCell(titles.indexOf("启用")).setCellValue(id % 2 == 0);
+            row.createCell(titles.indexOf("合计")).setCellFormula(amount + rowNum);
+            row.createCell(titles.indexOf("标签")).setCellFormula(
+                    name + rowNum + "&\"-\"&" + (blank ? "\"\"" : quantity + rowNum));
+            row.createCell(titles.indexOf("超量")).setCellFormula(amount + rowNum + ">100");
+        }
+    }
+
+    private static String cell(List<String> titles, String title) {
+        return String.valueOf((char) ('A' + titles.indexOf(title)));
+    }
+}
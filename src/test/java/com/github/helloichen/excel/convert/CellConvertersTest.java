@@ -0,0 +1,224 @@
+package com.github.helloichen.excel.convert;
+
+import com.github.helloichen.annotation.IChenExcelField;
+import com.github.helloichen.excel.ExcelReadOptions;
+import com.github.helloichen.excel.ExcelReader;
+import com.github.helloichen.excel.ExcelWriteOptions;
+import com.github.helloichen.excel.ExcelWriter;
+import lombok.Data;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 转换器直接读取单元格的原生值
+ */
+public class CellConvertersTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    public enum Status {
+        ENABLED, DISABLED
+    }
+
+    public static final class Code {
+        private final String value;
+
+        Code(String value) {
+            this.value = value;
+        }
+    }
+
+    @Data
+    public static class TypedRow {
+        @IChenExcelField("整数")
+        private Integer integer;
+        @IChenExcelField("基本整数")
+        private int primitive;
+        @IChenExcelField("长整型")
+        private Long longValue;
+        @IChenExcelField("短整型")
+        private Short shortValue;
+        @IChenExcelField("双精度")
+        private Double doubleValue;
+        @IChenExcelField("单精度")
+        private Float floatValue;
+        @IChenExcelField("小数")
+        private BigDecimal decimal;
+        @IChenExcelField("布尔")
+        private Boolean enabled;
+        @IChenExcelField("时间")
+        private Date date;
+        @IChenExcelField("本地时间")
+        private LocalDateTime dateTime;
+        @IChenExcelField("本地日期")
+        private LocalDate localDate;
+        @IChenExcelField("状态")
+        private Status status;
+        @IChenExcelField("文本")
+        private String text;
+    }
+
+    @Test
+    public void numericCells() {
+        CellData cell = numeric(42);
+        assertEquals(42, convert(Integer.class, cell));
+        assertEquals(42, convert(int.class, cell));
+        assertEquals(42L, convert(Long.class, cell));
+        assertEquals((short) 42, convert(Short.class, cell));
+        assertEquals(42.0, convert(Double.class, cell));
+        assertEquals(42f, convert(Float.class, cell));
+        assertEquals(BigDecimal.valueOf(42), convert(BigDecimal.class, cell));
+        assertEquals(true, convert(Boolean.class, cell));
+        assertEquals("42", convert(String.class, cell));
+
+        assertEquals(new BigDecimal("0.1"), convert(BigDecimal.class, numeric(0.1)));
+        // 超出int范围和有小数部分的数字不能转换为整数
+        assertFails(Integer.class, numeric(1L << 31));
+        assertFails(Integer.class, numeric(1.5));
+        assertFails(Short.class, numeric(40000));
+    }
+
+    @Test
+    public void textCells() {
+        assertEquals(-7, convert(Integer.class, text(" -7 ")));
+        assertEquals(9007199254740993L, convert(Long.class, text("9007199254740993")));
+        assertEquals(new BigDecimal("12345678901234567890.123"),
+                convert(BigDecimal.class, text("12345678901234567890.123")));
+        assertEquals(false, convert(Boolean.class, text("false")));
+        assertEquals(Status.DISABLED, convert(Status.class, text("DISABLED")));
+        assertFails(Integer.class, text("12a"));
+        assertFails(Status.class, text("UNKNOWN"));
+        for (Class<?> type : Arrays.asList(Integer.class, Long.class, BigDecimal.class, Date.class,
+                LocalDateTime.class, LocalDate.class, Status.class)) {
+            assertNull(type.getName(), convert(type, text("  ")));
+            assertNull(type.getName(), convert(type, new CellData()));
+        }
+    }
+
+    @Test
+    public void dateCells() {
+        LocalDateTime expected = LocalDateTime.of(2021, 4, 5, 12, 30, 15);
+        CellData formatted = new CellData();
+        formatted.setNumeric(DateUtil.getExcelDate(Timestamp.valueOf(expected)), true);
+        assertEquals(expected, convert(LocalDateTime.class, formatted));
+        assertEquals(expected.toLocalDate(), convert(LocalDate.class, formatted));
+        assertEquals(Timestamp.valueOf(expected).getTime(), ((Date) convert(Date.class, formatted)).getTime());
+
+        assertEquals(expected, convert(LocalDateTime.class, text("2021-04-05 12:30:15")));
+        assertEquals(expected, convert(LocalDateTime.class, text("20210405123015")));
+        assertEquals(expected.toLocalDate(), convert(LocalDate.class, numeric(20210405)));
+        assertFails(LocalDate.class, text("2021-02-30"));
+    }
+
+    @Test
+    public void tryConvertReportsReason() {
+        ConvertResult result = new ConvertResult();
+        assertTrue(CellConverters.find(Integer.class).tryConvert(numeric(3), result));
+        assertEquals(3, result.getValue());
+        assertFalse(CellConverters.find(Integer.class).tryConvert(text("abc"), result));
+        assertEquals("不是整数", result.getError());
+        assertFalse(CellConverters.find(Integer.class).tryConvert(numeric(1L << 40), result));
+        assertEquals("超出范围", result.getError());
+        assertFalse(CellConverters.find(LocalDate.class).tryConvert(text("2021-13-01"), result));
+        assertEquals("时间格式不正确", result.getError());
+        assertFalse(CellConverters.find(Status.class).tryConvert(text("x"), result));
+        assertEquals("不是有效的枚举值", result.getError());
+    }
+
+    @Test
+    public void customConverter() {
+        CellConverter<Code> converter = cell -> cell.isBlank() ? null : new Code(cell.getText().toUpperCase());
+        CellConverters.register(Code.class, converter);
+        assertSame(converter, CellConverters.find(Code.class));
+        assertEquals("AB-1", ((Code) convert(Code.class, text("ab-1"))).value);
+    }
+
+    @Test
+    public void writeAndReadBack() throws Exception {
+        List<TypedRow> rows = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            TypedRow row = new TypedRow();
+            row.setInteger(i % 5 == 0 ? null : i * 1000);
+            row.setPrimitive(-i);
+            row.setLongValue((1L << 52) + i);
+            row.setShortValue((short) (i * 7));
+            row.setDoubleValue(i / 8.0);
+            row.setFloatValue(i * 0.1f);
+            row.setDecimal(new BigDecimal("1234.56").add(BigDecimal.valueOf(i)));
+            row.setEnabled(i % 2 == 0);
+            row.setDate(Timestamp.valueOf(LocalDateTime.of(2021, 4, 5, 8, i, 30)));
+            row.setDateTime(LocalDateTime.of(2000, 1, 1 + i, 23, 59, 59));
+            row.setLocalDate(LocalDate.of(1999, 12, 31).plusDays(i));
+            row.setStatus(i % 3 == 0 ? Status.DISABLED : Status.ENABLED);
+            row.setText(i % 4 == 0 ? null : "文本" + i);
+            rows.add(row);
+        }
+        File file = folder.newFile();
+        try (OutputStream out = new FileOutputStream(file)) {
+            ExcelWriter.write(out, rows, TypedRow.class, ExcelWriteOptions.defaults());
+        }
+
+        List<TypedRow> streamed = new ArrayList<>();
+        ExcelReader.read(file, TypedRow.class, (TypedRow row) -> streamed.add(row));
+        List<List<TypedRow>> results = Arrays.asList(ExcelReader.read(file, TypedRow.class),
+                ExcelReader.read(file, TypedRow.class, new ExcelReadOptions().setParallel(true)), streamed);
+        for (List<TypedRow> result : results) {
+            assertEquals(rows.size(), result.size());
+            for (int i = 0; i < rows.size(); i++) {
+                TypedRow expected = rows.get(i);
+                TypedRow actual = result.get(i);
+                // Date读取为java.util.Date，只比较时间
+                assertEquals(expected.getDate().getTime(), actual.getDate().getTime());
+                actual.setDate(expected.getDate());
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    private static Object convert(Class<?> type, CellData cell) {
+        return CellConverters.find(type).convert(cell);
+    }
+
+    private static void assertFails(Class<?> type, CellData cell) {
+        try {
+            Object value = convert(type, cell);
+            fail(type.getSimpleName() + " " + cell + " -> " + value);
+        } catch (RuntimeException expected) {
+            assertFalse(CellConverters.find(type).tryConvert(cell, new ConvertResult()));
+        }
+    }
+
+    private static CellData numeric(double value) {
+        CellData cell = new CellData();
+        cell.setNumeric(value, false);
+        return cell;
+    }
+
+    private static CellData text(String value) {
+        CellData cell = new CellData();
+        cell.setString(value);
+        return cell;
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.helloichen.util;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 快速解析与DateTimeFormatter解析的结果必须一致
+ */
+public class DateUtilsTest {
+
+    @Test
+    public void parseCompactLayouts() {
+        assertEquals(20210405123015L, DateUtils.parseCompact("20210405123015"));
+        assertEquals(20210405123000L, DateUtils.parseCompact("202104051230"));
+        assertEquals(20210405120000L, DateUtils.parseCompact("2021040512"));
+        assertEquals(20210405000000L, DateUtils.parseCompact("20210405"));
+        assertEquals(20210401000000L, DateUtils.parseCompact("202104"));
+        assertEquals(20210405000000L, DateUtils.parseCompact("2021-04-05"));
+        assertEquals(20210405000000L, DateUtils.parseCompact("2021/04/05"));
+        assertEquals(20210405123000L, DateUtils.parseCompact("2021-04-05 12:30"));
+        assertEquals(20210405123015L, DateUtils.parseCompact("2021-04-05 12:30:15"));
+        assertEquals(20210405123015L, DateUtils.parseCompact("2021-04-05T12:30:15"));
+        assertEquals(20210405123015L, DateUtils.parseCompact(" \t2021-04-05 12:30:15 \n"));
+        assertEquals(20210405000000L, DateUtils.parseCompact(20210405L));
+        assertEquals(20210405123015L, DateUtils.parseCompact(20210405123015L));
+    }
+
+    @Test
+    public void parseCompactRejectsInvalid() {
+        String[] invalid = {null, "", "   ", "2021", "2021040", "20211305", "20210230", "20190229", "19000229",
+                "2021040524", "202104051260", "20210405123060", "2021-04-5", "2021-04/05", "2021.04.05",
+                "2021-04-05 12:30:1", "2021-04-05_12:30", "2021-04-05 12-30", "2021040a", "00000000",
+                "20210405123015000"};
+        for (String value : invalid) {
+            assertEquals(value, DateUtils.INVALID, DateUtils.parseCompact(value));
+        }
+        assertEquals(DateUtils.INVALID, DateUtils.parseCompact(2021L));
+        assertEquals(DateUtils.INVALID, DateUtils.parseCompact(0L));
+        assertEquals(DateUtils.INVALID, DateUtils.parseCompact(-20210405L));
+    }
+
+    @Test
+    public void leapYears() {
+        assertEquals(20200229000000L, DateUtils.parseCompact("20200229"));
+        assertEquals(20000229000000L, DateUtils.parseCompact("2000-02-29"));
+        assertEquals(DateUtils.INVALID, DateUtils.parseCompact("2100-02-29"));
+    }
+
+    @Test
+    public void matchesFormatterForEveryMinuteOfLeapYear() {
+        DateTimeFormatter compact = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+        DateTimeFormatter dashed = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        LocalDateTime end = LocalDateTime.of(2021, 1, 1, 0, 0);
+        for (LocalDateTime time = LocalDateTime.of(2020, 1, 1, 0, 0, 7); time.isBefore(end);
+             time = time.plusMinutes(17)) {
+            long expected = Long.parseLong(compact.format(time));
+            assertEquals(expected, DateUtils.parseCompact(compact.format(time)));
+            assertEquals(expected, DateUtils.parseCompact(dashed.format(time)));
+            assertEquals(time, DateUtils.toLocalDateTime(expected));
+            assertEquals(time.toInstant(ZoneOffset.UTC).toEpochMilli(), DateUtils.toEpochMillis(expected));
+        }
+    }
+
+    @Test
+    public void excelSerialDates() {
+        // 1900-01-01为1，Excel把1900年当作闰年，61为1900-03-01
+        assertEquals(LocalDateTime.of(1900, 1, 1, 0, 0), DateUtils.excelToLocalDateTime(1));
+        assertEquals(LocalDateTime.of(1900, 2, 28, 0, 0), DateUtils.excelToLocalDateTime(59));
+        assertEquals(LocalDateTime.of(1900, 3, 1, 0, 0), DateUtils.excelToLocalDateTime(61));
+        assertEquals(LocalDateTime.of(2021, 4, 5, 12, 0), DateUtils.excelToLocalDateTime(44291.5));
+        // 四舍五入到毫秒后进位到第二天
+        assertEquals(LocalDateTime.of(2021, 4, 6, 0, 0), DateUtils.excelToLocalDateTime(44291.9999999999));
+        for (double serial = 1; serial < 80000; serial += 123.456) {
+            assertEquals(DateUtils.excelToLocalDateTime(serial).toInstant(ZoneOffset.UTC).toEpochMilli(),
+                    DateUtils.excelToEpochMillis(serial));
+        }
+    }
+
+    @Test
+    public void parseLocalDateTime() {
+        assertNull(DateUtils.parseLocalDateTime(" "));
+        assertNull(DateUtils.parseLocalDate(null));
+        assertEquals(LocalDate.of(2021, 4, 5), DateUtils.parseLocalDate("2021-04-05 23:59:59"));
+        assertEquals(LocalDateTime.of(2021, 4, 5, 23, 59, 59), DateUtils.parseLocalDateTime("20210405235959"));
+        assertEquals("2021年04月05日", DateUtils.formatDate("20210405", null));
+        assertEquals("", DateUtils.formatDate("00000000", null));
+        assertEquals("not a date", DateUtils.formatDate("not a date", "yyyy-MM-dd"));
+    }
+
+    @Test
+    public void formatterCacheIsShared() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<DateTimeFormatter>> futures = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                futures.add(executor.submit(() -> DateUtils.getFormatter("yyyy/MM/dd HH:mm")));
+            }
+            DateTimeFormatter first = futures.get(0).get();
+            for (Future<DateTimeFormatter> future : futures) {
+                assertSame(first, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}